@@ -0,0 +1,73 @@
+#!/usr/bin/env bash
+# Time to first request and resident memory of the default jar against the fast-startup build.
+#
+#   scripts/startup-benchmark.sh [runs]       (from backend/, JDK 21 on PATH or in JAVA_HOME)
+#
+# Builds both artifacts unless SKIP_BUILD=1, then starts each variant [runs] times (default 5)
+# on an in-memory H2 database with the warm-up off. Time to first request is measured from
+# launching the JVM to the first 200 from /actuator/health/liveness; RSS is read from
+# /proc/<pid>/status at that moment. Prints every run and the median per variant.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+NAME=sweet-shop-api-1.0.0
+
+if [ "${SKIP_BUILD:-0}" != 1 ]; then
+    mvn -B -q -DskipTests package
+    cp "target/$NAME.jar" target/startup-default.jar
+    mvn -B -q -DskipTests -Pfast-startup package
+fi
+
+ARGS=(--server.port="$PORT"
+      --spring.datasource.url="jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1;MODE=PostgreSQL"
+      --spring.datasource.driver-class-name=org.h2.Driver
+      --spring.datasource.username=sa --spring.datasource.password=
+      --management.endpoint.health.probes.enabled=true
+      --sweetshop.warmup.enabled=false
+      --logging.level.root=WARN --logging.level.com.sweetshop=WARN --spring.jpa.show-sql=false)
+
+now_ms() { date +%s%3N; }
+
+# run <label> <java args...>: prints "<millis> <rss-kb>"
+run() {
+    local label=$1; shift
+    local start; start=$(now_ms)
+    "$JAVA" "$@" "${ARGS[@]}" > "target/startup-$label.log" 2>&1 &
+    local pid=$!
+    until curl -sf -o /dev/null "http://localhost:$PORT/actuator/health/liveness"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "$label exited, see target/startup-$label.log" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    local elapsed=$(( $(now_ms) - start ))
+    local rss; rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$elapsed $rss"
+}
+
+median() { sort -n | awk '{v[NR] = $1} END {print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2)}'; }
+
+bench() {
+    local label=$1; shift
+    local times=() rss=()
+    for i in $(seq "$RUNS"); do
+        read -r t r < <(run "$label" "$@")
+        echo "  $label run $i: ${t} ms, $(( r / 1024 )) MB RSS"
+        times+=("$t"); rss+=("$r")
+    done
+    printf '%-16s first request %6d ms   RSS %5d MB  (median of %d)\n' "$label" \
+        "$(printf '%s\n' "${times[@]}" | median)" "$(( $(printf '%s\n' "${rss[@]}" | median) / 1024 ))" "$RUNS" >> target/startup-benchmark.txt
+}
+
+: > target/startup-benchmark.txt
+bench default -jar target/startup-default.jar
+bench aot -Dspring.aot.enabled=true -jar "target/$NAME-fast.jar"
+bench aot+cds -XX:SharedArchiveFile="target/$NAME-fast.jsa" -Dspring.aot.enabled=true -jar "target/$NAME-fast.jar"
+echo
+cat target/startup-benchmark.txt
@@ -0,0 +1,119 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.SweetShopApplication;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.model.User;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.repository.UserRepository;
+import com.sweetshop.security.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An admin screen over HTTP on loopback (500 sweets, embedded H2): three restocks, one
+ * update and a refresh of the catalog and a category search, as six calls one after
+ * another against one {@code POST /api/batch}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AdminScreenBatchBenchmark {
+
+    private static final int SWEETS = 500;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String authorization;
+    private long firstId;
+    private String update;
+    private String batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SweetShopApplication.class)
+            .web(WebApplicationType.SERVLET)
+            .run("--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:batch_benchmark;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "--spring.jpa.show-sql=false",
+                "--sweetshop.db-stats.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.sweetshop=WARN");
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        User admin = new User(null, "bench-admin", "bench-admin@example.com", "not-used", Set.of("ADMIN"));
+        context.getBean(UserRepository.class).save(admin);
+        authorization = "Bearer " + context.getBean(JwtUtil.class).generateToken(admin.getUsername());
+
+        List<Sweet> sweets = new ArrayList<>();
+        for (int i = 0; i < SWEETS; i++) {
+            sweets.add(new Sweet(null, "Sweet " + i, "Category " + (i % 12), new BigDecimal("2.50"), 100, null));
+        }
+        firstId = context.getBean(SweetRepository.class).saveAll(sweets).get(0).getId();
+
+        update = "{\"name\": \"Sweet 3\", \"category\": \"Category 3\", \"price\": 2.75, \"quantity\": 100}";
+        batch = """
+            {"operations": [
+              {"method": "POST", "path": "/api/sweets/%1$d/restock", "body": {"quantity": 1}},
+              {"method": "POST", "path": "/api/sweets/%2$d/restock", "body": {"quantity": 1}},
+              {"method": "POST", "path": "/api/sweets/%3$d/restock", "body": {"quantity": 1}},
+              {"method": "PUT", "path": "/api/sweets/%4$d", "body": %5$s},
+              {"method": "GET", "path": "/api/sweets"},
+              {"method": "GET", "path": "/api/sweets/search?category=Category%%203"}
+            ]}
+            """.formatted(firstId, firstId + 1, firstId + 2, firstId + 3, update);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int individualCalls() throws IOException, InterruptedException {
+        int bytes = 0;
+        for (int i = 0; i < 3; i++) {
+            bytes += send("POST", "/api/sweets/" + (firstId + i) + "/restock", "{\"quantity\": 1}");
+        }
+        bytes += send("PUT", "/api/sweets/" + (firstId + 3), update);
+        bytes += send("GET", "/api/sweets", null);
+        bytes += send("GET", "/api/sweets/search?category=Category%203", null);
+        return bytes;
+    }
+
+    @Benchmark
+    public int batch() throws IOException, InterruptedException {
+        return send("POST", "/api/batch", batch);
+    }
+
+    private int send(String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .header("Authorization", authorization);
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(method + " " + path + " failed: " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
@@ -0,0 +1,25 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.metrics.SweetShopMetrics;
+import com.sweetshop.security.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+final class BenchmarkSupport {
+
+    static final String SECRET = "benchmark-secret-key-that-is-at-least-256-bits-long-for-hmac";
+
+    private BenchmarkSupport() {
+    }
+
+    static JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        return jwtUtil;
+    }
+
+    static SweetShopMetrics metrics() {
+        return new SweetShopMetrics(new SimpleMeterRegistry());
+    }
+}
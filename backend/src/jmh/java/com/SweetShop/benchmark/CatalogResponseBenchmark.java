@@ -0,0 +1,85 @@
+package com.sweetshop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.SweetShopApplication;
+import com.sweetshop.cache.CatalogResponseCache;
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.service.SweetService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /api/sweets} work per request on a 10k-sweet catalog (embedded H2): loading
+ * and serializing as before the response cache, against writing the cached bytes.
+ * Run with {@code -prof gc} for allocation per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogResponseBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private SweetService sweetService;
+    private CatalogResponseCache cache;
+    private ObjectMapper objectMapper;
+    // ObjectMapper closes its target, which nullOutputStream() rejects on the next write
+    private final OutputStream sink = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SweetShopApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:catalog_benchmark;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "--sweetshop.db-stats.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.sweetshop=WARN");
+        sweetService = context.getBean(SweetService.class);
+        cache = context.getBean(CatalogResponseCache.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        List<Sweet> sweets = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            sweets.add(new Sweet(null, "Sweet " + i, "Category " + (i % 24), BigDecimal.valueOf(100 + i % 900, 2), 100,
+                "Seeded for benchmarks"));
+        }
+        context.getBean(SweetRepository.class).saveAll(sweets);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void loadAndSerialize() throws Exception {
+        objectMapper.writeValue(sink, new ApiResponse(true, "Sweets retrieved successfully", sweetService.getAllSweets()));
+    }
+
+    @Benchmark
+    public void cachedJson() throws Exception {
+        sink.write(cache.catalog(CatalogResponseCache.Format.JSON, false).orElseThrow().bytes());
+    }
+
+    @Benchmark
+    public void cachedGzip() throws Exception {
+        sink.write(cache.catalog(CatalogResponseCache.Format.JSON, true).orElseThrow().bytes());
+    }
+}
@@ -0,0 +1,71 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.dto.SweetRequest;
+import com.sweetshop.exception.GlobalExceptionHandler;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error paths: building the exception (stack trace included, as in production) and
+ * mapping it to a response. Validation reuses one pre-built exception so only the
+ * handler's field error mapping is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GlobalExceptionHandlerBenchmark {
+
+    private GlobalExceptionHandler handler;
+    private MethodArgumentNotValidException validationException;
+
+    @Setup
+    public void setUp() throws Exception {
+        handler = new GlobalExceptionHandler();
+        ReflectionTestUtils.setField(handler, "metrics", BenchmarkSupport.metrics());
+
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new SweetRequest(), "sweetRequest");
+        bindingResult.rejectValue("name", "NotBlank", "Sweet name is required");
+        bindingResult.rejectValue("price", "NotNull", "Price is required");
+        bindingResult.rejectValue("quantity", "Min", "Quantity cannot be negative");
+        MethodParameter parameter = new MethodParameter(
+            GlobalExceptionHandlerBenchmark.class.getDeclaredMethod("create", SweetRequest.class), 0);
+        validationException = new MethodArgumentNotValidException(parameter, bindingResult);
+    }
+
+    @SuppressWarnings("unused")
+    private void create(SweetRequest request) {
+    }
+
+    @Benchmark
+    public ResponseEntity<?> validation() {
+        return handler.handleValidationExceptions(validationException);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> badCredentials() {
+        return handler.handleBadCredentials(new BadCredentialsException("Bad credentials"));
+    }
+
+    @Benchmark
+    public ResponseEntity<?> accessDenied() {
+        return handler.handleAccessDenied(new AccessDeniedException("Access is denied"));
+    }
+
+    @Benchmark
+    public ResponseEntity<?> runtime() {
+        return handler.handleRuntimeException(new RuntimeException("Sweet not found with id: 42"));
+    }
+
+    @Benchmark
+    public ResponseEntity<?> unexpected() {
+        return handler.handleGlobalException(new Exception("boom"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.sweetshop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.model.Sweet;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Response body serialization as done by the controllers: an {@link ApiResponse} wrapping a list of sweets. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private ApiResponse response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<Sweet> sweets = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            sweets.add(new Sweet(i, "Sweet " + i, "Category " + (i % 8), new BigDecimal("3.49").add(BigDecimal.valueOf(i, 2)),
+                (int) (i % 50), "Description of sweet number " + i));
+        }
+        response = new ApiResponse(true, "Sweets retrieved successfully", sweets);
+    }
+
+    @Benchmark
+    public byte[] writeApiResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,69 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.security.CustomUserDetailsService;
+import com.sweetshop.security.JwtAuthenticationFilter;
+import com.sweetshop.security.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The filter end to end on a mock request: header parsing, token parse and validate,
+ * authentication setup and metrics. The user lookup is stubbed so the database isn't
+ * measured here; see {@link SweetServiceBenchmark} for repository costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtAuthenticationFilterBenchmark {
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = BenchmarkSupport.jwtUtil();
+        UserDetails user = User.withUsername("bench").password("x").roles("USER").build();
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService() {
+            @Override
+            public UserDetails loadUserByUsername(String username) {
+                return user;
+            }
+        };
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "metrics", BenchmarkSupport.metrics());
+        authorization = "Bearer " + jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public Authentication authenticated() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sweets");
+        request.addHeader("Authorization", authorization);
+        return run(request);
+    }
+
+    @Benchmark
+    public Authentication anonymous() throws Exception {
+        return run(new MockHttpServletRequest("GET", "/api/sweets"));
+    }
+
+    private Authentication run(MockHttpServletRequest request) throws Exception {
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
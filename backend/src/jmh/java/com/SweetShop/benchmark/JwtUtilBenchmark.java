@@ -0,0 +1,40 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.security.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private UserDetails user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = BenchmarkSupport.jwtUtil();
+        user = User.withUsername("bench").password("x").roles("USER").build();
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String parse() {
+        return jwtUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public Boolean validate() {
+        return jwtUtil.validateToken(token, user);
+    }
+}
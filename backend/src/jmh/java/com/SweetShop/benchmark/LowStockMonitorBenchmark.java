@@ -0,0 +1,60 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.stock.LowStockMonitor;
+import com.sweetshop.stream.SweetChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost the monitor adds to each purchase. {@code aboveLevel} is the common case, a change
+ * that crosses nothing; {@code crossing} alternates one sweet between low and recovered,
+ * so every call records an alert.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LowStockMonitorBenchmark {
+
+    private static final int SWEETS = 10_000;
+
+    private LowStockMonitor monitor;
+    private SweetChangedEvent[] steady;
+    private SweetChangedEvent low;
+    private SweetChangedEvent recovered;
+    private int next;
+    private boolean flip;
+
+    @Setup
+    public void setUp() {
+        monitor = new LowStockMonitor();
+        ReflectionTestUtils.setField(monitor, "hysteresisPercent", 20);
+        ReflectionTestUtils.setField(monitor, "feedSize", 1000);
+        ReflectionTestUtils.invokeMethod(monitor, "init");
+        ReflectionTestUtils.invokeMethod(monitor, "registerMetrics", new SimpleMeterRegistry());
+
+        BigDecimal price = new BigDecimal("2.50");
+        steady = new SweetChangedEvent[SWEETS];
+        for (int i = 0; i < SWEETS; i++) {
+            steady[i] = new SweetChangedEvent(i, 50 + i % 50, price, 10, false, true, i + 1L);
+        }
+        // the same sequence number is never stale, so the replayed events keep being applied
+        low = new SweetChangedEvent(SWEETS, 5, price, 10, false, true, SWEETS + 1L);
+        recovered = new SweetChangedEvent(SWEETS, 20, price, 10, false, true, SWEETS + 1L);
+    }
+
+    @Benchmark
+    public void aboveLevel() {
+        monitor.onSweetChanged(steady[next]);
+        next = (next + 1) % SWEETS;
+    }
+
+    @Benchmark
+    public void crossing() {
+        flip = !flip;
+        monitor.onSweetChanged(flip ? low : recovered);
+    }
+}
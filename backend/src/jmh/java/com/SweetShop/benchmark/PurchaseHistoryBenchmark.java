@@ -0,0 +1,100 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.SweetShopApplication;
+import com.sweetshop.dto.PurchaseHistoryPage;
+import com.sweetshop.repository.SaleRepository;
+import com.sweetshop.sales.PurchaseHistory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History pages of a user with 100k purchases, among 100k purchases of 1000 other users
+ * (embedded H2): the cached recent page, a first and a deep page by keyset, and the same
+ * deep page by offset for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PurchaseHistoryBenchmark {
+
+    private static final String USER = "heavy-buyer";
+    private static final int PURCHASES = 100_000;
+    private static final int PAGE = 50;
+
+    private ConfigurableApplicationContext context;
+    private PurchaseHistory purchaseHistory;
+    private SaleRepository saleRepository;
+    private String deepCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SweetShopApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:history_benchmark;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "--spring.jpa.show-sql=false",
+                "--sweetshop.db-stats.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.sweetshop=WARN");
+        purchaseHistory = context.getBean(PurchaseHistory.class);
+        saleRepository = context.getBean(SaleRepository.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Instant start = Instant.parse("2026-01-01T00:00:00Z");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 2 * PURCHASES; i++) {
+            String username = i % 2 == 0 ? USER : "buyer-" + i % 1000;
+            rows.add(new Object[]{UUID.randomUUID().toString(), 1 + i % 500, username, Timestamp.from(start.plusSeconds(i))});
+            if (rows.size() == 10_000) {
+                jdbcTemplate.batchUpdate("INSERT INTO sales (sale_id, sweet_id, category, username, quantity, unit_price, sold_at) " +
+                    "VALUES (?, ?, 'Candies', ?, 1, 1.00, ?)", rows);
+                rows.clear();
+            }
+        }
+
+        PurchaseHistoryPage page = purchaseHistory.page(USER, null, 200);
+        for (int i = 0; i < (PURCHASES - 200) / 200; i++) {
+            page = purchaseHistory.page(USER, page.getNext(), 200);
+        }
+        deepCursor = page.getNext();
+        System.out.println(jdbcTemplate.queryForObject(
+            "EXPLAIN SELECT id, sweet_id, quantity, unit_price, sold_at FROM sales WHERE username = ? " +
+            "AND (sold_at < ? OR (sold_at = ? AND id < ?)) ORDER BY sold_at DESC, id DESC LIMIT 51",
+            String.class, USER, Timestamp.from(start), Timestamp.from(start), 0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object recentCached() {
+        return purchaseHistory.page(USER, null, 20);
+    }
+
+    @Benchmark
+    public Object firstPage() {
+        return purchaseHistory.page(USER, null, PAGE);
+    }
+
+    @Benchmark
+    public Object deepPageByKeyset() {
+        return purchaseHistory.page(USER, deepCursor, PAGE);
+    }
+
+    @Benchmark
+    public Object deepPageByOffset() {
+        return saleRepository.findHistory(USER, PageRequest.of((PURCHASES - 200) / PAGE, PAGE));
+    }
+}
@@ -0,0 +1,76 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.SweetShopApplication;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.order.PurchaseShards;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.service.SweetService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Purchase throughput with 32 concurrent buyers on embedded H2: synchronous row-locking
+ * purchases against the async shards (submit and wait for the decision), on one hot sweet
+ * and spread uniformly over 1000 sweets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(32)
+public class PurchaseQueueBenchmark {
+
+    private static final int SWEETS = 1000;
+
+    @Param({"sync", "async"})
+    public String mode;
+
+    @Param({"hot", "uniform"})
+    public String spread;
+
+    private ConfigurableApplicationContext context;
+    private SweetService sweetService;
+    private PurchaseShards purchaseShards;
+    private long firstId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SweetShopApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:purchase_benchmark;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "--sweetshop.purchase.mode=async",
+                "--sweetshop.sales.queue-capacity=1000000",
+                "--sweetshop.db-stats.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.sweetshop=WARN");
+        sweetService = context.getBean(SweetService.class);
+        purchaseShards = context.getBean(PurchaseShards.class);
+
+        List<Sweet> sweets = new ArrayList<>();
+        for (int i = 0; i < SWEETS; i++) {
+            sweets.add(new Sweet(null, "Sweet " + i, "Candies", new BigDecimal("1.00"), Integer.MAX_VALUE, null));
+        }
+        firstId = context.getBean(SweetRepository.class).saveAll(sweets).get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object purchase() {
+        long id = "hot".equals(spread) ? firstId : firstId + ThreadLocalRandom.current().nextInt(SWEETS);
+        if ("sync".equals(mode)) {
+            return sweetService.purchaseSweet(id, 1);
+        }
+        return purchaseShards.submit(id, 1).done().join();
+    }
+}
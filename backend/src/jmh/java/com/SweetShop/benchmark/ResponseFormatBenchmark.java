@@ -0,0 +1,82 @@
+package com.sweetshop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.model.Sweet;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A 10k-sweet catalog response in each format the read endpoints offer: encode on the
+ * server and decode into typed objects on the client. Payload sizes are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ResponseFormatBenchmark {
+
+    /** What a client maps the catalog envelope to. */
+    public record CatalogResponse(boolean success, String message, List<Sweet> data) {
+    }
+
+    @Param({"json", "json+gzip", "cbor", "smile"})
+    public String format;
+
+    @Param({"10000"})
+    public int size;
+
+    private ObjectMapper mapper;
+    private boolean gzip;
+    private ApiResponse response;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        mapper = switch (format) {
+            case "cbor" -> builder.factory(new CBORFactory()).build();
+            case "smile" -> builder.factory(new SmileFactory()).build();
+            default -> builder.build();
+        };
+        gzip = format.endsWith("+gzip");
+        List<Sweet> sweets = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            Sweet sweet = new Sweet(i, "Sweet " + i, "Category " + (i % 24), new BigDecimal("3.49").add(BigDecimal.valueOf(i % 500, 2)),
+                (int) (i % 50), "Description of sweet number " + i);
+            sweet.setChangeSeq(i);
+            sweets.add(sweet);
+        }
+        response = new ApiResponse(true, "Sweets retrieved successfully", sweets);
+        payload = encode();
+        System.out.printf("%n%s payload for %d sweets: %,d bytes%n", format, size, payload.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 20);
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes, 8192) : bytes) {
+            mapper.writeValue(out, response);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public CatalogResponse decode() throws Exception {
+        try (InputStream in = gzip ? new GZIPInputStream(new ByteArrayInputStream(payload), 8192) : new ByteArrayInputStream(payload)) {
+            return mapper.readValue(in, CatalogResponse.class);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.SweetShopApplication;
+import com.sweetshop.timeseries.SweetTimeSeries;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock and price history of 1000 sweets, each changed every two minutes on average for
+ * 30 days (about 21k changes per sweet). Prints the bytes held per sweet; measures a
+ * 30-day chart in hour steps, a 6-hour chart in minute steps and recording one change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StockHistoryBenchmark {
+
+    private static final int SWEETS = 1000;
+    private static final long DAYS = 30;
+
+    private ConfigurableApplicationContext context;
+    private SweetTimeSeries timeSeries;
+    private Instant end;
+    private long time;
+    private int quantity;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SweetShopApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:timeseries_benchmark;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "--spring.jpa.show-sql=false",
+                "--sweetshop.db-stats.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.sweetshop=WARN");
+        timeSeries = context.getBean(SweetTimeSeries.class);
+
+        end = Instant.now();
+        long start = end.minus(Duration.ofDays(DAYS)).toEpochMilli();
+        long changes = 0;
+        for (int sweet = 1; sweet <= SWEETS; sweet++) {
+            long at = start + sweet * 1000L;
+            int stock = 500;
+            BigDecimal price = new BigDecimal("2.50");
+            while (at < end.toEpochMilli()) {
+                stock = stock > 20 ? stock - 1 - (int) (at % 3) : 500;
+                if (at % 97 == 0) {
+                    price = price.add(new BigDecimal("0.05"));
+                }
+                timeSeries.record(sweet, at, stock, price);
+                changes++;
+                at += 60_000 + at % 120_000;
+            }
+        }
+        timeSeries.compact();
+        double bytes = context.getBean(MeterRegistry.class).get("sweetshop.timeseries.bytes").gauge().value();
+        System.out.printf("%,d changes held in %,.0f bytes: %,.0f bytes per sweet, %.2f per change%n",
+            changes, bytes, bytes / SWEETS, bytes / changes);
+        time = end.toEpochMilli();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object thirtyDaysHourly() {
+        return timeSeries.history(SWEETS / 2, end.minus(Duration.ofDays(DAYS)), end, Duration.ofHours(1));
+    }
+
+    @Benchmark
+    public Object sixHoursByMinute() {
+        return timeSeries.history(SWEETS / 2, end.minus(Duration.ofHours(6)), end, Duration.ofMinutes(1));
+    }
+
+    @Benchmark
+    public void recordChange() {
+        time += 1000;
+        timeSeries.record(SWEETS / 2, time, quantity++ & 1023, BigDecimal.TEN);
+    }
+}
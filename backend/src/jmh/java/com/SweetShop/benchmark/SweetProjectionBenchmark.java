@@ -0,0 +1,102 @@
+package com.sweetshop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.SweetShopApplication;
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.service.SweetService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A 100k-sweet list on embedded H2, loaded and serialized as full entities against an
+ * {@code id,name,price,quantity} projection. Each sweet has a 200-character description.
+ * Returns the payload size; run with {@code -prof gc} for allocation per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SweetProjectionBenchmark {
+
+    private static final List<String> LIST_FIELDS = List.of("id", "name", "price", "quantity");
+
+    private ConfigurableApplicationContext context;
+    private SweetService sweetService;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SweetShopApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:projection_benchmark;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "--spring.jpa.show-sql=false",
+                "--sweetshop.db-stats.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.sweetshop=WARN");
+        sweetService = context.getBean(SweetService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        SweetRepository sweetRepository = context.getBean(SweetRepository.class);
+        String description = "Hand-made in small batches with ghee, cardamom and a little saffron. ".repeat(3).substring(0, 200);
+        List<Sweet> sweets = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            sweets.add(new Sweet(null, "Sweet " + i, "Category " + (i % 24), BigDecimal.valueOf(100 + i % 900, 2), 100,
+                description));
+            if (sweets.size() == 5_000) {
+                sweetRepository.saveAll(sweets);
+                sweets.clear();
+            }
+        }
+        try {
+            System.out.printf("payload: entities %,d bytes, projection %,d bytes%n", entities(), projection());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long entities() throws IOException {
+        return write(sweetService.getAllSweets());
+    }
+
+    @Benchmark
+    public long projection() throws IOException {
+        return write(sweetService.searchSweetFields(LIST_FIELDS, null, null, null, null));
+    }
+
+    private long write(Object sweets) throws IOException {
+        CountingSink sink = new CountingSink();
+        objectMapper.writeValue(sink, new ApiResponse(true, "Sweets retrieved successfully", sweets));
+        return sink.count;
+    }
+
+    // ObjectMapper closes its target, which nullOutputStream() rejects on the next write
+    private static final class CountingSink extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.sweetshop.benchmark;
+
+import com.sweetshop.SweetShopApplication;
+import com.sweetshop.dto.PurchaseRequest;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.service.SweetService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service calls through the real Spring proxies, JPA and an embedded H2 database
+ * seeded with 1000 sweets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SweetServiceBenchmark {
+
+    private static final String[] CATEGORIES = {"Chocolates", "Cakes", "Candies", "Cookies", "Pastries"};
+
+    private ConfigurableApplicationContext context;
+    private SweetService sweetService;
+    private Long stockedId;
+    private final PurchaseRequest purchase = new PurchaseRequest(1);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SweetShopApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "--sweetshop.db-stats.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.sweetshop=WARN");
+        sweetService = context.getBean(SweetService.class);
+
+        List<Sweet> sweets = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            sweets.add(new Sweet(null, "Sweet " + i, CATEGORIES[i % CATEGORIES.length],
+                BigDecimal.valueOf(100 + i, 2), 100, "Seeded for benchmarks"));
+        }
+        sweets.add(new Sweet(null, "Bottomless Toffee", "Candies", new BigDecimal("1.00"), Integer.MAX_VALUE, null));
+        List<Sweet> saved = context.getBean(SweetRepository.class).saveAll(sweets);
+        stockedId = saved.get(saved.size() - 1).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Sweet purchaseSweet() {
+        return sweetService.purchaseSweet(stockedId, purchase);
+    }
+
+    @Benchmark
+    public List<Sweet> searchByName() {
+        return sweetService.searchSweets("Sweet 9", null, null, null);
+    }
+
+    @Benchmark
+    public List<Sweet> searchByCategoryAndPrice() {
+        return sweetService.searchSweets(null, "Cakes", new BigDecimal("2.00"), new BigDecimal("6.00"));
+    }
+}
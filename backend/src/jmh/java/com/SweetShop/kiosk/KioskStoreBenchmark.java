@@ -0,0 +1,57 @@
+package com.sweetshop.kiosk;
+
+import com.sweetshop.model.Sweet;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opening a kiosk store that holds 100k sweets: reading the record file and rebuilding
+ * the in-memory indexes. Lives in the kiosk package because mutations are package-private.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class KioskStoreBenchmark {
+
+    private static final int SWEETS = 100_000;
+
+    private Path dir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("kiosk-benchmark");
+        try (KioskStore store = new KioskStore(dir, 1, 64 << 20)) {
+            for (int batch = 0; batch < SWEETS / 1000; batch++) {
+                List<KioskStore.Mutation> mutations = new ArrayList<>();
+                for (int i = 1; i <= 1000; i++) {
+                    long id = batch * 1000L + i;
+                    Sweet sweet = new Sweet(id, "Sweet " + id, "Category " + id % 40, new BigDecimal("2.75"), 100,
+                        "Fresh Sweet " + id);
+                    sweet.setChangeSeq(id);
+                    mutations.add(new KioskStore.PutSweet(sweet));
+                }
+                store.commit(mutations);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public long open() throws IOException {
+        try (KioskStore store = new KioskStore(dir, 1, 64 << 20)) {
+            return store.sweetCount();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.sweetshop.analytics;
+
+/** Bucket widths kept in memory, with how many of each are retained. */
+public enum Granularity {
+    MINUTE(60, 24 * 60),
+    HOUR(3600, 8 * 24),
+    DAY(86400, 400);
+
+    final long seconds;
+    final int retention;
+
+    Granularity(long seconds, int retention) {
+        this.seconds = seconds;
+        this.retention = retention;
+    }
+}
@@ -0,0 +1,91 @@
+package com.sweetshop.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing {@code long -> long} map for counters: no boxing, no per-entry objects,
+ * two flat arrays. Keys must not be {@link Long#MIN_VALUE}. Not thread-safe.
+ */
+final class LongLongHashMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+
+    LongLongHashMap() {
+        this(16);
+    }
+
+    LongLongHashMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected * 4 / 3) - 1) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    void addTo(long key, long delta) {
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            values[slot] = delta;
+            if (++size * 4 > keys.length * 3) {
+                resize();
+            }
+        } else {
+            values[slot] += delta;
+        }
+    }
+
+    long get(long key) {
+        int slot = slot(key);
+        return keys[slot] == EMPTY ? 0 : values[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.sweetshop.analytics;
+
+/**
+ * Sales in one time bucket: units and revenue (cents) per sweet and per category id.
+ */
+final class RollupBucket {
+
+    final long start;
+    final LongLongHashMap units = new LongLongHashMap();
+    final LongLongHashMap revenueCents = new LongLongHashMap();
+    final LongLongHashMap categoryUnits = new LongLongHashMap(8);
+    final LongLongHashMap categoryRevenueCents = new LongLongHashMap(8);
+    boolean dirty;
+
+    RollupBucket(long start) {
+        this.start = start;
+    }
+
+    void add(long sweetId, int categoryId, long quantity, long cents) {
+        units.addTo(sweetId, quantity);
+        revenueCents.addTo(sweetId, cents);
+        categoryUnits.addTo(categoryId, quantity);
+        categoryRevenueCents.addTo(categoryId, cents);
+        dirty = true;
+    }
+}
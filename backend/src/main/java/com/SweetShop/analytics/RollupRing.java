@@ -0,0 +1,56 @@
+package com.sweetshop.analytics;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Fixed number of consecutive buckets of one width, addressed by {@code epochSecond / width}
+ * modulo the ring size. Writing to a bucket newer than the ring's window evicts the
+ * oldest; lookups outside the window return null. Callers hold the analytics lock.
+ */
+final class RollupRing {
+
+    final Granularity granularity;
+    private final RollupBucket[] buckets;
+
+    RollupRing(Granularity granularity) {
+        this.granularity = granularity;
+        this.buckets = new RollupBucket[granularity.retention];
+    }
+
+    long indexOf(Instant time) {
+        return Math.floorDiv(time.getEpochSecond(), granularity.seconds);
+    }
+
+    Instant startOf(long index) {
+        return Instant.ofEpochSecond(index * granularity.seconds);
+    }
+
+    /** Bucket for {@code index}, created if needed; null if it is older than the window ending at {@code nowIndex}. */
+    RollupBucket bucketForWrite(long index, long nowIndex) {
+        if (index <= nowIndex - buckets.length) {
+            return null;
+        }
+        int slot = (int) Math.floorMod(index, buckets.length);
+        RollupBucket bucket = buckets[slot];
+        if (bucket == null || bucket.start != index) {
+            if (bucket != null && bucket.start > index) {
+                return null;
+            }
+            bucket = new RollupBucket(index);
+            buckets[slot] = bucket;
+        }
+        return bucket;
+    }
+
+    RollupBucket bucket(long index) {
+        RollupBucket bucket = buckets[(int) Math.floorMod(index, buckets.length)];
+        return bucket != null && bucket.start == index ? bucket : null;
+    }
+
+    List<RollupBucket> buckets() {
+        return Arrays.stream(buckets).filter(Objects::nonNull).toList();
+    }
+}
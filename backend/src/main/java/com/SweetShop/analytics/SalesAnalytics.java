@@ -0,0 +1,392 @@
+package com.sweetshop.analytics;
+
+import com.sweetshop.dto.SweetSalesSummary;
+import com.sweetshop.sales.PurchaseCompletedEvent;
+import com.sweetshop.sales.SalesLedger;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory sales rollups per minute (24 hours), hour (8 days) and day (400 days), in UTC,
+ * fed by committed purchases. Queries touch a fixed number of buckets, so their cost
+ * depends on the query window and the number of distinct sweets in it, never on the
+ * length of the sales history.
+ *
+ * Hour and day buckets are persisted to {@code sales_rollups} when they change and are
+ * reloaded on startup; minute buckets only live in memory. Buckets whose write fails stay
+ * dirty and go out with the next run. {@link #rebuild()} recomputes everything from the
+ * {@code sales} ledger, streaming it in one transaction.
+ *
+ * A {@link ReentrantLock} rather than {@code synchronized} guards the rings so purchase
+ * threads running on virtual threads don't pin their carrier while waiting.
+ */
+@Service
+public class SalesAnalytics {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesAnalytics.class);
+    private static final Granularity[] PERSISTED = {Granularity.HOUR, Granularity.DAY};
+    private static final int REBUILD_FETCH_SIZE = 1000;
+
+    public record RebuildResult(long sales, long replayed, long elapsedMillis) {
+    }
+
+    private record RollupRow(String granularity, Instant bucketStart, Long sweetId, String category,
+                             long units, long revenueCents) {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SalesLedger salesLedger;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private final List<String> categories = new ArrayList<>();
+    private Map<Granularity, RollupRing> rings = newRings();
+    private List<PurchaseCompletedEvent> replay;
+
+    @PostConstruct
+    void load() {
+        Instant since = Instant.now().minusSeconds(Granularity.DAY.seconds * Granularity.DAY.retention);
+        jdbcTemplate.query("SELECT granularity, bucket_start, sweet_id, category, units, revenue_cents " +
+                "FROM sales_rollups WHERE bucket_start >= ?", rs -> {
+            RollupRing ring = rings.get(Granularity.valueOf(rs.getString(1)));
+            long index = ring.indexOf(rs.getTimestamp(2).toInstant());
+            RollupBucket bucket = ring.bucketForWrite(index, ring.indexOf(Instant.now()));
+            if (bucket == null) {
+                return;
+            }
+            long sweetId = rs.getLong(3);
+            if (rs.wasNull()) {
+                int categoryId = categoryId(rs.getString(4));
+                bucket.categoryUnits.addTo(categoryId, rs.getLong(5));
+                bucket.categoryRevenueCents.addTo(categoryId, rs.getLong(6));
+            } else {
+                bucket.units.addTo(sweetId, rs.getLong(5));
+                bucket.revenueCents.addTo(sweetId, rs.getLong(6));
+            }
+        }, Timestamp.from(since));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPurchase(PurchaseCompletedEvent event) {
+        lock.lock();
+        try {
+            apply(rings, event, Instant.now());
+            if (replay != null) {
+                replay.add(event);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Best sellers by units in the current hour, today, or the last 7 days including today. */
+    public List<SweetSalesSummary> topSellers(String period, int limit) {
+        Granularity granularity = "HOUR".equalsIgnoreCase(period) ? Granularity.HOUR : Granularity.DAY;
+        int buckets = "WEEK".equalsIgnoreCase(period) ? 7 : 1;
+        LongLongHashMap units = new LongLongHashMap();
+        LongLongHashMap revenue = new LongLongHashMap();
+        lock.lock();
+        try {
+            RollupRing ring = rings.get(granularity);
+            long now = ring.indexOf(Instant.now());
+            for (long index = now - buckets + 1; index <= now; index++) {
+                RollupBucket bucket = ring.bucket(index);
+                if (bucket != null) {
+                    bucket.units.forEach(units::addTo);
+                    bucket.revenueCents.forEach(revenue::addTo);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        PriorityQueue<SweetSalesSummary> top = new PriorityQueue<>(Comparator.comparingLong(SweetSalesSummary::getUnits));
+        units.forEach((sweetId, sold) -> {
+            if (top.size() < limit || sold > top.peek().getUnits()) {
+                top.add(new SweetSalesSummary(sweetId, sold, cents(revenue.get(sweetId))));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        });
+        List<SweetSalesSummary> result = new ArrayList<>(top);
+        result.sort(Comparator.comparingLong(SweetSalesSummary::getUnits).reversed()
+            .thenComparing(SweetSalesSummary::getSweetId));
+        return result;
+    }
+
+    /** Revenue per category for each hour of {@code date} (UTC) that had sales; hour ring covers the last 8 days. */
+    public Map<Instant, Map<String, BigDecimal>> revenueByCategoryPerHour(LocalDate date) {
+        Map<Instant, Map<String, BigDecimal>> result = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            RollupRing ring = rings.get(Granularity.HOUR);
+            long first = ring.indexOf(date.atStartOfDay().toInstant(ZoneOffset.UTC));
+            for (long index = first; index < first + 24; index++) {
+                RollupBucket bucket = ring.bucket(index);
+                if (bucket != null && bucket.categoryRevenueCents.size() > 0) {
+                    Map<String, BigDecimal> byCategory = new TreeMap<>();
+                    bucket.categoryRevenueCents.forEach((categoryId, cents) ->
+                        byCategory.put(categories.get((int) categoryId), cents(cents)));
+                    result.put(ring.startOf(index), byCategory);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /** Units of one sweet sold on each of the last {@code days} days (UTC), oldest first. */
+    public Map<LocalDate, Long> unitsPerDay(long sweetId, int days) {
+        int window = Math.min(days, Granularity.DAY.retention);
+        Map<LocalDate, Long> result = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            RollupRing ring = rings.get(Granularity.DAY);
+            long now = ring.indexOf(Instant.now());
+            for (long index = now - window + 1; index <= now; index++) {
+                RollupBucket bucket = ring.bucket(index);
+                result.put(LocalDate.ofEpochDay(index), bucket == null ? 0 : bucket.units.get(sweetId));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return result;
+    }
+
+    /** Writes hour and day buckets that changed since the last run. */
+    @Scheduled(fixedDelayString = "${sweetshop.analytics.persist-interval-ms:60000}",
+        initialDelayString = "${sweetshop.analytics.persist-interval-ms:60000}")
+    public void persist() {
+        List<RollupRow> rows = new ArrayList<>();
+        List<Object[]> buckets = new ArrayList<>();
+        List<RollupBucket> written = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Granularity granularity : PERSISTED) {
+                RollupRing ring = rings.get(granularity);
+                for (RollupBucket bucket : ring.buckets()) {
+                    if (bucket.dirty) {
+                        bucket.dirty = false;
+                        written.add(bucket);
+                        buckets.add(new Object[]{granularity.name(), Timestamp.from(ring.startOf(bucket.start))});
+                        snapshot(granularity, ring.startOf(bucket.start), bucket, rows);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!buckets.isEmpty()) {
+            write(buckets, rows, false, written);
+        }
+    }
+
+    /**
+     * Recomputes all rollups from the ledger. Purchases keep flowing meanwhile: they are
+     * applied to the live rings and also replayed into the rebuilt ones unless the ledger
+     * scan already contained them.
+     */
+    public RebuildResult rebuild() {
+        long started = System.currentTimeMillis();
+        lock.lock();
+        try {
+            if (replay != null) {
+                throw new RuntimeException("Analytics rebuild already running");
+            }
+            replay = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            awaitLedgerDrained();
+            Instant scanStart = Instant.now();
+            Instant since = scanStart.minusSeconds(Granularity.DAY.seconds * Granularity.DAY.retention);
+            Instant recent = scanStart.minusSeconds(300);
+            Map<Granularity, RollupRing> fresh = newRings();
+            Set<String> recentSaleIds = new HashSet<>();
+            long[] scanned = new long[1];
+            // inside a transaction so drivers like PostgreSQL honour the fetch size instead of buffering every row
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement("SELECT sale_id, sweet_id, category, username, quantity, " +
+                    "unit_price, sold_at FROM sales WHERE sold_at >= ?");
+                ps.setFetchSize(REBUILD_FETCH_SIZE);
+                ps.setTimestamp(1, Timestamp.from(since));
+                return ps;
+            }, rs -> {
+                PurchaseCompletedEvent sale = new PurchaseCompletedEvent(rs.getString(1), rs.getLong(2), rs.getString(3),
+                    rs.getString(4), rs.getInt(5), rs.getBigDecimal(6), rs.getTimestamp(7).toInstant());
+                if (!sale.soldAt().isBefore(recent)) {
+                    recentSaleIds.add(sale.saleId());
+                }
+                lock.lock();
+                try {
+                    apply(fresh, sale, scanStart);
+                } finally {
+                    lock.unlock();
+                }
+                scanned[0]++;
+            }));
+
+            List<RollupRow> rows = new ArrayList<>();
+            List<RollupBucket> written = new ArrayList<>();
+            long replayed = 0;
+            lock.lock();
+            try {
+                Instant now = Instant.now();
+                for (PurchaseCompletedEvent event : replay) {
+                    if (!recentSaleIds.contains(event.saleId())) {
+                        apply(fresh, event, now);
+                        replayed++;
+                    }
+                }
+                rings = fresh;
+                for (Granularity granularity : PERSISTED) {
+                    RollupRing ring = rings.get(granularity);
+                    for (RollupBucket bucket : ring.buckets()) {
+                        bucket.dirty = false;
+                        written.add(bucket);
+                        snapshot(granularity, ring.startOf(bucket.start), bucket, rows);
+                    }
+                }
+            } finally {
+                replay = null;
+                lock.unlock();
+            }
+            write(List.of(), rows, true, written);
+
+            long elapsed = System.currentTimeMillis() - started;
+            log.info("Rebuilt sales analytics from {} ledger rows ({} replayed) in {} ms", scanned[0], replayed, elapsed);
+            return new RebuildResult(scanned[0], replayed, elapsed);
+        } finally {
+            lock.lock();
+            try {
+                replay = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void awaitLedgerDrained() {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (salesLedger.pending() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the sales ledger", e);
+            }
+        }
+    }
+
+    private void apply(Map<Granularity, RollupRing> target, PurchaseCompletedEvent event, Instant now) {
+        long cents = event.unitPrice().movePointRight(2).longValue() * event.quantity();
+        int categoryId = categoryId(event.category());
+        for (RollupRing ring : target.values()) {
+            RollupBucket bucket = ring.bucketForWrite(ring.indexOf(event.soldAt()), ring.indexOf(now));
+            if (bucket != null) {
+                bucket.add(event.sweetId(), categoryId, event.quantity(), cents);
+            }
+        }
+    }
+
+    private int categoryId(String category) {
+        return categoryIds.computeIfAbsent(category, name -> {
+            categories.add(name);
+            return categories.size() - 1;
+        });
+    }
+
+    private void snapshot(Granularity granularity, Instant start, RollupBucket bucket, List<RollupRow> rows) {
+        String name = granularity.name();
+        bucket.units.forEach((sweetId, units) ->
+            rows.add(new RollupRow(name, start, sweetId, null, units, bucket.revenueCents.get(sweetId))));
+        bucket.categoryUnits.forEach((categoryId, units) ->
+            rows.add(new RollupRow(name, start, null, categories.get((int) categoryId), units,
+                bucket.categoryRevenueCents.get(categoryId))));
+    }
+
+    /** Writes the snapshot of {@code written}; if that fails they are marked dirty again for the next run. */
+    private void write(List<Object[]> replacedBuckets, List<RollupRow> rows, boolean replaceAll,
+                       List<RollupBucket> written) {
+        try {
+            writeRows(replacedBuckets, rows, replaceAll);
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                written.forEach(bucket -> bucket.dirty = true);
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private void writeRows(List<Object[]> replacedBuckets, List<RollupRow> rows, boolean replaceAll) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (replaceAll) {
+                jdbcTemplate.update("DELETE FROM sales_rollups");
+            } else {
+                jdbcTemplate.batchUpdate("DELETE FROM sales_rollups WHERE granularity = ? AND bucket_start = ?",
+                    replacedBuckets);
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO sales_rollups (granularity, bucket_start, sweet_id, category, units, " +
+                    "revenue_cents) VALUES (?, ?, ?, ?, ?, ?)", rows, 1000, (ps, row) -> {
+                ps.setString(1, row.granularity());
+                ps.setTimestamp(2, Timestamp.from(row.bucketStart()));
+                ps.setObject(3, row.sweetId());
+                ps.setString(4, row.category());
+                ps.setLong(5, row.units());
+                ps.setLong(6, row.revenueCents());
+            });
+        });
+    }
+
+    private static BigDecimal cents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static Map<Granularity, RollupRing> newRings() {
+        Map<Granularity, RollupRing> rings = new EnumMap<>(Granularity.class);
+        for (Granularity granularity : Granularity.values()) {
+            rings.put(granularity, new RollupRing(granularity));
+        }
+        return rings;
+    }
+}
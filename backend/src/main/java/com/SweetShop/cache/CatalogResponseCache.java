@@ -0,0 +1,394 @@
+package com.sweetshop.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.sweetshop.config.ResponseFormatConfig;
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.jdbc.ReplicaRouting;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.service.SweetService;
+import com.sweetshop.stream.SweetChangedEvent;
+import com.sweetshop.stream.SweetsBulkChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ready-to-write bodies for {@code GET /api/sweets} and {@code GET /api/sweets/{id}}, per
+ * format and, for JSON from the compression threshold up, gzipped.
+ *
+ * Every committed change to a sweet retires that sweet's bodies. The full-catalog bodies
+ * are retired by changes other than purchases and restocks at once; stock-only changes
+ * are coalesced, so a catalog body may show quantities up to
+ * {@code sweetshop.catalog-cache.stock-refresh-ms} old (live stock is on the stock
+ * stream). A retired body is rebuilt on the next request. Concurrent requests for the same
+ * format and catalog version share that one build instead of building in turn. A body is
+ * stored only if no catalog change committed while it was built, so such a change is
+ * never hidden. Bodies are built from the primary, as a lagging replica could return rows
+ * older than the version they would be stored under.
+ *
+ * All bodies together stay under {@code sweetshop.catalog-cache.max-bytes}: the least
+ * recently used sweets go first. A catalog that does not fit is not built again until the
+ * catalog changes; {@link #catalog} returns empty and callers stream it uncached.
+ */
+@Service
+public class CatalogResponseCache {
+
+    private static final String CATALOG_MESSAGE = "Sweets retrieved successfully";
+    private static final String SWEET_MESSAGE = "Sweet retrieved successfully";
+
+    public enum Format {
+        JSON(MediaType.APPLICATION_JSON),
+        CBOR(MediaType.APPLICATION_CBOR),
+        SMILE(MediaType.parseMediaType(ResponseFormatConfig.APPLICATION_SMILE_VALUE));
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType mediaType() {
+            return mediaType;
+        }
+
+        /** The most preferred format in an Accept header; JSON when it allows anything or is absent. */
+        public static Format negotiate(String accept) {
+            if (accept == null || accept.isBlank()) {
+                return JSON;
+            }
+            List<MediaType> acceptable = MediaType.parseMediaTypes(accept);
+            acceptable.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+            for (MediaType type : acceptable) {
+                for (Format format : values()) {
+                    if (type.includes(format.mediaType)) {
+                        return format;
+                    }
+                }
+            }
+            return JSON;
+        }
+    }
+
+    public record CachedBody(byte[] bytes, MediaType contentType, boolean gzip) {
+    }
+
+    /** Bodies of one resource at one catalog version, indexed by format and gzip. */
+    private static final class Entry {
+        final long version;
+        final byte[][] bodies = new byte[Format.values().length * 2][];
+        long size;
+        long stockVersion;
+        long builtNanos;
+
+        Entry(long version) {
+            this.version = version;
+        }
+    }
+
+    /** A catalog body being built; requests arriving at the same catalog version wait for it. */
+    private record Build(long catalogVersion, CompletableFuture<CachedBody[]> result) {
+    }
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObjectProvider<Jackson2ObjectMapperBuilder> mapperBuilders;
+
+    @Value("${sweetshop.catalog-cache.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Value("${sweetshop.catalog-cache.stock-refresh-ms:1000}")
+    private long stockRefreshMillis;
+
+    @Value("${sweetshop.compression.enabled:true}")
+    private boolean compression;
+
+    @Value("${sweetshop.compression.min-response-size:2048}")
+    private int minCompressedSize;
+
+    private final ObjectMapper[] mappers = new ObjectMapper[Format.values().length];
+    private final AtomicLong version = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Long, Entry> sweets = new LinkedHashMap<>(256, 0.75f, true);
+    // guarded by lock
+    private final Entry[] catalogs = new Entry[Format.values().length];
+    private final Build[] builds = new Build[Format.values().length];
+    private long catalogVersion;
+    private long stockVersion;
+    private long oversizeVersion = -1;
+    private long bytes;
+    private Counter hits;
+    private Counter misses;
+    private Counter bypasses;
+
+    @PostConstruct
+    void init() {
+        mappers[Format.JSON.ordinal()] = objectMapper;
+        mappers[Format.CBOR.ordinal()] = mapperBuilders.getObject().factory(new CBORFactory()).build();
+        mappers[Format.SMILE.ordinal()] = mapperBuilders.getObject().factory(new SmileFactory()).build();
+    }
+
+    @Autowired
+    void registerMetrics(MeterRegistry registry) {
+        Gauge.builder("sweetshop.catalog.cache.bytes", this, CatalogResponseCache::bytes)
+            .description("Pre-serialized catalog response bytes held")
+            .register(registry);
+        hits = registry.counter("sweetshop.catalog.cache", "result", "hit");
+        misses = registry.counter("sweetshop.catalog.cache", "result", "miss");
+        bypasses = registry.counter("sweetshop.catalog.cache", "result", "bypass");
+    }
+
+    /** Empty when the catalog is known to be too large to keep; the caller then serves it uncached. */
+    public Optional<CachedBody> catalog(Format format, boolean acceptsGzip) {
+        int index = format.ordinal();
+        Build build;
+        boolean builder = false;
+        lock.lock();
+        try {
+            Entry entry = catalogs[index];
+            if (entry != null && entry.version == catalogVersion && (entry.stockVersion == stockVersion
+                    || System.nanoTime() - entry.builtNanos < stockRefreshMillis * 1_000_000)) {
+                hits.increment();
+                return Optional.of(choose(format, entry.bodies[index * 2], entry.bodies[index * 2 + 1], acceptsGzip));
+            }
+            if (oversizeVersion == catalogVersion) {
+                bypasses.increment();
+                return Optional.empty();
+            }
+            misses.increment();
+            build = builds[index];
+            if (build == null || build.catalogVersion() != catalogVersion) {
+                build = new Build(catalogVersion, new CompletableFuture<>());
+                builds[index] = build;
+                builder = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (builder) {
+            buildCatalog(format, build);
+        }
+        CachedBody[] bodies = build.result().join();
+        return Optional.of(acceptsGzip && bodies[1] != null ? bodies[1] : bodies[0]);
+    }
+
+    /** Completes {@code build} with the plain and gzipped body; one too large to keep is handed out once. */
+    private void buildCatalog(Format format, Build build) {
+        int index = format.ordinal();
+        try {
+            long stockBuilt;
+            long started = System.nanoTime();
+            lock.lock();
+            try {
+                stockBuilt = stockVersion;
+            } finally {
+                lock.unlock();
+            }
+            byte[] body = serialize(format, new ApiResponse(true, CATALOG_MESSAGE,
+                ReplicaRouting.onPrimary(sweetService::getAllSweets)));
+            byte[] gzipped = gzipVariant(format, body);
+            lock.lock();
+            try {
+                if (builds[index] == build) {
+                    builds[index] = null;
+                }
+                if (body.length + (gzipped != null ? gzipped.length : 0) > maxBytes) {
+                    oversizeVersion = Math.max(oversizeVersion, build.catalogVersion());
+                } else if (catalogVersion == build.catalogVersion()) {
+                    release(catalogs[index]);
+                    Entry entry = new Entry(build.catalogVersion());
+                    entry.stockVersion = stockBuilt;
+                    entry.builtNanos = started;
+                    catalogs[index] = entry;
+                    store(entry, index * 2, body, gzipped);
+                }
+            } finally {
+                lock.unlock();
+            }
+            build.result().complete(new CachedBody[]{
+                new CachedBody(body, format.mediaType(), false),
+                gzipped != null ? new CachedBody(gzipped, format.mediaType(), true) : null});
+        } catch (RuntimeException e) {
+            lock.lock();
+            try {
+                if (builds[index] == build) {
+                    builds[index] = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+            build.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Empty when the sweet does not exist. */
+    public Optional<CachedBody> sweet(long id, Format format, boolean acceptsGzip) {
+        int variant = format.ordinal() * 2;
+        long built = version.get();
+        lock.lock();
+        try {
+            Entry entry = sweets.get(id);
+            if (entry != null && entry.bodies[variant] != null) {
+                hits.increment();
+                return Optional.of(choose(format, entry.bodies[variant], entry.bodies[variant + 1], acceptsGzip));
+            }
+        } finally {
+            lock.unlock();
+        }
+        misses.increment();
+        Optional<Sweet> sweet = ReplicaRouting.onPrimary(() -> sweetService.getSweetById(id));
+        if (sweet.isEmpty()) {
+            return Optional.empty();
+        }
+        byte[] body = serialize(format, new ApiResponse(true, SWEET_MESSAGE, sweet.get()));
+        byte[] gzipped = gzipVariant(format, body);
+        lock.lock();
+        try {
+            if (version.get() == built) {
+                store(sweets.computeIfAbsent(id, key -> new Entry(built)), variant, body, gzipped);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return Optional.of(choose(format, body, gzipped, acceptsGzip));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSweetChanged(SweetChangedEvent event) {
+        lock.lock();
+        try {
+            version.incrementAndGet();
+            release(sweets.remove(event.sweetId()));
+            if (event.stockOnly()) {
+                stockVersion++;
+            } else {
+                retireCatalog();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** For writes that bypass the service and its change events, such as bulk data generation. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSweetsBulkChanged(SweetsBulkChangedEvent event) {
+        invalidateAll();
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            version.incrementAndGet();
+            sweets.clear();
+            retireCatalog();
+            bytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long bytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Called with the lock held. */
+    private void retireCatalog() {
+        catalogVersion++;
+        for (int i = 0; i < catalogs.length; i++) {
+            release(catalogs[i]);
+            catalogs[i] = null;
+        }
+    }
+
+    /** Called with the lock held. */
+    private void store(Entry entry, int variant, byte[] body, byte[] gzipped) {
+        long size = body.length + (gzipped != null ? gzipped.length : 0);
+        if (entry.bodies[variant] != null) {
+            return;
+        }
+        Iterator<Map.Entry<Long, Entry>> eldest = sweets.entrySet().iterator();
+        while (bytes + size > maxBytes && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            if (evicted != entry) {
+                eldest.remove();
+                release(evicted);
+            }
+        }
+        if (bytes + size > maxBytes) {
+            return;
+        }
+        entry.bodies[variant] = body;
+        entry.bodies[variant + 1] = gzipped;
+        entry.size += size;
+        bytes += size;
+    }
+
+    private void release(Entry entry) {
+        if (entry != null) {
+            bytes -= entry.size;
+            entry.size = 0;
+        }
+    }
+
+    private CachedBody choose(Format format, byte[] body, byte[] gzipped, boolean acceptsGzip) {
+        return acceptsGzip && gzipped != null
+            ? new CachedBody(gzipped, format.mediaType(), true)
+            : new CachedBody(body, format.mediaType(), false);
+    }
+
+    private byte[] serialize(Format format, ApiResponse response) {
+        try {
+            return mappers[format.ordinal()].writeValueAsBytes(response);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] gzipVariant(Format format, byte[] body) {
+        if (!compression || format != Format.JSON || body.length < minCompressedSize) {
+            return null;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed, 8192)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+}
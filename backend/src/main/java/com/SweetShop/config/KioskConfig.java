@@ -0,0 +1,44 @@
+package com.sweetshop.config;
+
+import com.sweetshop.kiosk.KioskStore;
+import com.sweetshop.kiosk.KioskSweetRepository;
+import com.sweetshop.kiosk.KioskUserRepository;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Offline kiosk mode ({@code --spring.profiles.active=kiosk}): sweets and users come from
+ * the embedded {@link KioskStore} instead of the database. The remaining tables (sales,
+ * rollups, tombstones) live in an embedded H2 file next to it.
+ */
+@Configuration
+@Profile("kiosk")
+public class KioskConfig {
+
+    @Bean(destroyMethod = "close")
+    public KioskStore kioskStore(@Value("${sweetshop.kiosk.dir}") String dir,
+                                 @Value("${sweetshop.kiosk.fsync-interval-ms:2}") long fsyncIntervalMillis,
+                                 @Value("${sweetshop.kiosk.compact-threshold-mb:64}") long compactThresholdMb) throws IOException {
+        return new KioskStore(Path.of(dir), fsyncIntervalMillis, compactThresholdMb * 1024 * 1024);
+    }
+
+    @Bean
+    @Primary
+    public SweetRepository kioskSweetRepository() {
+        return new KioskSweetRepository();
+    }
+
+    @Bean
+    @Primary
+    public UserRepository kioskUserRepository() {
+        return new KioskUserRepository();
+    }
+}
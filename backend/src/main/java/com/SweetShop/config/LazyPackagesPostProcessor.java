@@ -0,0 +1,63 @@
+package com.sweetshop.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Makes beans from the packages in {@code sweetshop.startup.lazy-packages} lazy, so tooling
+ * nobody calls on a normal request (springdoc by default) is built on first use instead of
+ * at startup. Covers {@code @Bean} methods of configuration classes in those packages too.
+ * Beans that set laziness explicitly and {@link SmartInitializingSingleton}s are left alone,
+ * as Spring Boot's global lazy initialization does.
+ */
+@Component
+public class LazyPackagesPostProcessor implements BeanFactoryPostProcessor, EnvironmentAware {
+
+    private String[] packages = new String[0];
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        packages = environment.getProperty("sweetshop.startup.lazy-packages", String[].class, new String[0]);
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+        if (packages.length == 0) {
+            return;
+        }
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            boolean explicit = definition instanceof AbstractBeanDefinition bean && bean.getLazyInit() != null;
+            if (explicit || !inPackages(beanFactory, definition)) {
+                continue;
+            }
+            Class<?> type = beanFactory.getType(name, false);
+            if (type == null || !SmartInitializingSingleton.class.isAssignableFrom(type)) {
+                definition.setLazyInit(true);
+            }
+        }
+    }
+
+    private boolean inPackages(ConfigurableListableBeanFactory beanFactory, BeanDefinition definition) {
+        String className = definition.getBeanClassName();
+        String factoryBean = definition.getFactoryBeanName();
+        if (className == null && factoryBean != null && beanFactory.containsBeanDefinition(factoryBean)) {
+            className = beanFactory.getBeanDefinition(factoryBean).getBeanClassName();
+        }
+        if (className == null) {
+            return false;
+        }
+        for (String prefix : packages) {
+            if (className.startsWith(prefix + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,60 @@
+package com.sweetshop.config;
+
+import com.sweetshop.jdbc.ReplicaProperties;
+import com.sweetshop.jdbc.ReplicaRouting;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single auto-configured pool with a primary pool ({@code spring.datasource.*})
+ * and one pool per {@code sweetshop.datasource.replicas[n]} entry, all using the
+ * {@code spring.datasource.hikari.*} settings. Without replicas configured nothing changes.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sweetshop.datasource.replicas[0].url")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaRoutingConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ReplicaRouting replicaRouting(DataSourceProperties primary, ReplicaProperties properties,
+                                         Environment environment, MeterRegistry registry) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primaryPool = hikari(binder, primary.initializeDataSourceBuilder());
+        List<HikariDataSource> replicaPools = new ArrayList<>();
+        for (ReplicaProperties.Replica replica : properties.getReplicas()) {
+            replicaPools.add(hikari(binder, DataSourceBuilder.create()
+                .driverClassName(primary.determineDriverClassName())
+                .url(replica.getUrl())
+                .username(replica.getUsername() != null ? replica.getUsername() : primary.determineUsername())
+                .password(replica.getPassword() != null ? replica.getPassword() : primary.determinePassword())));
+        }
+        return new ReplicaRouting(primaryPool, replicaPools, properties, registry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRouting replicaRouting) {
+        return new LazyConnectionDataSourceProxy(replicaRouting.router());
+    }
+
+    private static HikariDataSource hikari(Binder binder, DataSourceBuilder<?> builder) {
+        HikariDataSource pool = builder.type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        return pool;
+    }
+}
@@ -0,0 +1,42 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.stock.LowStockMonitor;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/admin/alerts")
+@CrossOrigin(origins = "*")
+@Tag(name = "Alerts", description = "Stock alerts for shop managers")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+public class AlertController {
+
+    @Autowired
+    private LowStockMonitor lowStockMonitor;
+
+    @GetMapping("/low-stock")
+    @Operation(summary = "Low-stock alerts", description = "Alerts raised after an alert id, plus the sweets currently below their reorder level (Admin only)")
+    public ResponseEntity<?> getLowStockAlerts(
+            @Parameter(description = "Last alert id already seen") @RequestParam(defaultValue = "0") long since) {
+        try {
+            if (since < 0) {
+                throw new IllegalArgumentException("since must not be negative");
+            }
+            return ResponseEntity.ok(new ApiResponse(true, "Alerts retrieved successfully", lowStockMonitor.alertsSince(since)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.analytics.SalesAnalytics;
+import com.sweetshop.dto.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/admin/analytics")
+@CrossOrigin(origins = "*")
+@Tag(name = "Sales Analytics", description = "Pre-aggregated sales rollups")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+public class AnalyticsController {
+
+    private static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private SalesAnalytics salesAnalytics;
+
+    @GetMapping("/top-sellers")
+    @Operation(summary = "Best sellers", description = "Sweets with the most units sold in the current hour, today or the last 7 days (UTC)")
+    public ResponseEntity<?> getTopSellers(
+            @Parameter(description = "HOUR, DAY or WEEK") @RequestParam(defaultValue = "DAY") String period,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            if (!period.matches("(?i)HOUR|DAY|WEEK")) {
+                throw new RuntimeException("Period must be HOUR, DAY or WEEK");
+            }
+            return ResponseEntity.ok(new ApiResponse(true, "Top sellers retrieved successfully",
+                salesAnalytics.topSellers(period, Math.max(1, Math.min(limit, MAX_LIMIT)))));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @GetMapping("/revenue-by-category")
+    @Operation(summary = "Hourly revenue by category", description = "Revenue per category for each hour of a UTC date within the last 8 days")
+    public ResponseEntity<?> getRevenueByCategory(
+            @Parameter(description = "Date (yyyy-MM-dd), defaults to today")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            LocalDate day = date != null ? date : LocalDate.now(ZoneOffset.UTC);
+            return ResponseEntity.ok(new ApiResponse(true, "Revenue retrieved successfully",
+                salesAnalytics.revenueByCategoryPerHour(day)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @GetMapping("/sweets/{sweetId}/units")
+    @Operation(summary = "Daily units of a sweet", description = "Units sold per UTC day over the last N days (at most 400)")
+    public ResponseEntity<?> getUnitsPerDay(@PathVariable Long sweetId, @RequestParam(defaultValue = "30") int days) {
+        try {
+            return ResponseEntity.ok(new ApiResponse(true, "Units retrieved successfully",
+                salesAnalytics.unitsPerDay(sweetId, Math.max(1, days))));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @PostMapping("/rebuild")
+    @Operation(summary = "Rebuild rollups", description = "Recompute all rollups from the sales ledger")
+    public ResponseEntity<?> rebuild() {
+        try {
+            return ResponseEntity.ok(new ApiResponse(true, "Analytics rebuilt successfully", salesAnalytics.rebuild()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+}
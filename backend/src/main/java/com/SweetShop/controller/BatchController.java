@@ -0,0 +1,245 @@
+package com.sweetshop.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.dto.BatchOperation;
+import com.sweetshop.dto.BatchRequest;
+import com.sweetshop.dto.BatchResult;
+import com.sweetshop.dto.PurchaseRequest;
+import com.sweetshop.dto.SweetRequest;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Runs several {@link SweetController} calls in one round trip. The batch is authenticated
+ * once; each operation still goes through the controller's own method security.
+ *
+ * Writes run in order on the request thread. Reads run on a small shared pool, in
+ * parallel with the reads next to them, but never before an earlier write has finished,
+ * so a read always sees the writes listed before it. Operations are independent: a
+ * failed one doesn't stop or roll back the others.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/batch")
+@CrossOrigin(origins = "*")
+@Tag(name = "Batch", description = "Several sweet operations in one request")
+@SecurityRequirement(name = "bearerAuth")
+public class BatchController {
+
+    private static final Pattern SWEET = Pattern.compile("/api/sweets/(\\d+)");
+    private static final Pattern SWEET_ACTION = Pattern.compile("/api/sweets/(\\d+)/(purchase|restock)");
+
+    @Autowired
+    private SweetController sweetController;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${sweetshop.batch.max-operations:50}")
+    private int maxOperations;
+
+    @Value("${sweetshop.batch.read-threads:4}")
+    private int readThreads;
+
+    private ExecutorService readers;
+
+    @PostConstruct
+    void init() {
+        // each read runs with the security context of the batch that submitted it
+        readers = new DelegatingSecurityContextExecutorService(Executors.newFixedThreadPool(readThreads,
+            Thread.ofPlatform().name("batch-read-", 0).daemon().factory()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        readers.shutdownNow();
+    }
+
+    @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Run a batch", description = "Up to sweetshop.batch.max-operations /api/sweets calls; reads run in parallel, writes in order, results in request order")
+    public ResponseEntity<?> runBatch(@Valid @RequestBody BatchRequest request) {
+        try {
+            if (request.getOperations().size() > maxOperations) {
+                throw new RuntimeException("A batch can hold at most " + maxOperations + " operations");
+            }
+            return ResponseEntity.ok(new ApiResponse(true, "Batch completed", execute(request.getOperations())));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    private List<BatchResult> execute(List<BatchOperation> operations) throws InterruptedException, ExecutionException {
+        List<Future<BatchResult>> pending = new ArrayList<>(operations.size());
+        for (BatchOperation operation : operations) {
+            if ("GET".equalsIgnoreCase(operation.getMethod())) {
+                pending.add(readers.submit(() -> run(operation)));
+                continue;
+            }
+            for (Future<BatchResult> earlier : pending) {
+                earlier.get();
+            }
+            pending.add(CompletableFuture.completedFuture(run(operation)));
+        }
+        List<BatchResult> results = new ArrayList<>(pending.size());
+        for (Future<BatchResult> result : pending) {
+            results.add(result.get());
+        }
+        return results;
+    }
+
+    private BatchResult run(BatchOperation operation) {
+        try {
+            ResponseEntity<?> response = dispatch(operation);
+            // serialized right away: a later write in the batch may change the same managed entity
+            String json = response.getBody() instanceof byte[] bytes
+                ? new String(bytes, StandardCharsets.UTF_8)
+                : objectMapper.writeValueAsString(response.getBody());
+            return new BatchResult(operation.getId(), response.getStatusCode().value(), new RawValue(json));
+        } catch (InvalidBody e) {
+            return new BatchResult(operation.getId(), HttpStatus.BAD_REQUEST.value(),
+                new ApiResponse(false, "Validation failed", e.errors));
+        } catch (AccessDeniedException e) {
+            return new BatchResult(operation.getId(), HttpStatus.FORBIDDEN.value(),
+                new ApiResponse(false, "Access denied. You don't have permission to perform this action"));
+        } catch (UnknownOperation e) {
+            return new BatchResult(operation.getId(), HttpStatus.NOT_FOUND.value(), new ApiResponse(false, e.getMessage()));
+        } catch (Exception e) {
+            return new BatchResult(operation.getId(), HttpStatus.BAD_REQUEST.value(), new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> dispatch(BatchOperation operation) {
+        String method = operation.getMethod().toUpperCase(Locale.ROOT);
+        UriComponents uri = UriComponentsBuilder.fromUriString(operation.getPath()).build();
+        String path = uri.getPath() == null ? "" : uri.getPath();
+        MultiValueMap<String, String> query = uri.getQueryParams();
+        Matcher sweet = SWEET.matcher(path);
+        Matcher action = SWEET_ACTION.matcher(path);
+
+        switch (method) {
+            case "GET" -> {
+                if (path.equals("/api/sweets")) {
+                    return sweetController.getAllSweets(param(query, "fields"), null, null);
+                }
+                if (path.equals("/api/sweets/search")) {
+                    return sweetController.searchSweets(param(query, "name"), param(query, "category"),
+                        decimal(query, "minPrice"), decimal(query, "maxPrice"), param(query, "fields"));
+                }
+                if (path.equals("/api/sweets/changes")) {
+                    String since = param(query, "since");
+                    String limit = param(query, "limit");
+                    return sweetController.getChanges(since == null ? 0 : Long.parseLong(since),
+                        limit == null ? 500 : Integer.parseInt(limit));
+                }
+                if (sweet.matches()) {
+                    return sweetController.getSweetById(Long.valueOf(sweet.group(1)), null, null);
+                }
+            }
+            case "POST" -> {
+                if (path.equals("/api/sweets")) {
+                    return sweetController.createSweet(body(operation, SweetRequest.class));
+                }
+                if (action.matches()) {
+                    Long id = Long.valueOf(action.group(1));
+                    PurchaseRequest request = body(operation, PurchaseRequest.class);
+                    return "purchase".equals(action.group(2))
+                        ? sweetController.purchaseSweet(id, request)
+                        : sweetController.restockSweet(id, request);
+                }
+            }
+            case "PUT" -> {
+                if (sweet.matches()) {
+                    return sweetController.updateSweet(Long.valueOf(sweet.group(1)), body(operation, SweetRequest.class));
+                }
+            }
+            case "DELETE" -> {
+                if (sweet.matches()) {
+                    return sweetController.deleteSweet(Long.valueOf(sweet.group(1)));
+                }
+            }
+            default -> {
+            }
+        }
+        throw new UnknownOperation("No batch operation for " + method + " " + path);
+    }
+
+    private <T> T body(BatchOperation operation, Class<T> type) {
+        if (operation.getBody() == null || operation.getBody().isNull()) {
+            throw new RuntimeException("Request body is required");
+        }
+        T body = objectMapper.convertValue(operation.getBody(), type);
+        Set<ConstraintViolation<T>> violations = validator.validate(body);
+        if (!violations.isEmpty()) {
+            Map<String, String> errors = new LinkedHashMap<>();
+            violations.forEach(violation -> errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+            throw new InvalidBody(errors);
+        }
+        return body;
+    }
+
+    private static String param(MultiValueMap<String, String> query, String name) {
+        String value = query.getFirst(name);
+        return value == null ? null : UriUtils.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static BigDecimal decimal(MultiValueMap<String, String> query, String name) {
+        String value = param(query, name);
+        return value == null ? null : new BigDecimal(value);
+    }
+
+    private static final class InvalidBody extends RuntimeException {
+        private final Map<String, String> errors;
+
+        InvalidBody(Map<String, String> errors) {
+            super("Validation failed");
+            this.errors = errors;
+        }
+    }
+
+    private static final class UnknownOperation extends RuntimeException {
+        UnknownOperation(String message) {
+            super(message);
+        }
+    }
+}
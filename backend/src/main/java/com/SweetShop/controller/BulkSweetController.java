@@ -0,0 +1,50 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.dto.BulkSweetRequest;
+import com.sweetshop.service.SweetBulkService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/admin/sweets")
+@CrossOrigin(origins = "*")
+@Tag(name = "Bulk Sweets", description = "Price, stock and delete operations on many sweets at once")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+public class BulkSweetController {
+
+    @Autowired
+    private SweetBulkService sweetBulkService;
+
+    @PostMapping("/bulk-update")
+    @Operation(summary = "Bulk update", description = "Change price (pricePercent or priceDelta) or stock (setQuantity or addQuantity) of the sweets selected by ids or by category, name and price range (Admin only)")
+    public ResponseEntity<?> bulkUpdate(@Valid @RequestBody BulkSweetRequest request) {
+        try {
+            return ResponseEntity.ok(new ApiResponse(true, "Sweets updated successfully", sweetBulkService.update(request)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @PostMapping("/bulk-delete")
+    @Operation(summary = "Bulk delete", description = "Delete the sweets selected by ids or by category, name and price range (Admin only)")
+    public ResponseEntity<?> bulkDelete(@Valid @RequestBody BulkSweetRequest request) {
+        try {
+            return ResponseEntity.ok(new ApiResponse(true, "Sweets deleted successfully", sweetBulkService.delete(request)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.datagen.SyntheticDataGenerator;
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.dto.DataGenerationRequest;
+import com.sweetshop.dto.DataGenerationResult;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "sweetshop.datagen.endpoint-enabled", havingValue = "true")
+@RequestMapping("/api/admin/datagen")
+@Tag(name = "Data Generator", description = "Synthetic catalog and user data for scaling tests")
+@SecurityRequirement(name = "bearerAuth")
+public class DataGeneratorController {
+
+    @Autowired
+    private SyntheticDataGenerator generator;
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Generate data", description = "Append seeded synthetic sweets, users and roles (Admin only)")
+    public ResponseEntity<?> generate(@Valid @RequestBody DataGenerationRequest request) {
+        try {
+            DataGenerationResult result = generator.generate(request);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .body(new ApiResponse(true, "Data generated successfully", result));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.dto.OrderStatus;
+import com.sweetshop.order.PurchaseOrder;
+import com.sweetshop.order.PurchaseShards;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "sweetshop.purchase.mode", havingValue = "async")
+@RequestMapping("/api/orders")
+@CrossOrigin(origins = "*")
+@Tag(name = "Orders", description = "Status of purchases queued in async purchase mode")
+@SecurityRequirement(name = "bearerAuth")
+public class OrderController {
+
+    private static final long MAX_WAIT_MS = 30_000;
+
+    @Autowired
+    private PurchaseShards purchaseShards;
+
+    @GetMapping("/{orderId}")
+    @Operation(summary = "Order status", description = "PENDING, COMPLETED or REJECTED. With waitMs the request is held until the order is decided or the wait runs out")
+    public Object getOrder(
+            @Parameter(description = "Order ID") @PathVariable String orderId,
+            @Parameter(description = "Wait up to this long (at most 30000 ms) for a pending order")
+            @RequestParam(defaultValue = "0") long waitMs,
+            Authentication authentication) {
+        PurchaseOrder order = purchaseShards.find(orderId);
+        boolean admin = authentication.getAuthorities().stream().anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+        if (order == null || !(admin || order.getUsername().equals(authentication.getName()))) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ApiResponse(false, "Order not found with id: " + orderId));
+        }
+        // only a wait on a pending order goes async
+        if (waitMs <= 0 || order.getStatus() != PurchaseOrder.Status.PENDING) {
+            return status(order);
+        }
+
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(Math.min(waitMs, MAX_WAIT_MS));
+        result.onTimeout(() -> result.setResult(status(order)));
+        order.done().thenAccept(decided -> result.setResult(status(decided)));
+        return result;
+    }
+
+    private static ResponseEntity<?> status(PurchaseOrder order) {
+        return ResponseEntity.ok(new ApiResponse(true, "Order retrieved successfully", OrderStatus.of(order)));
+    }
+}
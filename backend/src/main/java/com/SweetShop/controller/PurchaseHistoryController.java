@@ -0,0 +1,58 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.sales.PurchaseHistory;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/users")
+@CrossOrigin(origins = "*")
+@Tag(name = "Purchase History", description = "Purchases of a user, newest first")
+@SecurityRequirement(name = "bearerAuth")
+public class PurchaseHistoryController {
+
+    private static final int MAX_LIMIT = 200;
+
+    @Autowired
+    private PurchaseHistory purchaseHistory;
+
+    @GetMapping("/me/purchases")
+    @Operation(summary = "My purchases", description = "Own purchases, newest first; pass 'next' back as cursor for older ones")
+    public ResponseEntity<?> getMyPurchases(
+            Authentication authentication,
+            @Parameter(description = "'next' of the previous page") @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return history(authentication.getName(), cursor, limit);
+    }
+
+    @GetMapping("/{username}/purchases")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Purchases of a user (Admin only)", description = "A user's purchases, newest first; pass 'next' back as cursor for older ones")
+    public ResponseEntity<?> getUserPurchases(
+            @PathVariable String username,
+            @Parameter(description = "'next' of the previous page") @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return history(username, cursor, limit);
+    }
+
+    private ResponseEntity<?> history(String username, String cursor, int limit) {
+        try {
+            return ResponseEntity.ok(new ApiResponse(true, "Purchases retrieved successfully",
+                purchaseHistory.page(username, cursor, Math.max(1, Math.min(limit, MAX_LIMIT)))));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.dto.SalesPage;
+import com.sweetshop.model.Sale;
+import com.sweetshop.repository.SaleRepository;
+import com.sweetshop.sales.SalesCursor;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/sales")
+@CrossOrigin(origins = "*")
+@Tag(name = "Sales Ledger", description = "Read completed purchases by time range")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+public class SaleController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @GetMapping
+    @Operation(summary = "Sales in a time range", description = "Sales with from <= soldAt < to, oldest first, paged by cursor (Admin only)")
+    public ResponseEntity<?> getSales(
+            @Parameter(description = "Start, inclusive (ISO-8601)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "End, exclusive (ISO-8601)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @Parameter(description = "The next value of the previous page") @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        try {
+            int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            PageRequest fetch = PageRequest.of(0, limit + 1);
+            List<Sale> sales;
+            if (cursor == null || cursor.isBlank()) {
+                sales = saleRepository.findRange(from, to, fetch);
+            } else {
+                SalesCursor after = SalesCursor.decode(cursor);
+                sales = saleRepository.findRangeAfter(from, to, after.soldAt(), after.id(), fetch);
+            }
+            return ResponseEntity.ok(new ApiResponse(true, "Sales retrieved successfully", page(sales, limit)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @GetMapping("/sweet/{sweetId}")
+    @Operation(summary = "Sales of one sweet in a time range", description = "Sales of a sweet with from <= soldAt < to, oldest first, paged by cursor (Admin only)")
+    public ResponseEntity<?> getSalesBySweet(
+            @PathVariable Long sweetId,
+            @Parameter(description = "Start, inclusive (ISO-8601)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "End, exclusive (ISO-8601)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @Parameter(description = "The next value of the previous page") @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+        try {
+            int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            PageRequest fetch = PageRequest.of(0, limit + 1);
+            List<Sale> sales;
+            if (cursor == null || cursor.isBlank()) {
+                sales = saleRepository.findSweetRange(sweetId, from, to, fetch);
+            } else {
+                SalesCursor after = SalesCursor.decode(cursor);
+                sales = saleRepository.findSweetRangeAfter(sweetId, from, to, after.soldAt(), after.id(), fetch);
+            }
+            return ResponseEntity.ok(new ApiResponse(true, "Sales retrieved successfully", page(sales, limit)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    private static SalesPage page(List<Sale> rows, int limit) {
+        if (rows.size() <= limit) {
+            return new SalesPage(rows, null);
+        }
+        List<Sale> page = rows.subList(0, limit);
+        Sale last = page.get(limit - 1);
+        return new SalesPage(page, new SalesCursor(last.getSoldAt(), last.getId()).encode());
+    }
+}
@@ -1,34 +1,74 @@
 package com.sweetshop.controller;
 
+import com.sweetshop.cache.CatalogResponseCache;
+import com.sweetshop.config.ResponseFormatConfig;
 import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.dto.OrderStatus;
 import com.sweetshop.dto.PurchaseRequest;
 import com.sweetshop.dto.SweetRequest;
 import com.sweetshop.model.Sweet;
+import com.sweetshop.order.PurchaseOrder;
+import com.sweetshop.order.PurchaseShards;
 import com.sweetshop.service.SweetService;
+import com.sweetshop.stream.StockBroadcaster;
+import com.sweetshop.timeseries.SweetTimeSeries;
+import com.sweetshop.web.JsonCompressionFilter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/sweets")
 @CrossOrigin(origins = "*")
 @Tag(name = "Sweets Management", description = "CRUD operations for sweets inventory")
 @SecurityRequirement(name = "bearerAuth")
 public class SweetController {
 
+    private static final int MAX_CHANGES = 5000;
+
+    // read endpoints answer in JSON (default), CBOR or Smile depending on Accept
+    private static final String JSON = MediaType.APPLICATION_JSON_VALUE;
+    private static final String CBOR = MediaType.APPLICATION_CBOR_VALUE;
+    private static final String SMILE = ResponseFormatConfig.APPLICATION_SMILE_VALUE;
+
     @Autowired
     private SweetService sweetService;
 
+    @Autowired
+    private StockBroadcaster stockBroadcaster;
+
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    @Autowired
+    private SweetTimeSeries sweetTimeSeries;
+
+    // present only with sweetshop.purchase.mode=async
+    @Autowired
+    private ObjectProvider<PurchaseShards> purchaseShards;
+
     @PostMapping
     @Operation(summary = "Create new sweet", description = "Add a new sweet to the inventory")
     public ResponseEntity<?> createSweet(@Valid @RequestBody SweetRequest request) {
@@ -42,41 +82,108 @@ public class SweetController {
         }
     }
 
-    @GetMapping
+    @GetMapping(produces = {JSON, CBOR, SMILE})
     @Operation(summary = "Get all sweets", description = "Retrieve list of all available sweets")
-    public ResponseEntity<?> getAllSweets() {
+    public ResponseEntity<?> getAllSweets(
+            @Parameter(description = "Comma-separated fields to return, e.g. id,name,price,quantity") @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            List<Sweet> sweets = sweetService.getAllSweets();
-            return ResponseEntity.ok(new ApiResponse(true, "Sweets retrieved successfully", sweets));
+            List<String> selected = SweetService.parseFields(fields);
+            if (selected != null) {
+                return ResponseEntity.ok(new ApiResponse(true, "Sweets retrieved successfully",
+                    sweetService.searchSweetFields(selected, null, null, null, null)));
+            }
+            Optional<CatalogResponseCache.CachedBody> cached = catalogResponseCache.catalog(
+                CatalogResponseCache.Format.negotiate(accept), JsonCompressionFilter.acceptsGzip(acceptEncoding));
+            if (cached.isEmpty()) {
+                // too large to cache: serialized straight into the (compressing) response stream
+                return ResponseEntity.ok(new ApiResponse(true, "Sweets retrieved successfully", sweetService.getAllSweets()));
+            }
+            return cached(cached.get());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ApiResponse(false, e.getMessage()));
         }
     }
 
-    @GetMapping("/{id}")
+    @GetMapping(value = "/{id}", produces = {JSON, CBOR, SMILE})
     @Operation(summary = "Get sweet by ID", description = "Retrieve a specific sweet by its ID")
     public ResponseEntity<?> getSweetById(
-        @Parameter(description = "Sweet ID") @PathVariable Long id) {
+        @Parameter(description = "Sweet ID") @PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            Sweet sweet = sweetService.getSweetById(id);
-            return ResponseEntity.ok(new ApiResponse(true, "Sweet retrieved successfully", sweet));
+            return cached(catalogResponseCache.sweet(id,
+                    CatalogResponseCache.Format.negotiate(accept), JsonCompressionFilter.acceptsGzip(acceptEncoding))
+                .orElseThrow(() -> new RuntimeException("Sweet not found with id: " + id)));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(new ApiResponse(false, e.getMessage()));
         }
     }
 
-    @GetMapping("/search")
+    @GetMapping(value = "/changes", produces = {JSON, CBOR, SMILE})
+    @Operation(summary = "Catalog changes", description = "Sweets created, updated or deleted after a change sequence; start with since=0 and pass back 'next'")
+    public ResponseEntity<?> getChanges(
+            @Parameter(description = "Last change sequence already applied") @RequestParam(defaultValue = "0") long since,
+            @Parameter(description = "Maximum changes to return") @RequestParam(defaultValue = "500") int limit) {
+        try {
+            return ResponseEntity.ok(new ApiResponse(true, "Changes retrieved successfully",
+                sweetService.getChangesSince(since, Math.max(1, Math.min(limit, MAX_CHANGES)))));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream stock updates", description = "Server-Sent Events with quantity and price changes; send Last-Event-ID to resume")
+    public SseEmitter streamStockUpdates(
+        @Parameter(description = "Id of the last event received") @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return stockBroadcaster.subscribe(lastEventId);
+    }
+
+    @GetMapping(value = "/{id}/history", produces = {JSON, CBOR, SMILE})
+    @Operation(summary = "Stock and price history", description = "Min, max and last quantity and price per step for from <= t < to; defaults to the last 24 hours in 1h steps")
+    public ResponseEntity<?> getHistory(
+            @Parameter(description = "Sweet ID") @PathVariable Long id,
+            @Parameter(description = "Start, inclusive (ISO-8601)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @Parameter(description = "End, exclusive (ISO-8601)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @Parameter(description = "Step, e.g. 5m, 1h, 1d or PT15M") @RequestParam(defaultValue = "1h") String step) {
+        try {
+            Instant end = to != null ? to : Instant.now();
+            Instant start = from != null ? from : end.minus(Duration.ofDays(1));
+            return ResponseEntity.ok(new ApiResponse(true, "History retrieved successfully",
+                sweetTimeSeries.history(id, start, end, DurationStyle.detectAndParse(step))));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage()));
+        }
+    }
+
+    @GetMapping(value = "/search", produces = {JSON, CBOR, SMILE})
     @Operation(summary = "Search sweets", description = "Search sweets by name, category, or price range")
     public ResponseEntity<?> searchSweets(
             @Parameter(description = "Sweet name (partial match)") @RequestParam(required = false) String name,
             @Parameter(description = "Sweet category") @RequestParam(required = false) String category,
             @Parameter(description = "Minimum price") @RequestParam(required = false) BigDecimal minPrice,
-            @Parameter(description = "Maximum price") @RequestParam(required = false) BigDecimal maxPrice) {
+            @Parameter(description = "Maximum price") @RequestParam(required = false) BigDecimal maxPrice,
+            @Parameter(description = "Comma-separated fields to return, e.g. id,name,price,quantity") @RequestParam(required = false) String fields) {
         try {
+            List<String> selected = SweetService.parseFields(fields);
+            if (selected != null) {
+                return ResponseEntity.ok(new ApiResponse(true, "Search completed successfully",
+                    sweetService.searchSweetFields(selected, name, category, minPrice, maxPrice)));
+            }
             List<Sweet> sweets = sweetService.searchSweets(name, category, minPrice, maxPrice);
             return ResponseEntity.ok(new ApiResponse(true, "Search completed successfully", sweets));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new ApiResponse(false, e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(new ApiResponse(false, e.getMessage()));
@@ -112,11 +219,18 @@ public class SweetController {
     }
 
     @PostMapping("/{id}/purchase")
-    @Operation(summary = "Purchase sweet", description = "Buy a sweet and decrease its quantity")
+    @Operation(summary = "Purchase sweet", description = "Buy a sweet and decrease its quantity. In async purchase mode the order is queued and answered with 202 and its /api/orders URL")
     public ResponseEntity<?> purchaseSweet(
         @Parameter(description = "Sweet ID") @PathVariable Long id, 
         @Valid @RequestBody PurchaseRequest request) {
         try {
+            PurchaseShards shards = purchaseShards.getIfAvailable();
+            if (shards != null) {
+                PurchaseOrder order = shards.submit(id, request.getQuantity());
+                return ResponseEntity.accepted()
+                    .location(URI.create("/api/orders/" + order.getId()))
+                    .body(new ApiResponse(true, "Purchase queued", OrderStatus.of(order)));
+            }
             Sweet sweet = sweetService.purchaseSweet(id, request);
             return ResponseEntity.ok(new ApiResponse(true, "Purchase completed successfully", sweet));
         } catch (Exception e) {
@@ -139,4 +253,15 @@ public class SweetController {
                 .body(new ApiResponse(false, e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    /** Writes a pre-serialized body as is. */
+    private static ResponseEntity<byte[]> cached(CatalogResponseCache.CachedBody body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(body.contentType())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (body.gzip()) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body.bytes());
+    }
+}
@@ -0,0 +1,48 @@
+package com.sweetshop.datagen;
+
+import com.sweetshop.dto.DataGenerationRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command-line entry point for {@link SyntheticDataGenerator}:
+ *
+ * java -jar sweet-shop-api.jar --spring.main.web-application-type=none
+ *     --sweetshop.datagen.enabled=true --sweetshop.datagen.sweets=10000000 --sweetshop.datagen.users=1000000
+ */
+@Component
+@ConditionalOnProperty(name = "sweetshop.datagen.enabled", havingValue = "true")
+public class DataGeneratorRunner implements ApplicationRunner {
+
+    @Autowired
+    private SyntheticDataGenerator generator;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Value("${sweetshop.datagen.sweets:0}")
+    private long sweets;
+
+    @Value("${sweetshop.datagen.users:0}")
+    private long users;
+
+    @Value("${sweetshop.datagen.seed:42}")
+    private long seed;
+
+    @Value("${sweetshop.datagen.exit:true}")
+    private boolean exit;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        generator.generate(new DataGenerationRequest(sweets, users, seed));
+        if (exit) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.sweetshop.datagen;
+
+import com.sweetshop.dto.DataGenerationRequest;
+import com.sweetshop.dto.DataGenerationResult;
+import com.sweetshop.stream.SweetsBulkChangedEvent;
+import com.sweetshop.sync.ChangeSequence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Fills {@code sweets}, {@code users} and {@code user_roles} with synthetic rows via
+ * batched JDBC inserts, bypassing JPA.
+ *
+ * Output depends only on the seed and the existing max ids: rows are produced in fixed
+ * chunks, and every chunk draws from its own random stream derived from the seed and
+ * the chunk index. Chunks are written in parallel, one transaction per chunk. Ids are
+ * assigned explicitly and, even when a chunk fails, the identity sequences are moved past
+ * the highest id that committed. Sweets get a block of change sequence numbers that only
+ * becomes visible to the change feed once every chunk is done.
+ *
+ * Distributions: categories and name words are Zipfian (a few dominate, long tail of
+ * rare ones), a third of names get an invented rare word, prices are log-normal around
+ * a few dollars. There is no per-sweet popularity column, so no popularity is generated;
+ * load tests that want skewed traffic should pick sweet ids with a {@link ZipfSampler}.
+ * Users are named {@code sweetshop.datagen.username-prefix} plus their id, and generation
+ * refuses to start if one of those names or emails is already taken. All users share one
+ * BCrypt hash of {@code sweetshop.datagen.password}, since hashing a million passwords
+ * would take hours; roughly 1 in 1000 is an ADMIN.
+ */
+@Service
+public class SyntheticDataGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final String EMAIL_DOMAIN = "@example.com";
+
+    private static final String[] CATEGORIES = {
+        "Chocolates", "Candies", "Cakes", "Cookies", "Pastries", "Gummies", "Toffees", "Lollipops",
+        "Fudge", "Marshmallows", "Brittles", "Truffles", "Macarons", "Donuts", "Pies", "Tarts",
+        "Licorice", "Nougat", "Halva", "Baklava", "Mochi", "Meringues", "Pralines", "Caramels",
+        "Jelly Beans", "Cupcakes", "Brownies", "Biscotti", "Turkish Delight", "Churros"
+    };
+    private static final String[] ADJECTIVES = {
+        "Classic", "Dark", "Milk", "White", "Salted", "Spiced", "Sour", "Sweet", "Crunchy", "Chewy",
+        "Creamy", "Golden", "Roasted", "Double", "Mini", "Giant", "Frosted", "Glazed", "Honey", "Royal",
+        "Velvet", "Rustic", "Wild", "Smoky", "Fizzy", "Zesty", "Soft", "Crispy", "Toasted", "Artisan"
+    };
+    private static final String[] FLAVORS = {
+        "Chocolate", "Caramel", "Vanilla", "Strawberry", "Lemon", "Mint", "Hazelnut", "Almond", "Coconut",
+        "Cherry", "Raspberry", "Orange", "Peanut", "Pistachio", "Coffee", "Cinnamon", "Ginger", "Mango",
+        "Blueberry", "Banana", "Maple", "Toffee", "Butterscotch", "Lime", "Apple", "Peach", "Rose",
+        "Cardamom", "Saffron", "Matcha", "Lavender", "Licorice", "Walnut", "Pecan", "Fig", "Date",
+        "Sesame", "Yuzu", "Passionfruit", "Blackcurrant"
+    };
+    private static final String[] SYLLABLES = {
+        "ba", "ko", "ri", "ne", "mu", "ta", "lo", "vi", "sa", "de", "po", "zu", "ka", "mi", "fe", "ro"
+    };
+
+    private static final ZipfSampler CATEGORY = new ZipfSampler(CATEGORIES.length, 1.2);
+    private static final ZipfSampler ADJECTIVE = new ZipfSampler(ADJECTIVES.length, 1.0);
+    private static final ZipfSampler FLAVOR = new ZipfSampler(FLAVORS.length, 1.1);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectProvider<PasswordEncoder> passwordEncoder;
+
+    @Value("${sweetshop.datagen.password:password123}")
+    private String password;
+
+    @Value("${sweetshop.datagen.username-prefix:datagen-}")
+    private String usernamePrefix;
+
+    @Value("${sweetshop.datagen.writers:0}")
+    private int writers;
+
+    @Value("${sweetshop.datagen.chunk-size:50000}")
+    private int chunkSize;
+
+    public DataGenerationResult generate(DataGenerationRequest request) {
+        long started = System.currentTimeMillis();
+        long firstSweetId = nextId("sweets");
+        long firstUserId = nextId("users");
+        checkUsersFree(firstUserId, request.getUsers());
+        String passwordHash = passwordEncoder.getIfAvailable(BCryptPasswordEncoder::new).encode(password);
+        int threads = writers > 0 ? writers : Runtime.getRuntime().availableProcessors();
+        long firstSeq = changeSequence.reserve(request.getSweets());
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> chunks = new ArrayList<>();
+            submitChunks(executor, chunks, request.getSweets(),
+                chunk -> () -> writeSweets(firstSweetId, firstSeq, request.getSweets(), chunk, request.getSeed()));
+            submitChunks(executor, chunks, request.getUsers(),
+                chunk -> () -> writeUsers(firstUserId, request.getUsers(), chunk, ~request.getSeed(), passwordHash));
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Data generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Data generation failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+            awaitWriters(executor);
+            changeSequence.release(firstSeq);
+            // chunks commit independently, so move the sequences past whatever did commit
+            long sweetsWritten = restartIdentity("sweets") - firstSweetId;
+            restartIdentity("users");
+            if (sweetsWritten > 0) {
+                eventPublisher.publishEvent(new SweetsBulkChangedEvent(sweetsWritten, true, false));
+            }
+        }
+
+        long elapsed = System.currentTimeMillis() - started;
+        log.info("Generated {} sweets and {} users (seed {}) in {} ms with {} writers",
+            request.getSweets(), request.getUsers(), request.getSeed(), elapsed, threads);
+        return new DataGenerationResult(request.getSweets(), request.getUsers(), firstSweetId, firstUserId,
+            request.getSeed(), elapsed);
+    }
+
+    /** Fails before writing anything if a generated username or email is already registered. */
+    private void checkUsersFree(long firstId, long count) {
+        List<String> taken = new ArrayList<>(jdbcTemplate.queryForList(
+            "SELECT username FROM users WHERE username LIKE ? AND username <> CONCAT(?, id)",
+            String.class, usernamePrefix + "%", usernamePrefix));
+        taken.addAll(jdbcTemplate.queryForList(
+            "SELECT email FROM users WHERE email LIKE ? AND email <> CONCAT(?, id, ?)",
+            String.class, usernamePrefix + "%" + EMAIL_DOMAIN, usernamePrefix, EMAIL_DOMAIN));
+        for (String name : taken) {
+            String suffix = name.substring(usernamePrefix.length());
+            if (suffix.endsWith(EMAIL_DOMAIN)) {
+                suffix = suffix.substring(0, suffix.length() - EMAIL_DOMAIN.length());
+            }
+            if (suffix.matches("\\d{1,18}") && Long.parseLong(suffix) >= firstId && Long.parseLong(suffix) < firstId + count) {
+                throw new RuntimeException("Generated user " + name + " is already registered; "
+                    + "choose another sweetshop.datagen.username-prefix");
+            }
+        }
+    }
+
+    private void awaitWriters(ExecutorService executor) {
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Data generation writers still running; id sequences may need moving by hand");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submitChunks(ExecutorService executor, List<Future<?>> futures, long rows,
+                                     LongFunction<Runnable> chunkWriter) {
+        for (long chunk = 0; chunk * chunkSize < rows; chunk++) {
+            futures.add(executor.submit(chunkWriter.apply(chunk)));
+        }
+    }
+
+    private static SplittableRandom random(long seed, long chunk) {
+        return new SplittableRandom(seed + chunk * GOLDEN_GAMMA);
+    }
+
+    private void writeSweets(long firstId, long firstSeq, long total, long chunk, long seed) {
+        SplittableRandom random = random(seed, chunk);
+        long from = chunk * chunkSize;
+        long to = Math.min(total, from + chunkSize);
+        List<Object[]> rows = new ArrayList<>((int) (to - from));
+        for (long i = from; i < to; i++) {
+            String flavor = FLAVORS[FLAVOR.sample(random)];
+            String category = CATEGORIES[CATEGORY.sample(random)];
+            StringBuilder name = new StringBuilder()
+                .append(ADJECTIVES[ADJECTIVE.sample(random)]).append(' ')
+                .append(flavor).append(' ')
+                .append(category.endsWith("s") ? category.substring(0, category.length() - 1) : category);
+            if (random.nextInt(3) == 0) {
+                name.append(' ').append(rareWord(random));
+            }
+            BigDecimal price = BigDecimal.valueOf(Math.min(500, Math.max(0.25, Math.exp(1.5 + 0.6 * gaussian(random)))))
+                .setScale(2, RoundingMode.HALF_UP);
+            int quantity = random.nextInt(20) == 0 ? 0 : random.nextInt(1, 500);
+            String description = random.nextInt(5) < 3
+                ? "Handmade " + flavor.toLowerCase(Locale.ROOT) + " " + category.toLowerCase(Locale.ROOT)
+                : null;
+            rows.add(new Object[]{firstId + i, name.toString(), category, price, quantity, description, firstSeq + i});
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+            "INSERT INTO sweets (id, name, category, price, quantity, description, change_seq) VALUES (?, ?, ?, ?, ?, ?, ?)",
+            rows, BATCH_SIZE, (ps, row) -> {
+                for (int column = 0; column < row.length; column++) {
+                    ps.setObject(column + 1, row[column]);
+                }
+            }));
+    }
+
+    private void writeUsers(long firstId, long total, long chunk, long seed, String passwordHash) {
+        SplittableRandom random = random(seed, chunk);
+        long from = chunk * chunkSize;
+        long to = Math.min(total, from + chunkSize);
+        List<Object[]> users = new ArrayList<>((int) (to - from));
+        List<Object[]> roles = new ArrayList<>((int) (to - from));
+        for (long i = from; i < to; i++) {
+            long id = firstId + i;
+            String username = usernamePrefix + id;
+            users.add(new Object[]{id, username, username + EMAIL_DOMAIN, passwordHash});
+            roles.add(new Object[]{id, "USER"});
+            if (random.nextInt(1000) == 0) {
+                roles.add(new Object[]{id, "ADMIN"});
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("INSERT INTO users (id, username, email, password) VALUES (?, ?, ?, ?)",
+                users, BATCH_SIZE, (ps, row) -> {
+                    ps.setLong(1, (Long) row[0]);
+                    ps.setString(2, (String) row[1]);
+                    ps.setString(3, (String) row[2]);
+                    ps.setString(4, (String) row[3]);
+                });
+            jdbcTemplate.batchUpdate("INSERT INTO user_roles (user_id, role) VALUES (?, ?)",
+                roles, BATCH_SIZE, (ps, row) -> {
+                    ps.setLong(1, (Long) row[0]);
+                    ps.setString(2, (String) row[1]);
+                });
+        });
+    }
+
+    private static String rareWord(SplittableRandom random) {
+        StringBuilder word = new StringBuilder();
+        int syllables = random.nextInt(2, 5);
+        for (int i = 0; i < syllables; i++) {
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+        return word.toString();
+    }
+
+    /** Box-Muller; SplittableRandom has no nextGaussian. */
+    private static double gaussian(SplittableRandom random) {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private long nextId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max == null ? 1 : max + 1;
+    }
+
+    /** Moves the id sequence of {@code table} past its current max id and returns that next id. */
+    private long restartIdentity(String table) {
+        long next = nextId(table);
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+            connection.getMetaData().getDatabaseProductName());
+        switch (database) {
+            case "PostgreSQL" ->
+                jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence(?, 'id'), ?, false)",
+                    Long.class, table, next);
+            case "MySQL", "MariaDB" -> jdbcTemplate.execute("ALTER TABLE " + table + " AUTO_INCREMENT = " + next);
+            case "H2" -> jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+            default -> log.warn("Don't know how to move the {} id sequence on {}; set it to {} manually", table, database, next);
+        }
+        return next;
+    }
+}
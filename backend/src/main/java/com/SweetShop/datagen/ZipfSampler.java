@@ -0,0 +1,35 @@
+package com.sweetshop.datagen;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Samples ranks {@code 0..n-1} with probability proportional to {@code 1 / (rank + 1)^exponent},
+ * so a handful of values dominate and the rest form a long tail. The CDF is precomputed
+ * once; sampling is a binary search and the sampler is safe to share between threads.
+ */
+public final class ZipfSampler {
+
+    private final double[] cdf;
+
+    public ZipfSampler(int n, double exponent) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cdf[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            cdf[rank] /= sum;
+        }
+    }
+
+    public int sample(SplittableRandom random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+    }
+
+    public int size() {
+        return cdf.length;
+    }
+}
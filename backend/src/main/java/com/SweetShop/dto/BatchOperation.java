@@ -0,0 +1,28 @@
+package com.sweetshop.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One call to a {@code /api/sweets} endpoint, e.g.
+ * {@code {"id": "r1", "method": "POST", "path": "/api/sweets/4/restock", "body": {"quantity": 20}}}.
+ * The optional {@code id} is echoed back in the result.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOperation {
+
+    private String id;
+
+    @NotBlank(message = "Method is required")
+    private String method;
+
+    @NotBlank(message = "Path is required")
+    private String path;
+
+    private JsonNode body;
+}
@@ -0,0 +1,19 @@
+package com.sweetshop.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRequest {
+
+    @NotEmpty(message = "At least one operation is required")
+    @Valid
+    private List<BatchOperation> operations;
+}
@@ -0,0 +1,14 @@
+package com.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResult {
+    private String id;
+    private int status;
+    private Object body;
+}
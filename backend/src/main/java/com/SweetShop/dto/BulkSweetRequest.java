@@ -0,0 +1,33 @@
+package com.sweetshop.dto;
+
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Selects sweets by {@code ids} or by filters (all given filters must match), and for
+ * updates says what to change: exactly one of {@code pricePercent}, {@code priceDelta},
+ * {@code setQuantity} or {@code addQuantity}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkSweetRequest {
+
+    private List<Long> ids;
+    private String category;
+    private String name;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+
+    private BigDecimal pricePercent;
+    private BigDecimal priceDelta;
+
+    @Min(value = 0, message = "Quantity cannot be negative")
+    private Integer setQuantity;
+    private Integer addQuantity;
+}
@@ -0,0 +1,14 @@
+package com.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkSweetResult {
+    private long matched;
+    private long affected;
+    private long elapsedMillis;
+}
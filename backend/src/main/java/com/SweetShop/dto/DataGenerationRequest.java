@@ -0,0 +1,23 @@
+package com.sweetshop.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataGenerationRequest {
+
+    @Min(value = 0, message = "Sweets cannot be negative")
+    @Max(value = 100_000_000, message = "Sweets cannot exceed 100000000")
+    private long sweets;
+
+    @Min(value = 0, message = "Users cannot be negative")
+    @Max(value = 10_000_000, message = "Users cannot exceed 10000000")
+    private long users;
+
+    private long seed = 42;
+}
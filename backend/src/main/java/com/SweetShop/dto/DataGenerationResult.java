@@ -0,0 +1,17 @@
+package com.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataGenerationResult {
+    private long sweets;
+    private long users;
+    private long firstSweetId;
+    private long firstUserId;
+    private long seed;
+    private long elapsedMillis;
+}
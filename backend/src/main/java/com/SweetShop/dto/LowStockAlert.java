@@ -0,0 +1,21 @@
+package com.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockAlert {
+    public enum Type { LOW, RECOVERED }
+
+    private Long id;
+    private Long sweetId;
+    private Type type;
+    private Integer quantity;
+    private Integer reorderLevel;
+    private Instant at;
+}
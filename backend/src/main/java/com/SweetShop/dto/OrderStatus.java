@@ -0,0 +1,28 @@
+package com.sweetshop.dto;
+
+import com.sweetshop.order.PurchaseOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatus {
+    private String orderId;
+    private Long sweetId;
+    private Integer quantity;
+    private PurchaseOrder.Status status;
+    private String message;
+    private Integer remaining;
+    private Instant createdAt;
+
+    public static OrderStatus of(PurchaseOrder order) {
+        // status is read first: message and remaining are written before it
+        PurchaseOrder.Status status = order.getStatus();
+        return new OrderStatus(order.getId(), order.getSweetId(), order.getQuantity(), status,
+            order.getMessage(), order.getRemaining(), order.getCreatedAt());
+    }
+}
@@ -0,0 +1,19 @@
+package com.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseHistoryItem {
+    private Long id;
+    private Long sweetId;
+    private Integer quantity;
+    private BigDecimal unitPrice;
+    private Instant purchasedAt;
+}
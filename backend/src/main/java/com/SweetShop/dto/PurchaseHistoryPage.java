@@ -0,0 +1,16 @@
+package com.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** Purchases newest first; pass {@code next} back as {@code cursor} for the following page, null at the end. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseHistoryPage {
+    private List<PurchaseHistoryItem> purchases;
+    private String next;
+}
@@ -0,0 +1,17 @@
+package com.sweetshop.dto;
+
+import com.sweetshop.model.Sale;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** Sales oldest first; pass {@code next} back as {@code cursor} for the following page, null at the end. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesPage {
+    private List<Sale> sales;
+    private String next;
+}
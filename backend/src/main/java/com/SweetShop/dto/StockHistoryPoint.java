@@ -0,0 +1,21 @@
+package com.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHistoryPoint {
+    private Instant start;
+    private Integer quantityMin;
+    private Integer quantityMax;
+    private Integer quantityLast;
+    private BigDecimal priceMin;
+    private BigDecimal priceMax;
+    private BigDecimal priceLast;
+}
@@ -0,0 +1,17 @@
+package com.sweetshop.dto;
+
+import com.sweetshop.model.Sweet;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** One entry of the change feed: the sweet's current state, or a delete with {@code sweet} null. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweetChange {
+    private Long seq;
+    private Long id;
+    private boolean deleted;
+    private Sweet sweet;
+}
@@ -0,0 +1,17 @@
+package com.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweetChangesResponse {
+    private List<SweetChange> changes;
+    /** Pass as {@code since} on the next call. */
+    private Long next;
+    private boolean hasMore;
+}
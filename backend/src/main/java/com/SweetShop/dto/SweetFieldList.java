@@ -0,0 +1,41 @@
+package com.sweetshop.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Projected sweets, written as a JSON array of objects with only {@code fields}, in that
+ * order. Rows are serialized straight from the query result without a map per sweet.
+ */
+public record SweetFieldList(List<String> fields, List<Object[]> rows) implements JsonSerializable {
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        SerializedString[] names = new SerializedString[fields.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = new SerializedString(fields.get(i));
+        }
+        gen.writeStartArray(this, rows.size());
+        for (Object[] row : rows) {
+            gen.writeStartObject();
+            for (int i = 0; i < names.length; i++) {
+                gen.writeFieldName(names[i]);
+                serializers.defaultSerializeValue(row[i], gen);
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+}
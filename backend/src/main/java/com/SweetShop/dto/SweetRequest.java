@@ -29,4 +29,7 @@ public class SweetRequest {
     
     @Size(max = 1000, message = "Description cannot exceed 1000 characters")
     private String description;
+
+    @Min(value = 0, message = "Reorder level cannot be negative")
+    private Integer reorderLevel;
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweetSalesSummary {
+    private Long sweetId;
+    private long units;
+    private BigDecimal revenue;
+}
@@ -1,6 +1,9 @@
 package com.sweetshop.exception;
 
 import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.metrics.SweetShopMetrics;
+import com.sweetshop.metrics.SweetShopMetrics.ErrorBranch;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -16,8 +19,12 @@ import java.util.Map;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    @Autowired
+    private SweetShopMetrics metrics;
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<?> handleValidationExceptions(MethodArgumentNotValidException ex) {
+        metrics.recordError(ErrorBranch.VALIDATION);
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getAllErrors().forEach((error) -> {
             String fieldName = ((FieldError) error).getField();
@@ -30,24 +37,28 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<?> handleBadCredentials(BadCredentialsException ex) {
+        metrics.recordError(ErrorBranch.BAD_CREDENTIALS);
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
             .body(new ApiResponse(false, "Invalid username or password"));
     }
 
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<?> handleAccessDenied(AccessDeniedException ex) {
+        metrics.recordError(ErrorBranch.ACCESS_DENIED);
         return ResponseEntity.status(HttpStatus.FORBIDDEN)
             .body(new ApiResponse(false, "Access denied. You don't have permission to perform this action"));
     }
 
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<?> handleRuntimeException(RuntimeException ex) {
+        metrics.recordError(ErrorBranch.RUNTIME);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
             .body(new ApiResponse(false, ex.getMessage()));
     }
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleGlobalException(Exception ex) {
+        metrics.recordError(ErrorBranch.UNEXPECTED);
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
             .body(new ApiResponse(false, "An unexpected error occurred: " + ex.getMessage()));
     }
@@ -0,0 +1,28 @@
+package com.sweetshop.jdbc;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "sweetshop.datasource")
+public class ReplicaProperties {
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    /** Replicas further behind than this are skipped; also how long a user's reads stay on the primary after a write. */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /** How often the primary heartbeat is written and replica lag is measured. */
+    private Duration heartbeatInterval = Duration.ofSeconds(1);
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,211 @@
+package com.sweetshop.jdbc;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Primary and replica pools plus the routing between them.
+ *
+ * A connection goes to a replica only when it is opened inside a read-only transaction
+ * declared by application code, e.g. {@code @Transactional(readOnly = true)} on a service
+ * method. Spring Data's own read-only repository transactions stay on the primary, so
+ * authentication and other incidental lookups never read stale rows. Replicas are used
+ * round-robin, skipping any whose measured lag exceeds {@code sweetshop.datasource.max-lag}.
+ * For the same period after a user's write transaction, that user's reads go to the
+ * primary (read-your-writes). If no replica qualifies, reads go to the primary. Code whose
+ * result must not be stale at all, such as bodies cached under a catalog version, runs its
+ * reads through {@link #onPrimary}.
+ *
+ * Lag is measured with a heartbeat row the primary rewrites every
+ * {@code heartbeat-interval}: lag is the age of the copy each replica returns. A replica
+ * that cannot be queried counts as infinitely behind.
+ */
+public class ReplicaRouting implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRouting.class);
+
+    static final String PRIMARY = "primary";
+    private static final String REPOSITORY_TRANSACTION_PREFIX = "org.springframework.data.";
+    private static final String HEARTBEAT_TABLE =
+        "CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat TIMESTAMP NOT NULL)";
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+    private final long maxLagNanos;
+    private final Duration heartbeatInterval;
+    private final AtomicLongArray lagNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+    private final Map<String, Counter> routed = new HashMap<>();
+    private final Router router = new Router();
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaRouting(HikariDataSource primary, List<HikariDataSource> replicas, ReplicaProperties properties,
+                          MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLagNanos = properties.getMaxLag().toNanos();
+        this.heartbeatInterval = properties.getHeartbeatInterval();
+        this.lagNanos = new AtomicLongArray(replicas.size());
+
+        MicrometerMetricsTrackerFactory poolMetrics = new MicrometerMetricsTrackerFactory(registry);
+        primary.setPoolName(PRIMARY);
+        primary.setMetricsTrackerFactory(poolMetrics);
+        routed.put(PRIMARY, registry.counter("sweetshop.datasource.connections", "route", PRIMARY));
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String name = replicaName(i);
+            HikariDataSource replica = replicas.get(i);
+            replica.setPoolName(name);
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(poolMetrics);
+            targets.put(name, replica);
+            routed.put(name, registry.counter("sweetshop.datasource.connections", "route", name));
+            lagNanos.set(i, Long.MAX_VALUE);
+            int index = i;
+            Gauge.builder("sweetshop.datasource.replica.lag", lagNanos, lags -> lags.get(index) / 1e9)
+                .tag("replica", name)
+                .baseUnit("seconds")
+                .register(registry);
+        }
+        router.setTargetDataSources(targets);
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+    }
+
+    /** Routing target; wrap in a lazy proxy so the route is chosen after the transaction's read-only flag is set. */
+    public DataSource router() {
+        return router;
+    }
+
+    public void start() {
+        new JdbcTemplate(primary).execute(HEARTBEAT_TABLE);
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("replica-heartbeat").daemon().factory());
+        long interval = heartbeatInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::heartbeat, 0, interval, TimeUnit.MILLISECONDS);
+        log.info("Routing read-only transactions to {} replica(s)", replicas.size());
+    }
+
+    /** Runs {@code work} with every connection it opens on the primary, read-only transactions included. */
+    public static <T> T onPrimary(Supplier<T> work) {
+        boolean outer = PINNED.get() != null;
+        PINNED.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (!outer) {
+                PINNED.remove();
+            }
+        }
+    }
+
+    String route() {
+        String user = currentUser();
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        String transaction = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (!readOnly || transaction == null || transaction.startsWith(REPOSITORY_TRANSACTION_PREFIX)
+                || PINNED.get() != null) {
+            if (!readOnly && user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                lastWriteNanos.put(user, System.nanoTime());
+            }
+            return PRIMARY;
+        }
+        if (user != null) {
+            Long wrote = lastWriteNanos.get(user);
+            if (wrote != null && System.nanoTime() - wrote < maxLagNanos) {
+                return PRIMARY;
+            }
+        }
+        int start = nextReplica.getAndIncrement() & Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            if (lagNanos.get(index) <= maxLagNanos) {
+                return replicaName(index);
+            }
+        }
+        return PRIMARY;
+    }
+
+    private void heartbeat() {
+        Instant now = Instant.now();
+        try {
+            JdbcTemplate template = new JdbcTemplate(primary);
+            if (template.update("UPDATE replica_heartbeat SET beat = ? WHERE id = 1", Timestamp.from(now)) == 0) {
+                template.update("INSERT INTO replica_heartbeat (id, beat) VALUES (1, ?)", Timestamp.from(now));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Writing replica heartbeat failed: {}", e.getMessage());
+        }
+        for (int i = 0; i < replicas.size(); i++) {
+            lagNanos.set(i, measureLag(replicas.get(i)));
+        }
+        long cutoff = System.nanoTime() - maxLagNanos;
+        lastWriteNanos.values().removeIf(wrote -> wrote < cutoff);
+    }
+
+    private static long measureLag(DataSource replica) {
+        try {
+            Timestamp beat = new JdbcTemplate(replica).queryForObject(
+                "SELECT beat FROM replica_heartbeat WHERE id = 1", Timestamp.class);
+            return Math.max(0, Duration.between(beat.toInstant(), Instant.now()).toNanos());
+        } catch (RuntimeException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    private static String replicaName(int index) {
+        return "replica-" + index;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+
+    private final class Router extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            String route = route();
+            routed.get(route).increment();
+            return route;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.sweetshop.jdbc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JDBC activity of one unit of work (normally one HTTP request): statements executed,
+ * rows read from result sets, time spent in the driver and how often each SQL string ran.
+ *
+ * Instances are confined to the thread that owns the current {@link StatementStatsScope}.
+ */
+public class StatementStats {
+
+    private int statements;
+    private long rows;
+    private long nanos;
+    private final Map<String, Integer> executions = new LinkedHashMap<>();
+
+    void recordExecution(String sql, long elapsedNanos) {
+        statements++;
+        nanos += elapsedNanos;
+        if (sql != null) {
+            executions.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    void recordRow() {
+        rows++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /** SQL strings executed more than once, with their counts: the usual N+1 signature. */
+    public Map<String, Integer> getRepeatedStatements() {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        executions.forEach((sql, count) -> {
+            if (count > 1) {
+                repeated.put(sql, count);
+            }
+        });
+        return repeated;
+    }
+
+    public Map<String, Integer> getExecutions() {
+        return Map.copyOf(executions);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder()
+            .append(statements).append(" statements, ")
+            .append(rows).append(" rows, ")
+            .append(nanos / 1000).append("us");
+        executions.forEach((sql, count) -> summary.append("\n  ").append(count).append("x ").append(sql));
+        return summary.toString();
+    }
+}
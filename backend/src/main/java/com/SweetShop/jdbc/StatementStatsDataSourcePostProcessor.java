@@ -0,0 +1,96 @@
+package com.sweetshop.jdbc;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Wraps every {@link DataSource} so statements, fetched rows and driver time are
+ * attributed to the current {@link StatementStatsScope}. Outside a scope the proxies
+ * only delegate.
+ */
+@Component
+@ConditionalOnProperty(name = "sweetshop.db-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class StatementStatsDataSourcePostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, null);
+        }
+        return bean;
+    }
+
+    private static <T> T proxy(Class<T> type, T target, String sql) {
+        InvocationHandler handler = (proxy, method, args) -> invoke(target, sql, method, args);
+        return type.cast(Proxy.newProxyInstance(StatementStatsDataSourcePostProcessor.class.getClassLoader(),
+            new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, String sql, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("unwrap") && ((Class<?>) args[0]).isInstance(target)) {
+            return target;
+        }
+        if (name.equals("isWrapperFor") && ((Class<?>) args[0]).isInstance(target)) {
+            return true;
+        }
+
+        StatementStats stats = StatementStatsScope.current();
+        boolean execution = target instanceof Statement && name.startsWith("execute");
+        if (stats != null && name.equals("next") && target instanceof ResultSet) {
+            Object hasRow = call(target, method, args);
+            if (Boolean.TRUE.equals(hasRow)) {
+                stats.recordRow();
+            }
+            return hasRow;
+        }
+
+        long start = execution ? System.nanoTime() : 0;
+        Object result = call(target, method, args);
+        if (execution && stats != null) {
+            String executed = sql != null ? sql : args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+            stats.recordExecution(executed, System.nanoTime() - start);
+        }
+        return wrap(result, name, args, sql);
+    }
+
+    private static Object wrap(Object result, String name, Object[] args, String sql) {
+        if (result instanceof Connection connection) {
+            return proxy(Connection.class, connection, null);
+        }
+        String statementSql = name.startsWith("prepare") && args != null && args[0] instanceof String s ? s : null;
+        if (result instanceof CallableStatement statement) {
+            return proxy(CallableStatement.class, statement, statementSql);
+        }
+        if (result instanceof PreparedStatement statement) {
+            return proxy(PreparedStatement.class, statement, statementSql);
+        }
+        if (result instanceof Statement statement) {
+            return proxy(Statement.class, statement, null);
+        }
+        if (result instanceof ResultSet resultSet) {
+            return proxy(ResultSet.class, resultSet, sql);
+        }
+        return result;
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.sweetshop.jdbc;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a {@link StatementStatsScope} per HTTP request (ahead of the security chain so
+ * the JWT user lookup is included), records the totals as per-endpoint metrics and
+ * logs SQL repeated within the request as a likely N+1 pattern.
+ *
+ * With {@code sweetshop.db-stats.response-headers=true} the totals at the time the
+ * response is committed are also sent as {@code X-DB-*} headers.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "sweetshop.db-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class StatementStatsFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${sweetshop.db-stats.response-headers:false}")
+    private boolean responseHeaders;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        try (StatementStatsScope scope = StatementStatsScope.open()) {
+            StatementStats stats = scope.stats();
+            HttpServletResponse target = responseHeaders ? new HeaderWritingResponse(response, stats) : response;
+            try {
+                filterChain.doFilter(request, target);
+            } finally {
+                if (scope.isOutermost()) {
+                    record(request, stats);
+                }
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, StatementStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+
+        DistributionSummary.builder("sweetshop.request.db.statements")
+            .description("JDBC statements executed per HTTP request")
+            .tags("method", method, "uri", uri)
+            .register(meterRegistry)
+            .record(stats.getStatements());
+        DistributionSummary.builder("sweetshop.request.db.rows")
+            .description("Rows fetched per HTTP request")
+            .tags("method", method, "uri", uri)
+            .register(meterRegistry)
+            .record(stats.getRows());
+        Timer.builder("sweetshop.request.db.time")
+            .description("Time spent in JDBC per HTTP request")
+            .tags("method", method, "uri", uri)
+            .register(meterRegistry)
+            .record(stats.getNanos(), TimeUnit.NANOSECONDS);
+
+        Map<String, Integer> repeated = stats.getRepeatedStatements();
+        if (!repeated.isEmpty()) {
+            meterRegistry.counter("sweetshop.request.db.repeated", "method", method, "uri", uri).increment();
+            logger.warn("Possible N+1 in " + method + " " + uri + ": " + repeated);
+        }
+    }
+
+    /** Adds the X-DB-* headers just before the first byte of the body is written. */
+    private static final class HeaderWritingResponse extends HttpServletResponseWrapper {
+
+        private final StatementStats stats;
+        private boolean written;
+
+        HeaderWritingResponse(HttpServletResponse response, StatementStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        private void writeHeaders() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            setHeader("X-DB-Statements", Integer.toString(stats.getStatements()));
+            setHeader("X-DB-Rows", Long.toString(stats.getRows()));
+            setHeader("X-DB-Time-Micros", Long.toString(stats.getNanos() / 1000));
+            setHeader("X-DB-Repeated", Integer.toString(stats.getRepeatedStatements().size()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.sweetshop.jdbc;
+
+/**
+ * Thread-bound scope that JDBC activity is attributed to. Scopes nest: an inner
+ * {@link #open()} joins the outer scope, so a test can wrap a MockMvc call that the
+ * request filter also measures.
+ */
+public final class StatementStatsScope implements AutoCloseable {
+
+    private static final ThreadLocal<StatementStatsScope> CURRENT = new ThreadLocal<>();
+
+    private final StatementStats stats = new StatementStats();
+    private int depth;
+
+    private StatementStatsScope() {
+    }
+
+    public static StatementStatsScope open() {
+        StatementStatsScope scope = CURRENT.get();
+        if (scope == null) {
+            scope = new StatementStatsScope();
+            CURRENT.set(scope);
+        }
+        scope.depth++;
+        return scope;
+    }
+
+    static StatementStats current() {
+        StatementStatsScope scope = CURRENT.get();
+        return scope == null ? null : scope.stats;
+    }
+
+    public StatementStats stats() {
+        return stats;
+    }
+
+    /** True when closing this scope ends it, i.e. this is the outermost {@link #open()}. */
+    public boolean isOutermost() {
+        return depth == 1;
+    }
+
+    @Override
+    public void close() {
+        if (--depth == 0) {
+            CURRENT.remove();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.sweetshop.kiosk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only redo log with group commit. Entries are framed as
+ * {@code [length][crc32c][lsn][type][payload]}; a torn or corrupt tail is cut off on open.
+ *
+ * Writers append, then wait in {@link #awaitDurable} while a single syncer thread calls
+ * {@code fsync} for everything appended so far, so concurrent commits share one sync.
+ * The syncer waits {@code syncDelayMillis} before each sync to let more commits join.
+ */
+final class ChangeLog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeLog.class);
+    private static final int FRAME_HEADER = 4 + 4 + 8 + 1;
+
+    record Entry(long lsn, byte type, ByteBuffer payload) {
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long syncDelayMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // logical offsets; they keep growing across truncation so waiters never see them move back
+    private long fileStart;
+    private long written;
+    private long durable;
+    private long lastLsn;
+    private IOException failure;
+    private volatile boolean running;
+    private Thread syncer;
+
+    ChangeLog(Path path, long syncDelayMillis) throws IOException {
+        this.path = path;
+        this.syncDelayMillis = syncDelayMillis;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /** Valid entries in file order; truncates anything after the last valid one. Call before {@link #start}. */
+    List<Entry> replay() throws IOException {
+        ByteBuffer file = ByteBuffer.allocate((int) channel.size());
+        while (file.hasRemaining() && channel.read(file, file.position()) >= 0) {
+            // FileChannel.read may return fewer bytes than requested
+        }
+        file.flip();
+        List<Entry> entries = new ArrayList<>();
+        CRC32C crc = new CRC32C();
+        while (file.remaining() >= FRAME_HEADER) {
+            int start = file.position();
+            int length = file.getInt();
+            int checksum = file.getInt();
+            if (length < 9 || length > file.remaining()) {
+                file.position(start);
+                break;
+            }
+            ByteBuffer body = file.slice(file.position(), length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                file.position(start);
+                break;
+            }
+            long lsn = body.getLong(0);
+            entries.add(new Entry(lsn, body.get(8), body.slice(9, length - 9)));
+            lastLsn = Math.max(lastLsn, lsn);
+            file.position(file.position() + length);
+        }
+        if (file.position() < channel.size()) {
+            log.warn("Discarding {} bytes of incomplete kiosk log {}", channel.size() - file.position(), path);
+            channel.truncate(file.position());
+            channel.force(false);
+        }
+        written = durable = file.position();
+        return entries;
+    }
+
+    /** Continue numbering after {@code lsn} if it is higher than anything in the log. */
+    void startAfter(long lsn) {
+        lastLsn = Math.max(lastLsn, lsn);
+    }
+
+    long lastLsn() {
+        return lastLsn;
+    }
+
+    long size() {
+        lock.lock();
+        try {
+            return written - fileStart;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void start() {
+        running = true;
+        syncer = Thread.ofPlatform().name("kiosk-log-sync").daemon().start(this::syncLoop);
+    }
+
+    /** Appends entries (type byte + payload each) and returns the file offset to wait for. Callers serialize appends. */
+    long append(List<Entry> entries) throws IOException {
+        ByteBuffer[] frames = new ByteBuffer[entries.size()];
+        CRC32C crc = new CRC32C();
+        for (int i = 0; i < frames.length; i++) {
+            Entry entry = entries.get(i);
+            ByteBuffer payload = entry.payload().duplicate();
+            ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + payload.remaining());
+            frame.position(8);
+            frame.putLong(++lastLsn).put(entry.type()).put(payload);
+            crc.reset();
+            crc.update(frame.slice(8, frame.capacity() - 8));
+            frame.putInt(0, frame.capacity() - 8).putInt(4, (int) crc.getValue());
+            frame.flip();
+            frames[i] = frame;
+        }
+        lock.lock();
+        try {
+            channel.position(written - fileStart);
+            long remaining = 0;
+            for (ByteBuffer frame : frames) {
+                remaining += frame.remaining();
+            }
+            while (remaining > 0) {
+                remaining -= channel.write(frames);
+            }
+            written = fileStart + channel.position();
+            changed.signalAll();
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void awaitDurable(long offset) {
+        lock.lock();
+        try {
+            while (durable < offset) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Kiosk log sync failed", failure);
+                }
+                changed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Empties the log once everything in it is durable; the caller has checkpointed it elsewhere. */
+    void truncate() throws IOException {
+        awaitDurable(written);
+        lock.lock();
+        try {
+            channel.truncate(0);
+            channel.force(true);
+            fileStart = written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void syncLoop() {
+        while (true) {
+            lock.lock();
+            try {
+                while (running && written == durable) {
+                    changed.await(100, TimeUnit.MILLISECONDS);
+                }
+                if (!running && written == durable) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                if (syncDelayMillis > 0) {
+                    Thread.sleep(syncDelayMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long target;
+            lock.lock();
+            try {
+                target = written;
+            } finally {
+                lock.unlock();
+            }
+            IOException error = null;
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+            lock.lock();
+            try {
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durable = Math.max(durable, target);
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (error != null) {
+                log.error("Kiosk log fsync failed; further commits will fail", error);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        lock.lock();
+        try {
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (syncer != null) {
+            try {
+                syncer.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        channel.force(false);
+        channel.close();
+    }
+}
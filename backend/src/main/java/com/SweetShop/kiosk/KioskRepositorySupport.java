@@ -0,0 +1,185 @@
+package com.sweetshop.kiosk;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * The generic {@link JpaRepository} methods in terms of {@code findById}, {@code findAll},
+ * {@code save}, {@code deleteById} and {@code count}. Sorting and paging happen in memory;
+ * query by example is not supported.
+ */
+abstract class KioskRepositorySupport<T> implements JpaRepository<T, Long> {
+
+    private static final Comparator<Comparable<Object>> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    protected abstract Long idOf(T entity);
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<Long> ids) {
+        List<T> found = new ArrayList<>();
+        ids.forEach(id -> findById(id).ifPresent(found::add));
+        return found;
+    }
+
+    @Override
+    public void delete(T entity) {
+        deleteById(idOf(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        findAll().forEach(this::delete);
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        List<T> all = new ArrayList<>(findAll());
+        Comparator<T> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<T> byProperty = Comparator.comparing(entity -> property(entity, order.getProperty()), NULLS_FIRST);
+            byProperty = order.isAscending() ? byProperty : byProperty.reversed();
+            comparator = comparator == null ? byProperty : comparator.thenComparing(byProperty);
+        }
+        if (comparator != null) {
+            all.sort(comparator);
+        }
+        return all;
+    }
+
+    // sortable properties are all Comparable (numbers, strings, dates)
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> property(Object entity, String name) {
+        return (Comparable<Object>) new BeanWrapperImpl(entity).getPropertyValue(name);
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        List<T> all = findAll(pageable.getSort());
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(all);
+        }
+        int from = (int) Math.min(pageable.getOffset(), all.size());
+        int to = Math.min(from + pageable.getPageSize(), all.size());
+        return new PageImpl<>(all.subList(from, to), pageable, all.size());
+    }
+
+    @Override
+    public void flush() {
+        // writes are staged until commit, there is nothing to flush early
+    }
+
+    @Override
+    public <S extends T> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends T> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<T> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<Long> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    @Deprecated
+    public T getOne(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    @Deprecated
+    public T getById(Long id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public T getReferenceById(Long id) {
+        return findById(id).orElseThrow(() -> new RuntimeException("Entity not found with id: " + id));
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw unsupported();
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("Query by example is not supported in kiosk mode");
+    }
+}
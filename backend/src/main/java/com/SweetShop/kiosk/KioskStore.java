@@ -0,0 +1,837 @@
+package com.sweetshop.kiosk;
+
+import com.sweetshop.model.Sweet;
+import com.sweetshop.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Single-node store for sweets and users, used instead of the database in kiosk mode.
+ *
+ * Sweets live in a memory-mapped file of fixed-width records ({@code sweets.dat});
+ * descriptions and users, being variable-length and small, are held in memory and
+ * snapshotted to {@code descriptions.dat} and {@code users.dat}. Every change is first
+ * appended to {@code changes.log} and applied to the records and the in-memory indexes
+ * (id, category, change sequence and lower-cased names for substring search) only once a
+ * batched fsync covers it. When the log passes
+ * {@code compactThresholdBytes} a checkpoint forces the mapped records, rewrites the
+ * snapshots and empties the log. Recovery loads the records and snapshots and replays
+ * log entries newer than the last checkpoint; entries are full images, so replaying one
+ * twice is harmless.
+ */
+public class KioskStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(KioskStore.class);
+
+    sealed interface Mutation permits PutSweet, DeleteSweet, PutUser, DeleteUser {
+    }
+
+    record PutSweet(Sweet sweet) implements Mutation {
+    }
+
+    record DeleteSweet(long id) implements Mutation {
+    }
+
+    record PutUser(User user) implements Mutation {
+    }
+
+    record DeleteUser(long id) implements Mutation {
+    }
+
+    /** A batch appended to the log and not yet applied, ending at log offset {@code end}. */
+    private record Logged(long end, List<ChangeLog.Entry> entries, List<Mutation> mutations) {
+    }
+
+    private static final byte PUT_SWEET = 1;
+    private static final byte DELETE_SWEET = 2;
+    private static final byte PUT_USER = 3;
+    private static final byte DELETE_USER = 4;
+
+    // Sweet record layout
+    private static final byte FREE = 0;
+    private static final byte LIVE = 1;
+    private static final int STATUS = 0;
+    private static final int ID = 1;
+    private static final int CHANGE_SEQ = 9;
+    private static final int PRICE_UNSCALED = 17;
+    private static final int PRICE_SCALE = 25;
+    private static final int QUANTITY = 26;
+    private static final int REORDER_LEVEL = 30;
+    private static final int NAME = 34;
+    private static final int NAME_BYTES = 320;
+    private static final int CATEGORY = NAME + 2 + NAME_BYTES;
+    private static final int CATEGORY_BYTES = 120;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    private final Path dir;
+    private final RecordFile records;
+    private final ChangeLog changeLog;
+    private final long compactThresholdBytes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock[] sweetLocks = new ReentrantLock[256];
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(
+        Thread.ofPlatform().name("kiosk-compactor").daemon().factory());
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+    private final ArrayDeque<Logged> logged = new ArrayDeque<>();
+
+    private final TreeMap<Long, Integer> slotsById = new TreeMap<>();
+    private final Map<String, TreeMap<Long, Integer>> slotsByCategory = new HashMap<>();
+    private final TreeMap<Long, Long> idsByChangeSeq = new TreeMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private String[] namesBySlot = new String[1024];
+    private final Map<Long, String> descriptions = new HashMap<>();
+    private final TreeMap<Long, User> usersById = new TreeMap<>();
+    private final Map<String, Long> userIdsByUsername = new HashMap<>();
+    private final Map<String, Long> userIdsByEmail = new HashMap<>();
+    private final AtomicLong nextSweetId = new AtomicLong(1);
+    private final AtomicLong nextUserId = new AtomicLong(1);
+    private long maxChangeSeq;
+
+    public KioskStore(Path dir, long syncDelayMillis, long compactThresholdBytes) throws IOException {
+        long started = System.nanoTime();
+        this.dir = Files.createDirectories(dir);
+        this.compactThresholdBytes = compactThresholdBytes;
+        for (int i = 0; i < sweetLocks.length; i++) {
+            sweetLocks[i] = new ReentrantLock();
+        }
+        records = new RecordFile(dir.resolve("sweets.dat"));
+        loadRecords();
+        readDescriptions();
+        readUsers();
+
+        changeLog = new ChangeLog(dir.resolve("changes.log"), syncDelayMillis);
+        long checkpoint = records.checkpointLsn();
+        int replayed = 0;
+        for (ChangeLog.Entry entry : changeLog.replay()) {
+            if (entry.lsn() > checkpoint) {
+                apply(entry.type(), entry.payload());
+                replayed++;
+            }
+        }
+        changeLog.startAfter(checkpoint);
+        changeLog.start();
+        log.info("Kiosk store {} opened with {} sweets and {} users ({} log entries replayed) in {} ms",
+            dir, slotsById.size(), usersById.size(), replayed, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // ---- reads
+
+    public Optional<Sweet> sweet(long id) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotsById.get(id);
+            return slot == null ? Optional.empty() : Optional.of(decode(records.slot(slot)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** All sweets, by id. */
+    public List<Sweet> sweets() {
+        lock.readLock().lock();
+        try {
+            List<Sweet> sweets = new ArrayList<>(slotsById.size());
+            for (int slot : slotsById.values()) {
+                sweets.add(decode(records.slot(slot)));
+            }
+            return sweets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Sweets whose category equals {@code category}, ignoring case, by id. */
+    public List<Sweet> sweetsInCategory(String category) {
+        lock.readLock().lock();
+        try {
+            return decodeAll(slotsByCategory.getOrDefault(category.toLowerCase(Locale.ROOT), new TreeMap<>()).values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sweets whose name contains {@code nameFragment} or whose category contains
+     * {@code categoryFragment}, ignoring case; either may be null. Names are matched
+     * against the in-memory lower-cased copies, so only matches are decoded.
+     */
+    public List<Sweet> sweetsMatching(String nameFragment, String categoryFragment) {
+        lock.readLock().lock();
+        try {
+            TreeMap<Long, Integer> matches = new TreeMap<>();
+            if (nameFragment != null) {
+                String fragment = nameFragment.toLowerCase(Locale.ROOT);
+                for (Map.Entry<Long, Integer> entry : slotsById.entrySet()) {
+                    if (namesBySlot[entry.getValue()].contains(fragment)) {
+                        matches.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            if (categoryFragment != null) {
+                String fragment = categoryFragment.toLowerCase(Locale.ROOT);
+                slotsByCategory.forEach((category, members) -> {
+                    if (category.contains(fragment)) {
+                        matches.putAll(members);
+                    }
+                });
+            }
+            return decodeAll(matches.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Sweets with {@code since < changeSeq <= until}, oldest change first. */
+    public List<Sweet> sweetsChanged(long since, long until, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Sweet> sweets = new ArrayList<>();
+            for (long id : idsByChangeSeq.subMap(since, false, until, true).values()) {
+                if (sweets.size() == limit) {
+                    break;
+                }
+                sweets.add(decode(records.slot(slotsById.get(id))));
+            }
+            return sweets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Sweet> sweetsAfter(long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Sweet> sweets = new ArrayList<>();
+            for (int slot : slotsById.tailMap(afterId, false).values()) {
+                if (sweets.size() == limit) {
+                    break;
+                }
+                sweets.add(decode(records.slot(slot)));
+            }
+            return sweets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long sweetCount() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long maxChangeSeq() {
+        lock.readLock().lock();
+        try {
+            return maxChangeSeq;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<User> user(long id) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(usersById.get(id)).map(KioskStore::copy);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<User> userByUsername(String username) {
+        lock.readLock().lock();
+        try {
+            Long id = userIdsByUsername.get(username);
+            return id == null ? Optional.empty() : Optional.of(copy(usersById.get(id)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<User> userByEmail(String email) {
+        lock.readLock().lock();
+        try {
+            Long id = userIdsByEmail.get(email);
+            return id == null ? Optional.empty() : Optional.of(copy(usersById.get(id)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<User> users() {
+        lock.readLock().lock();
+        try {
+            return usersById.values().stream().map(KioskStore::copy).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long allocateSweetId() {
+        return nextSweetId.getAndIncrement();
+    }
+
+    long allocateUserId() {
+        return nextUserId.getAndIncrement();
+    }
+
+    /** Lock serializing stock changes of one sweet across transactions; striped. */
+    ReentrantLock sweetLock(long id) {
+        return sweetLocks[(int) ((id * 0x9E3779B97F4A7C15L) >>> 56)];
+    }
+
+    // ---- writes
+
+    /**
+     * Logs the mutations and returns once they are durable and applied. Nothing reaches the
+     * mapped records or the indexes before the log entries are synced, so the OS can never
+     * flush a change that was not acknowledged. Batches are applied in log order by
+     * whichever committer gets there first.
+     */
+    void commit(List<Mutation> mutations) {
+        List<ChangeLog.Entry> entries = new ArrayList<>(mutations.size());
+        for (Mutation mutation : mutations) {
+            entries.add(encode(mutation));
+        }
+        long end;
+        lock.writeLock().lock();
+        try {
+            for (Mutation mutation : mutations) {
+                if (mutation instanceof PutUser put) {
+                    checkUnique(put.user());
+                }
+            }
+            end = changeLog.append(entries);
+            logged.add(new Logged(end, entries, mutations));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kiosk log append failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            changeLog.awaitDurable(end);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                logged.removeIf(batch -> batch.end() == end);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            applyLogged(end);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kiosk apply failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (changeLog.size() > compactThresholdBytes && compactionQueued.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                compactionQueued.set(false);
+                compact();
+            });
+        }
+    }
+
+    /** Applies durable batches up to {@code end}, oldest first; the caller holds the write lock. */
+    private void applyLogged(long end) throws IOException {
+        while (!logged.isEmpty() && logged.peek().end() <= end) {
+            for (ChangeLog.Entry entry : logged.poll().entries()) {
+                apply(entry.type(), entry.payload());
+            }
+        }
+    }
+
+    /** Checkpoint: records and snapshots to disk, then an empty log. */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            long started = System.nanoTime();
+            long logBytes = changeLog.size();
+            if (!logged.isEmpty()) {
+                // the checkpoint covers the whole log, so batches still waiting for their sync go in first
+                long end = logged.peekLast().end();
+                changeLog.awaitDurable(end);
+                applyLogged(end);
+            }
+            records.force();
+            writeDescriptions();
+            writeUsers();
+            records.checkpointLsn(changeLog.lastLsn());
+            records.force();
+            changeLog.truncate();
+            log.info("Kiosk store compacted {} log bytes in {} ms", logBytes, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kiosk store compaction failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void checkUnique(User user) {
+        Long byUsername = userIdsByUsername.get(user.getUsername());
+        Long byEmail = userIdsByEmail.get(user.getEmail());
+        if ((byUsername != null && !byUsername.equals(user.getId())) || (byEmail != null && !byEmail.equals(user.getId()))) {
+            throw new DataIntegrityViolationException("Username or email already exists");
+        }
+        // users logged but not yet applied
+        for (Logged batch : logged) {
+            for (Mutation mutation : batch.mutations()) {
+                if (mutation instanceof PutUser put && !put.user().getId().equals(user.getId())
+                        && (put.user().getUsername().equals(user.getUsername()) || put.user().getEmail().equals(user.getEmail()))) {
+                    throw new DataIntegrityViolationException("Username or email already exists");
+                }
+            }
+        }
+    }
+
+    private ChangeLog.Entry encode(Mutation mutation) {
+        return switch (mutation) {
+            case PutSweet put -> {
+                Sweet sweet = put.sweet();
+                byte[] description = bytes(sweet.getDescription());
+                ByteBuffer payload = ByteBuffer.allocate(RecordFile.RECORD_SIZE + 4 + (description == null ? 0 : description.length));
+                encode(payload, sweet);
+                payload.position(RecordFile.RECORD_SIZE);
+                putBytes(payload, description);
+                yield new ChangeLog.Entry(0, PUT_SWEET, payload.flip());
+            }
+            case DeleteSweet delete -> new ChangeLog.Entry(0, DELETE_SWEET, ByteBuffer.allocate(8).putLong(0, delete.id()));
+            case PutUser put -> new ChangeLog.Entry(0, PUT_USER, ByteBuffer.wrap(encodeUser(put.user())));
+            case DeleteUser delete -> new ChangeLog.Entry(0, DELETE_USER, ByteBuffer.allocate(8).putLong(0, delete.id()));
+        };
+    }
+
+    private void apply(byte type, ByteBuffer payload) throws IOException {
+        switch (type) {
+            case PUT_SWEET -> {
+                ByteBuffer image = payload.slice(0, RecordFile.RECORD_SIZE);
+                long id = image.getLong(ID);
+                Integer slot = slotsById.get(id);
+                if (slot != null) {
+                    unindex(id, slot);
+                } else {
+                    slot = freeSlots.isEmpty() ? records.appendSlot() : freeSlots.poll();
+                }
+                records.slot(slot).put(0, image, 0, RecordFile.RECORD_SIZE);
+                index(slot, image);
+                String description = string(payload.position(RecordFile.RECORD_SIZE));
+                if (description != null) {
+                    descriptions.put(id, description);
+                } else {
+                    descriptions.remove(id);
+                }
+            }
+            case DELETE_SWEET -> {
+                long id = payload.getLong(0);
+                Integer slot = slotsById.remove(id);
+                if (slot != null) {
+                    unindex(id, slot);
+                    records.slot(slot).put(STATUS, FREE);
+                    namesBySlot[slot] = null;
+                    freeSlots.add(slot);
+                }
+                descriptions.remove(id);
+            }
+            case PUT_USER -> putUser(decodeUser(payload));
+            case DELETE_USER -> {
+                User user = usersById.remove(payload.getLong(0));
+                if (user != null) {
+                    userIdsByUsername.remove(user.getUsername());
+                    userIdsByEmail.remove(user.getEmail());
+                }
+            }
+            default -> throw new IOException("Unknown kiosk log entry type " + type);
+        }
+    }
+
+    // ---- indexes
+
+    private record Loaded(long id, int slot, long changeSeq, String category) {
+    }
+
+    /**
+     * Startup scan. The tree indexes are built from sorted runs, which TreeMap does in
+     * linear time; inserting 100k keys one by one costs several times more.
+     */
+    private void loadRecords() {
+        List<Loaded> live = new ArrayList<>();
+        Map<String, List<Loaded>> byCategory = new HashMap<>();
+        for (int slot = 0; slot < records.slotCount(); slot++) {
+            ByteBuffer record = records.slot(slot);
+            if (record.get(STATUS) != LIVE) {
+                freeSlots.add(slot);
+                continue;
+            }
+            Loaded loaded = new Loaded(record.getLong(ID), slot, record.getLong(CHANGE_SEQ), lowerCase(record, CATEGORY));
+            live.add(loaded);
+            indexName(slot, record);
+            nextSweetId.accumulateAndGet(loaded.id() + 1, Math::max);
+            maxChangeSeq = Math.max(maxChangeSeq, loaded.changeSeq());
+        }
+        live.sort(Comparator.comparingLong(Loaded::id));
+        slotsById.putAll(sorted(live, Loaded::id, Loaded::slot));
+        for (Loaded loaded : live) {
+            byCategory.computeIfAbsent(loaded.category(), key -> new ArrayList<>()).add(loaded);
+        }
+        byCategory.forEach((category, members) ->
+            slotsByCategory.put(category, new TreeMap<>(sorted(members, Loaded::id, Loaded::slot))));
+        List<Loaded> stamped = new ArrayList<>(live.stream().filter(loaded -> loaded.changeSeq() > 0).toList());
+        stamped.sort(Comparator.comparingLong(Loaded::changeSeq));
+        idsByChangeSeq.putAll(sorted(stamped, Loaded::changeSeq, Loaded::id));
+    }
+
+    private static <V> SortedMap<Long, V> sorted(List<Loaded> run, ToLongFunction<Loaded> key, Function<Loaded, V> value) {
+        List<Map.Entry<Long, V>> entries = new ArrayList<>(run.size());
+        for (Loaded loaded : run) {
+            entries.add(Map.entry(key.applyAsLong(loaded), value.apply(loaded)));
+        }
+        return new SortedRun<>(entries);
+    }
+
+    /** Just enough of a SortedMap for TreeMap's linear-time bulk build, which only iterates it. */
+    private static final class SortedRun<V> extends AbstractMap<Long, V> implements SortedMap<Long, V> {
+        private final List<Map.Entry<Long, V>> entries;
+
+        SortedRun(List<Map.Entry<Long, V>> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public Set<Map.Entry<Long, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<Long, V>> iterator() {
+                    return entries.iterator();
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
+
+        @Override
+        public Comparator<? super Long> comparator() {
+            return null;
+        }
+
+        @Override
+        public Long firstKey() {
+            return entries.get(0).getKey();
+        }
+
+        @Override
+        public Long lastKey() {
+            return entries.get(entries.size() - 1).getKey();
+        }
+
+        @Override
+        public SortedMap<Long, V> subMap(Long fromKey, Long toKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<Long, V> headMap(Long toKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<Long, V> tailMap(Long fromKey) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private void index(int slot, ByteBuffer record) {
+        long id = record.getLong(ID);
+        slotsById.put(id, slot);
+        slotsByCategory.computeIfAbsent(lowerCase(record, CATEGORY), key -> new TreeMap<>()).put(id, slot);
+        long changeSeq = record.getLong(CHANGE_SEQ);
+        if (changeSeq > 0) {
+            idsByChangeSeq.put(changeSeq, id);
+            maxChangeSeq = Math.max(maxChangeSeq, changeSeq);
+        }
+        indexName(slot, record);
+        nextSweetId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    private void indexName(int slot, ByteBuffer record) {
+        if (slot >= namesBySlot.length) {
+            namesBySlot = Arrays.copyOf(namesBySlot, Math.max(slot + 1, namesBySlot.length * 2));
+        }
+        namesBySlot[slot] = lowerCase(record, NAME);
+    }
+
+    private void unindex(long id, int slot) {
+        ByteBuffer record = records.slot(slot);
+        String category = lowerCase(record, CATEGORY);
+        TreeMap<Long, Integer> members = slotsByCategory.get(category);
+        if (members != null) {
+            members.remove(id);
+            if (members.isEmpty()) {
+                slotsByCategory.remove(category);
+            }
+        }
+        idsByChangeSeq.remove(record.getLong(CHANGE_SEQ));
+    }
+
+    private void putUser(User user) {
+        User previous = usersById.put(user.getId(), user);
+        if (previous != null) {
+            userIdsByUsername.remove(previous.getUsername());
+            userIdsByEmail.remove(previous.getEmail());
+        }
+        userIdsByUsername.put(user.getUsername(), user.getId());
+        userIdsByEmail.put(user.getEmail(), user.getId());
+        nextUserId.accumulateAndGet(user.getId() + 1, Math::max);
+    }
+
+    private List<Sweet> decodeAll(Collection<Integer> slots) {
+        List<Sweet> sweets = new ArrayList<>(slots.size());
+        for (int slot : slots) {
+            sweets.add(decode(records.slot(slot)));
+        }
+        return sweets;
+    }
+
+    // ---- sweet records
+
+    private static void encode(ByteBuffer record, Sweet sweet) {
+        BigDecimal price = sweet.getPrice();
+        record.put(STATUS, LIVE)
+            .putLong(ID, sweet.getId())
+            .putLong(CHANGE_SEQ, sweet.getChangeSeq() != null ? sweet.getChangeSeq() : 0)
+            .putLong(PRICE_UNSCALED, price.unscaledValue().longValueExact())
+            .put(PRICE_SCALE, (byte) price.scale())
+            .putInt(QUANTITY, sweet.getQuantity() != null ? sweet.getQuantity() : NULL_INT)
+            .putInt(REORDER_LEVEL, sweet.getReorderLevel() != null ? sweet.getReorderLevel() : NULL_INT);
+        putString(record, NAME, NAME_BYTES, sweet.getName());
+        putString(record, CATEGORY, CATEGORY_BYTES, sweet.getCategory());
+    }
+
+    private Sweet decode(ByteBuffer record) {
+        long id = record.getLong(ID);
+        int quantity = record.getInt(QUANTITY);
+        int reorderLevel = record.getInt(REORDER_LEVEL);
+        long changeSeq = record.getLong(CHANGE_SEQ);
+        return new Sweet(id, string(record, NAME), string(record, CATEGORY),
+            BigDecimal.valueOf(record.getLong(PRICE_UNSCALED), record.get(PRICE_SCALE)),
+            quantity == NULL_INT ? null : quantity, descriptions.get(id),
+            reorderLevel == NULL_INT ? null : reorderLevel, changeSeq > 0 ? changeSeq : null);
+    }
+
+    private static void putString(ByteBuffer record, int offset, int maxBytes, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxBytes) {
+            throw new IllegalArgumentException("Value too long for kiosk storage (" + bytes.length + " > " + maxBytes + " bytes)");
+        }
+        record.putShort(offset, (short) bytes.length).put(offset + 2, bytes);
+    }
+
+    private static String string(ByteBuffer record, int offset) {
+        byte[] bytes = new byte[record.getShort(offset)];
+        record.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Lower-cased field; ASCII, the usual case, skips UTF-8 decoding. */
+    private static String lowerCase(ByteBuffer record, int offset) {
+        byte[] bytes = new byte[record.getShort(offset)];
+        record.get(offset + 2, bytes);
+        for (int i = 0; i < bytes.length; i++) {
+            byte b = bytes[i];
+            if (b < 0) {
+                return new String(bytes, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT);
+            }
+            if (b >= 'A' && b <= 'Z') {
+                bytes[i] = (byte) (b + ('a' - 'A'));
+            }
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    // ---- variable-length values: [int length or -1][UTF-8 bytes]
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes == null ? -1 : bytes.length);
+        if (bytes != null) {
+            buffer.put(bytes);
+        }
+    }
+
+    private static String string(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encodeUser(User user) {
+        List<byte[]> fields = new ArrayList<>();
+        fields.add(bytes(user.getUsername()));
+        fields.add(bytes(user.getEmail()));
+        fields.add(bytes(user.getPassword()));
+        user.getRoles().forEach(role -> fields.add(bytes(role)));
+        int size = 8 + 4;
+        for (byte[] field : fields) {
+            size += 4 + field.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size).putLong(user.getId()).putInt(user.getRoles().size());
+        fields.forEach(field -> putBytes(buffer, field));
+        return buffer.array();
+    }
+
+    private static User decodeUser(ByteBuffer buffer) {
+        User user = new User();
+        user.setId(buffer.getLong());
+        int roles = buffer.getInt();
+        user.setUsername(string(buffer));
+        user.setEmail(string(buffer));
+        user.setPassword(string(buffer));
+        Set<String> roleSet = new HashSet<>();
+        for (int i = 0; i < roles; i++) {
+            roleSet.add(string(buffer));
+        }
+        user.setRoles(roleSet);
+        return user;
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(), new HashSet<>(user.getRoles()));
+    }
+
+    // ---- snapshots
+
+    private void writeDescriptions() throws IOException {
+        writeSnapshot("descriptions.dat", out -> {
+            out.writeInt(descriptions.size());
+            for (Map.Entry<Long, String> entry : descriptions.entrySet()) {
+                out.writeLong(entry.getKey());
+                byte[] bytes = bytes(entry.getValue());
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        });
+    }
+
+    private void readDescriptions() throws IOException {
+        readSnapshot("descriptions.dat", in -> {
+            for (int i = in.readInt(); i > 0; i--) {
+                long id = in.readLong();
+                byte[] bytes = in.readNBytes(in.readInt());
+                descriptions.put(id, new String(bytes, StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    private void writeUsers() throws IOException {
+        writeSnapshot("users.dat", out -> {
+            out.writeInt(usersById.size());
+            for (User user : usersById.values()) {
+                byte[] bytes = encodeUser(user);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        });
+    }
+
+    private void readUsers() throws IOException {
+        readSnapshot("users.dat", in -> {
+            for (int i = in.readInt(); i > 0; i--) {
+                putUser(decodeUser(ByteBuffer.wrap(in.readNBytes(in.readInt()))));
+            }
+        });
+    }
+
+    private interface SnapshotWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private interface SnapshotReader {
+        void read(DataInputStream in) throws IOException;
+    }
+
+    private void writeSnapshot(String name, SnapshotWriter writer) throws IOException {
+        Path tmp = dir.resolve(name + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            writer.write(out);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, dir.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void readSnapshot(String name, SnapshotReader reader) throws IOException {
+        Path path = dir.resolve(name);
+        if (Files.exists(path)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                reader.read(in);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdownNow();
+        compact();
+        changeLog.close();
+        records.close();
+    }
+}
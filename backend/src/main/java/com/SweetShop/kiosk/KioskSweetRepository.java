@@ -0,0 +1,239 @@
+package com.sweetshop.kiosk;
+
+import com.sweetshop.model.Sweet;
+import com.sweetshop.model.SweetTombstone;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.repository.SweetTombstoneRepository;
+import com.sweetshop.sync.ChangeSequence;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/** {@link SweetRepository} over the {@link KioskStore}; deletes still write tombstones to the database. */
+public class KioskSweetRepository extends KioskRepositorySupport<Sweet> implements SweetRepository {
+
+    private record Key(long id) {
+    }
+
+    @Autowired
+    private KioskStore store;
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private SweetTombstoneRepository sweetTombstoneRepository;
+
+    private KioskTransactions transactions;
+
+    @PostConstruct
+    void init() {
+        transactions = new KioskTransactions(store);
+        changeSequence.observe(store.maxChangeSeq());
+    }
+
+    @Override
+    protected Long idOf(Sweet sweet) {
+        return sweet.getId();
+    }
+
+    @Override
+    public <S extends Sweet> S save(S sweet) {
+        if (sweet.getId() == null) {
+            sweet.setId(store.allocateSweetId());
+        }
+        sweet.setChangeSeq(changeSequence.next());
+        Sweet copy = copy(sweet);
+        transactions.write(new KioskStore.PutSweet(copy), new Key(copy.getId()), copy);
+        return sweet;
+    }
+
+    @Override
+    public Optional<Sweet> findById(Long id) {
+        return Optional.ofNullable(transactions.read(new Key(id), key -> store.sweet(key.id()).orElse(null))).map(KioskSweetRepository::copy);
+    }
+
+    @Override
+    public Optional<Sweet> findByIdForUpdate(Long id) {
+        transactions.lockSweet(id);
+        return findById(id);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        if (findById(id).isEmpty()) {
+            return;
+        }
+        transactions.write(new KioskStore.DeleteSweet(id), new Key(id), null);
+        sweetTombstoneRepository.save(new SweetTombstone(id, changeSequence.next(), Instant.now()));
+    }
+
+    @Override
+    public List<Sweet> findAll() {
+        return store.sweets();
+    }
+
+    @Override
+    public long count() {
+        return store.sweetCount();
+    }
+
+    @Override
+    public List<Sweet> findByNameContainingIgnoreCase(String name) {
+        return store.sweetsMatching(name, null);
+    }
+
+    @Override
+    public List<Sweet> findByCategoryIgnoreCase(String category) {
+        return store.sweetsInCategory(category);
+    }
+
+    @Override
+    public List<Sweet> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice) {
+        return store.sweets().stream()
+            .filter(sweet -> sweet.getPrice().compareTo(minPrice) >= 0 && sweet.getPrice().compareTo(maxPrice) <= 0)
+            .toList();
+    }
+
+    @Override
+    public List<Sweet> findByNameContainingIgnoreCaseOrCategoryContainingIgnoreCase(String name, String category) {
+        return store.sweetsMatching(name, category);
+    }
+
+    @Override
+    public List<Sweet> searchSweets(String name, String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        List<Sweet> candidates = category != null ? store.sweetsInCategory(category)
+            : name != null ? store.sweetsMatching(name, null)
+            : store.sweets();
+        String fragment = name == null ? null : name.toLowerCase(Locale.ROOT);
+        return candidates.stream()
+            .filter(sweet -> fragment == null || sweet.getName().toLowerCase(Locale.ROOT).contains(fragment))
+            .filter(sweet -> minPrice == null || sweet.getPrice().compareTo(minPrice) >= 0)
+            .filter(sweet -> maxPrice == null || sweet.getPrice().compareTo(maxPrice) <= 0)
+            .toList();
+    }
+
+    @Override
+    public List<Sweet> findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(Long since, Long until, Pageable pageable) {
+        return store.sweetsChanged(since, until, pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Sweet> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable) {
+        return store.sweetsAfter(id, pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Long> findIdsForBulk(String name, String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        return searchSweets(name, category, minPrice, maxPrice).stream().map(Sweet::getId).sorted().toList();
+    }
+
+    @Override
+    public List<Object[]> searchFields(List<String> fields, String name, String category,
+                                       BigDecimal minPrice, BigDecimal maxPrice) {
+        for (String field : fields) {
+            if (!FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown sweet field: " + field);
+            }
+        }
+        return searchSweets(name, category, minPrice, maxPrice).stream()
+            .sorted(Comparator.comparing(Sweet::getId))
+            .map(sweet -> fields.stream().map(field -> field(sweet, field)).toArray())
+            .toList();
+    }
+
+    private static Object field(Sweet sweet, String field) {
+        return switch (field) {
+            case "id" -> sweet.getId();
+            case "name" -> sweet.getName();
+            case "category" -> sweet.getCategory();
+            case "price" -> sweet.getPrice();
+            case "quantity" -> sweet.getQuantity();
+            case "description" -> sweet.getDescription();
+            case "reorderLevel" -> sweet.getReorderLevel();
+            default -> sweet.getChangeSeq();
+        };
+    }
+
+    @Override
+    public int adjustPrices(List<Long> ids, BigDecimal factor, BigDecimal delta, long firstSeq, long fromId) {
+        return bulkPut(ids, firstSeq, fromId, sweet -> {
+            BigDecimal price = sweet.getPrice().multiply(factor).add(delta);
+            if (price.signum() < 0) {
+                return false;
+            }
+            sweet.setPrice(price.setScale(2, RoundingMode.HALF_UP));
+            return true;
+        });
+    }
+
+    @Override
+    public int setQuantities(List<Long> ids, int quantity, long firstSeq, long fromId) {
+        return bulkPut(ids, firstSeq, fromId, sweet -> {
+            sweet.setQuantity(quantity);
+            return true;
+        });
+    }
+
+    @Override
+    public int addQuantities(List<Long> ids, int delta, long firstSeq, long fromId) {
+        return bulkPut(ids, firstSeq, fromId, sweet -> {
+            if (sweet.getQuantity() + delta < 0) {
+                return false;
+            }
+            sweet.setQuantity(sweet.getQuantity() + delta);
+            return true;
+        });
+    }
+
+    @Override
+    public int insertTombstones(List<Long> ids, long firstSeq, long fromId, Instant deletedAt) {
+        List<SweetTombstone> tombstones = ids.stream()
+            .filter(id -> findById(id).isPresent())
+            .map(id -> new SweetTombstone(id, firstSeq + id - fromId, deletedAt))
+            .toList();
+        sweetTombstoneRepository.saveAll(tombstones);
+        return tombstones.size();
+    }
+
+    @Override
+    public int deleteByIdIn(List<Long> ids) {
+        int deleted = 0;
+        for (Long id : ids) {
+            if (findById(id).isPresent()) {
+                transactions.write(new KioskStore.DeleteSweet(id), new Key(id), null);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /** Applies {@code change} to a copy of each sweet; those it returns true for are written with their chunk sequence. */
+    private int bulkPut(List<Long> ids, long firstSeq, long fromId, Predicate<Sweet> change) {
+        int changed = 0;
+        for (Long id : ids) {
+            Sweet sweet = findById(id).orElse(null);
+            if (sweet == null || !change.test(sweet)) {
+                continue;
+            }
+            sweet.setChangeSeq(firstSeq + id - fromId);
+            transactions.write(new KioskStore.PutSweet(sweet), new Key(id), sweet);
+            changed++;
+        }
+        return changed;
+    }
+
+    private static Sweet copy(Sweet sweet) {
+        return new Sweet(sweet.getId(), sweet.getName(), sweet.getCategory(), sweet.getPrice(), sweet.getQuantity(),
+            sweet.getDescription(), sweet.getReorderLevel(), sweet.getChangeSeq());
+    }
+}
@@ -0,0 +1,96 @@
+package com.sweetshop.kiosk;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Joins kiosk writes to the surrounding Spring transaction. Mutations are staged per
+ * transaction and committed to the {@link KioskStore} in {@code beforeCommit}, so they are
+ * durable before the transaction reports success and are dropped on rollback. Sweet locks
+ * taken by {@code findByIdForUpdate} are held until the transaction completes. Without a
+ * transaction every write commits on its own.
+ */
+final class KioskTransactions {
+
+    private final KioskStore store;
+
+    KioskTransactions(KioskStore store) {
+        this.store = store;
+    }
+
+    private final class State implements TransactionSynchronization {
+        final List<KioskStore.Mutation> mutations = new ArrayList<>();
+        final Map<Object, Object> staged = new HashMap<>();
+        final List<ReentrantLock> locks = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!mutations.isEmpty()) {
+                store.commit(mutations);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(KioskTransactions.this);
+            locks.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    /**
+     * Stages a mutation; {@code key} and {@code value} record the entity's new state (null
+     * when deleted) for reads later in the same transaction.
+     */
+    void write(KioskStore.Mutation mutation, Object key, Object value) {
+        State state = state();
+        if (state == null) {
+            store.commit(List.of(mutation));
+        } else {
+            state.mutations.add(mutation);
+            state.staged.put(key, value);
+        }
+    }
+
+    /** The entity as written earlier in this transaction, or {@code committed} applied to the key. */
+    @SuppressWarnings("unchecked")
+    <K, V> V read(K key, Function<K, V> committed) {
+        State state = state();
+        if (state != null && state.staged.containsKey(key)) {
+            return (V) state.staged.get(key);
+        }
+        return committed.apply(key);
+    }
+
+    /** Serializes stock changes of one sweet until the current transaction completes. */
+    void lockSweet(long id) {
+        State state = state();
+        if (state == null) {
+            return;
+        }
+        ReentrantLock lock = store.sweetLock(id);
+        if (!lock.isHeldByCurrentThread()) {
+            lock.lock();
+            state.locks.add(lock);
+        }
+    }
+
+    private State state() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        State state = (State) TransactionSynchronizationManager.getResource(this);
+        if (state == null) {
+            state = new State();
+            TransactionSynchronizationManager.bindResource(this, state);
+            TransactionSynchronizationManager.registerSynchronization(state);
+        }
+        return state;
+    }
+}
@@ -0,0 +1,93 @@
+package com.sweetshop.kiosk;
+
+import com.sweetshop.model.User;
+import com.sweetshop.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+/** {@link UserRepository} over the {@link KioskStore}. Username and email stay unique, as in the database. */
+public class KioskUserRepository extends KioskRepositorySupport<User> implements UserRepository {
+
+    private record Key(long id) {
+    }
+
+    @Autowired
+    private KioskStore store;
+
+    private KioskTransactions transactions;
+
+    @PostConstruct
+    void init() {
+        transactions = new KioskTransactions(store);
+    }
+
+    @Override
+    protected Long idOf(User user) {
+        return user.getId();
+    }
+
+    @Override
+    public <S extends User> S save(S user) {
+        if (user.getUsername() == null || user.getEmail() == null || user.getPassword() == null) {
+            throw new DataIntegrityViolationException("Username, email and password are required");
+        }
+        if (user.getId() == null) {
+            user.setId(store.allocateUserId());
+        }
+        User copy = copy(user);
+        transactions.write(new KioskStore.PutUser(copy), new Key(copy.getId()), copy);
+        return user;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return Optional.ofNullable(transactions.read(new Key(id), key -> store.user(key.id()).orElse(null))).map(KioskUserRepository::copy);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        if (findById(id).isPresent()) {
+            transactions.write(new KioskStore.DeleteUser(id), new Key(id), null);
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        return store.users();
+    }
+
+    @Override
+    public long count() {
+        return store.users().size();
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return store.userByUsername(username);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return store.userByEmail(email);
+    }
+
+    @Override
+    public Boolean existsByUsername(String username) {
+        return store.userByUsername(username).isPresent();
+    }
+
+    @Override
+    public Boolean existsByEmail(String email) {
+        return store.userByEmail(email).isPresent();
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getUsername(), user.getEmail(), user.getPassword(),
+            new HashSet<>(user.getRoles() == null ? List.of() : user.getRoles()));
+    }
+}
@@ -0,0 +1,85 @@
+package com.sweetshop.kiosk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory-mapped file of fixed-width records, mapped in segments so it can grow without
+ * remapping what is already mapped. A small header holds the number of slots ever used
+ * and the log sequence number up to which the records are known to be on disk.
+ * Not thread-safe; {@link KioskStore} serializes access.
+ */
+final class RecordFile implements AutoCloseable {
+
+    static final int RECORD_SIZE = 512;
+    private static final int HEADER_SIZE = 512;
+    private static final int SEGMENT_RECORDS = 64 * 1024;
+    private static final long SEGMENT_BYTES = (long) SEGMENT_RECORDS * RECORD_SIZE;
+    private static final int MAGIC = 0x53574b31; // "SWK1"
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    RecordFile(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean fresh = channel.size() == 0;
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (fresh) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, RECORD_SIZE);
+        } else if (header.getInt(0) != MAGIC || header.getInt(4) != RECORD_SIZE) {
+            throw new IOException("Not a kiosk record file or wrong record size: " + path);
+        }
+        ensureCapacity(slotCount());
+    }
+
+    int slotCount() {
+        return header.getInt(8);
+    }
+
+    long checkpointLsn() {
+        return header.getLong(16);
+    }
+
+    void checkpointLsn(long lsn) {
+        header.putLong(16, lsn);
+    }
+
+    /** Index of a never-used slot, growing the file by a segment when needed. */
+    int appendSlot() throws IOException {
+        int slot = slotCount();
+        ensureCapacity(slot + 1);
+        header.putInt(8, slot + 1);
+        return slot;
+    }
+
+    /** View of one record; position 0 is the record's first byte. */
+    ByteBuffer slot(int slot) {
+        return segments.get(slot / SEGMENT_RECORDS).slice((slot % SEGMENT_RECORDS) * RECORD_SIZE, RECORD_SIZE);
+    }
+
+    private void ensureCapacity(int slots) throws IOException {
+        while ((long) segments.size() * SEGMENT_RECORDS < slots) {
+            long offset = HEADER_SIZE + segments.size() * SEGMENT_BYTES;
+            segments.add(channel.map(FileChannel.MapMode.READ_WRITE, offset, SEGMENT_BYTES));
+        }
+    }
+
+    void force() {
+        segments.forEach(MappedByteBuffer::force);
+        header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
@@ -0,0 +1,60 @@
+package com.sweetshop.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application meters that the HTTP server and connection pool instrumentation don't cover.
+ *
+ * Meters are created once up front; recording is a counter increment or a timer sample
+ * into Micrometer's lock-free histograms, so nothing here allocates or locks per request.
+ */
+@Component
+public class SweetShopMetrics {
+
+    public enum PurchaseOutcome { OK, INSUFFICIENT_STOCK, NOT_FOUND }
+
+    public enum ErrorBranch { VALIDATION, BAD_CREDENTIALS, ACCESS_DENIED, RUNTIME, UNEXPECTED }
+
+    private final Map<PurchaseOutcome, Counter> purchases = new EnumMap<>(PurchaseOutcome.class);
+    private final Map<ErrorBranch, Counter> errors = new EnumMap<>(ErrorBranch.class);
+    private final Timer jwtFilter;
+
+    public SweetShopMetrics(MeterRegistry registry) {
+        for (PurchaseOutcome outcome : PurchaseOutcome.values()) {
+            purchases.put(outcome, Counter.builder("sweetshop.purchases")
+                .description("Purchase attempts by outcome")
+                .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                .register(registry));
+        }
+        for (ErrorBranch branch : ErrorBranch.values()) {
+            errors.put(branch, Counter.builder("sweetshop.errors")
+                .description("Exceptions handled by GlobalExceptionHandler, by handler branch")
+                .tag("branch", branch.name().toLowerCase(Locale.ROOT))
+                .register(registry));
+        }
+        jwtFilter = Timer.builder("sweetshop.jwt.filter")
+            .description("Time spent authenticating the bearer token in JwtAuthenticationFilter")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+    }
+
+    public void recordPurchase(PurchaseOutcome outcome) {
+        purchases.get(outcome).increment();
+    }
+
+    public void recordError(ErrorBranch branch) {
+        errors.get(branch).increment();
+    }
+
+    public void recordJwtFilter(long nanos) {
+        jwtFilter.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
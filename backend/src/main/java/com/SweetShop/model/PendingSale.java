@@ -0,0 +1,40 @@
+package com.sweetshop.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A sale committed together with its stock update but not yet in {@code sales}. Written and
+ * removed only by {@link com.sweetshop.sales.SalesLedger}; rows left after a crash are
+ * written on the next start. Columns are loose like {@link SaleDeadLetter} so a row that
+ * breaks a {@code sales} constraint still gets here.
+ */
+@Entity
+@Table(name = "sales_pending")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingSale {
+
+    @Id
+    private String saleId;
+
+    private Long sweetId;
+
+    private String category;
+
+    private String username;
+
+    private Integer quantity;
+
+    private BigDecimal unitPrice;
+
+    private Instant soldAt;
+}
@@ -0,0 +1,50 @@
+package com.sweetshop.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One completed purchase. Rows are only ever inserted, by {@link com.sweetshop.sales.SalesLedger}.
+ */
+@Entity
+@Table(name = "sales", indexes = {
+    @Index(name = "idx_sales_sold_at", columnList = "soldAt, id"),
+    @Index(name = "idx_sales_sweet_sold_at", columnList = "sweetId, soldAt, id"),
+    // newest first per user, covering PurchaseHistoryItem so history pages never touch the rows
+    @Index(name = "idx_sales_user_history", columnList = "username, soldAt DESC, id DESC, sweetId, quantity, unitPrice")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Sale {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 36, updatable = false)
+    private String saleId;
+
+    @Column(nullable = false, updatable = false)
+    private Long sweetId;
+
+    @Column(nullable = false, updatable = false)
+    private String category;
+
+    @Column(nullable = false, updatable = false)
+    private String username;
+
+    @Column(nullable = false, updatable = false)
+    private Integer quantity;
+
+    @Column(nullable = false, precision = 10, scale = 2, updatable = false)
+    private BigDecimal unitPrice;
+
+    @Column(nullable = false, updatable = false)
+    private Instant soldAt;
+}
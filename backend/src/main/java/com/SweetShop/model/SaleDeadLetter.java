@@ -0,0 +1,45 @@
+package com.sweetshop.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A committed sale the ledger could not insert into {@code sales}, e.g. because it breaks
+ * a constraint. Columns are loose on purpose so the row itself always fits; fix it and
+ * copy it over by hand.
+ */
+@Entity
+@Table(name = "sales_dead_letters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String saleId;
+
+    private Long sweetId;
+
+    private String category;
+
+    private String username;
+
+    private Integer quantity;
+
+    private BigDecimal unitPrice;
+
+    private Instant soldAt;
+
+    @Column(length = 1000)
+    private String error;
+
+    private Instant failedAt;
+}
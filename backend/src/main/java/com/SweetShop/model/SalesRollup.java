@@ -0,0 +1,43 @@
+package com.sweetshop.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Persisted hour/day aggregate of the sales ledger, written by
+ * {@link com.sweetshop.analytics.SalesAnalytics}. A row carries either a sweet id (units and
+ * revenue of that sweet) or a category (revenue of that category) for one bucket.
+ */
+@Entity
+@Table(name = "sales_rollups", indexes = {
+    @Index(name = "idx_sales_rollups_bucket", columnList = "granularity, bucketStart")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 10)
+    private String granularity;
+
+    @Column(nullable = false)
+    private Instant bucketStart;
+
+    private Long sweetId;
+
+    private String category;
+
+    @Column(nullable = false)
+    private Long units;
+
+    @Column(nullable = false)
+    private Long revenueCents;
+}
@@ -8,7 +8,8 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "sweets")
+@Table(name = "sweets", indexes = @Index(name = "idx_sweets_change_seq", columnList = "changeSeq", unique = true))
+@EntityListeners(SweetChangeListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -32,4 +33,14 @@ public class Sweet {
     
     @Column(length = 1000)
     private String description;
+
+    /** Alert when quantity drops below this; null disables low-stock alerts. */
+    private Integer reorderLevel;
+
+    /** Position in the change feed; bumped on every insert and update. */
+    private Long changeSeq;
+
+    public Sweet(Long id, String name, String category, BigDecimal price, Integer quantity, String description) {
+        this(id, name, category, price, quantity, description, null, null);
+    }
 }
\ No newline at end of file
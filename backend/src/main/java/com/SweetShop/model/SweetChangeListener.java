@@ -0,0 +1,37 @@
+package com.sweetshop.model;
+
+import com.sweetshop.sync.ChangeSequence;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreRemove;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * Stamps every inserted or updated {@link Sweet} with a new change sequence and records a
+ * {@link SweetTombstone} for deletes, in the same transaction. Instantiated by Hibernate
+ * through Spring, so it can be injected.
+ */
+public class SweetChangeListener {
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PrePersist
+    @PreUpdate
+    void stamp(Sweet sweet) {
+        sweet.setChangeSeq(changeSequence.next());
+    }
+
+    @PreRemove
+    void tombstone(Sweet sweet) {
+        jdbcTemplate.update("INSERT INTO sweet_tombstones (sweet_id, change_seq, deleted_at) VALUES (?, ?, ?)",
+            sweet.getId(), changeSequence.next(), Timestamp.from(Instant.now()));
+    }
+}
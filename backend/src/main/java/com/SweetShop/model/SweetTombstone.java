@@ -0,0 +1,26 @@
+package com.sweetshop.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/** Marks a deleted sweet in the change feed. Written by {@link SweetChangeListener}, never removed. */
+@Entity
+@Table(name = "sweet_tombstones", indexes = @Index(name = "idx_sweet_tombstones_change_seq", columnList = "changeSeq", unique = true))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweetTombstone {
+
+    @Id
+    private Long sweetId;
+
+    @Column(nullable = false)
+    private Long changeSeq;
+
+    @Column(nullable = false)
+    private Instant deletedAt;
+}
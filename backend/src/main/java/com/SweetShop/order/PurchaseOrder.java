@@ -0,0 +1,108 @@
+package com.sweetshop.order;
+
+import com.sweetshop.metrics.SweetShopMetrics.PurchaseOutcome;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A purchase waiting in, or decided by, {@link PurchaseShards}. The shard records its
+ * decision inside the batch transaction; readers only see it once {@link #publish()} runs
+ * after the commit.
+ */
+public class PurchaseOrder {
+
+    public enum Status { PENDING, COMPLETED, REJECTED }
+
+    private final String id;
+    private final long sweetId;
+    private final int quantity;
+    private final String username;
+    private final Instant createdAt = Instant.now();
+    private final CompletableFuture<PurchaseOrder> done = new CompletableFuture<>();
+
+    private Status decision;
+    private PurchaseOutcome outcome;
+    private String decisionMessage;
+    private Integer decisionRemaining;
+
+    private volatile Status status = Status.PENDING;
+    private volatile String message;
+    private volatile Integer remaining;
+
+    public PurchaseOrder(String id, long sweetId, int quantity, String username) {
+        this.id = id;
+        this.sweetId = sweetId;
+        this.quantity = quantity;
+        this.username = username;
+    }
+
+    public void accept(int remainingStock) {
+        decision = Status.COMPLETED;
+        outcome = PurchaseOutcome.OK;
+        decisionMessage = "Purchase completed successfully";
+        decisionRemaining = remainingStock;
+    }
+
+    public void reject(PurchaseOutcome reason, String message) {
+        decision = Status.REJECTED;
+        outcome = reason;
+        decisionMessage = message;
+        decisionRemaining = null;
+    }
+
+    void publish() {
+        message = decisionMessage;
+        remaining = decisionRemaining;
+        status = decision;
+        done.complete(this);
+    }
+
+    /** Rejects the order without a purchase outcome, e.g. when its batch did not commit. */
+    void fail(String reason) {
+        reject(null, reason);
+        publish();
+    }
+
+    /** The decision made inside the batch, or null if there is none. */
+    PurchaseOutcome outcome() {
+        return outcome;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getSweetId() {
+        return sweetId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Integer getRemaining() {
+        return remaining;
+    }
+
+    /** Completes once the order has been decided and the decision committed. */
+    public CompletableFuture<PurchaseOrder> done() {
+        return done;
+    }
+}
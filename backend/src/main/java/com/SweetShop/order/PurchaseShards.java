@@ -0,0 +1,252 @@
+package com.sweetshop.order;
+
+import com.sweetshop.metrics.SweetShopMetrics;
+import com.sweetshop.service.SweetService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asynchronous purchases ({@code sweetshop.purchase.mode=async}).
+ *
+ * Sweets are partitioned by id across {@code sweetshop.purchase.shards} writer threads, so
+ * every purchase of a sweet is applied by the same thread and buyers never wait on each
+ * other's row locks. {@link #submit} puts the order on its shard's bounded queue and returns
+ * at once; a full queue rejects the purchase instead of blocking the request. Each shard
+ * drains up to {@code sweetshop.purchase.batch-size} orders and applies them in one
+ * transaction with one lock and one update per sweet ({@link SweetService#purchaseBatch}).
+ * If that transaction fails, each sweet's orders are retried in a transaction of their own, so
+ * a lock timeout or ledger failure on one sweet only rejects that sweet's orders.
+ *
+ * Decided orders stay available to {@link #find} until {@code sweetshop.purchase.retained-orders}
+ * newer ones have been submitted. Graceful shutdown drains the queues.
+ */
+@Component
+@ConditionalOnProperty(name = "sweetshop.purchase.mode", havingValue = "async")
+public class PurchaseShards implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseShards.class);
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private SweetShopMetrics metrics;
+
+    @Value("${sweetshop.purchase.shards:0}")
+    private int shardCount;
+
+    @Value("${sweetshop.purchase.queue-capacity:4096}")
+    private int capacity;
+
+    @Value("${sweetshop.purchase.batch-size:256}")
+    private int batchSize;
+
+    @Value("${sweetshop.purchase.retained-orders:100000}")
+    private int retainedOrders;
+
+    private final ReentrantLock ordersLock = new ReentrantLock();
+    private Map<String, PurchaseOrder> orders;
+    private Shard[] shards;
+    private Counter rejected;
+    private Counter batches;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    void init() {
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(i);
+        }
+        orders = new LinkedHashMap<>(1024, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PurchaseOrder> eldest) {
+                return size() > retainedOrders;
+            }
+        };
+    }
+
+    @Autowired
+    void registerMetrics(MeterRegistry registry) {
+        Gauge.builder("sweetshop.orders.queued", this, PurchaseShards::queued)
+            .description("Purchases waiting for their shard")
+            .register(registry);
+        rejected = registry.counter("sweetshop.orders.rejected");
+        batches = registry.counter("sweetshop.orders.batches");
+    }
+
+    /** Queues a purchase for the current user. */
+    public PurchaseOrder submit(long sweetId, int quantity) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication != null ? authentication.getName() : "anonymous";
+        if (!running) {
+            throw new RuntimeException("Purchases are not being accepted right now");
+        }
+
+        PurchaseOrder order = new PurchaseOrder(UUID.randomUUID().toString(), sweetId, quantity, username);
+        ordersLock.lock();
+        try {
+            orders.put(order.getId(), order);
+        } finally {
+            ordersLock.unlock();
+        }
+        if (!shards[(int) Math.floorMod(sweetId, (long) shards.length)].queue.offer(order)) {
+            ordersLock.lock();
+            try {
+                orders.remove(order.getId());
+            } finally {
+                ordersLock.unlock();
+            }
+            rejected.increment();
+            throw new RuntimeException("Purchase queue is full, please retry");
+        }
+        return order;
+    }
+
+    public PurchaseOrder find(String orderId) {
+        ordersLock.lock();
+        try {
+            return orders.get(orderId);
+        } finally {
+            ordersLock.unlock();
+        }
+    }
+
+    private int queued() {
+        int queued = 0;
+        for (Shard shard : shards) {
+            queued += shard.queue.size();
+        }
+        return queued;
+    }
+
+    private final class Shard {
+
+        final ArrayBlockingQueue<PurchaseOrder> queue = new ArrayBlockingQueue<>(capacity);
+        final String name;
+        Thread writer;
+
+        Shard(int index) {
+            name = "purchase-shard-" + index;
+        }
+
+        void writeLoop() {
+            List<PurchaseOrder> batch = new ArrayList<>(batchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    PurchaseOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                    batch.clear();
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        // stop() gave up waiting for the final drain
+                        log.warn("{} stopped with {} undecided purchases", name, queue.size());
+                        queue.forEach(order -> order.fail("Shop is shutting down"));
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void write(List<PurchaseOrder> batch) {
+            Map<Long, List<PurchaseOrder>> bySweet = new LinkedHashMap<>();
+            for (PurchaseOrder order : batch) {
+                bySweet.computeIfAbsent(order.getSweetId(), id -> new ArrayList<>()).add(order);
+            }
+            try {
+                sweetService.purchaseBatch(bySweet);
+            } catch (RuntimeException e) {
+                if (bySweet.size() == 1) {
+                    fail(batch, e);
+                    return;
+                }
+                // nothing of the batch committed: apply each sweet on its own so only its orders fail
+                log.warn("{}: batch of {} purchases failed, retrying each sweet: {}", name, batch.size(), e.getMessage());
+                for (List<PurchaseOrder> orders : bySweet.values()) {
+                    try {
+                        sweetService.purchaseBatch(Map.of(orders.get(0).getSweetId(), orders));
+                    } catch (RuntimeException failed) {
+                        fail(orders, failed);
+                        continue;
+                    }
+                    publish(orders);
+                }
+                return;
+            }
+            publish(batch);
+        }
+
+        private void publish(List<PurchaseOrder> orders) {
+            batches.increment();
+            for (PurchaseOrder order : orders) {
+                metrics.recordPurchase(order.outcome());
+                order.publish();
+            }
+        }
+
+        private void fail(List<PurchaseOrder> orders, RuntimeException e) {
+            log.warn("{}: {} purchases of sweet {} failed: {}", name, orders.size(), orders.get(0).getSweetId(), e.getMessage());
+            orders.forEach(order -> order.fail(e.getMessage()));
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (Shard shard : shards) {
+            shard.writer = Thread.ofPlatform().name(shard.name).daemon().start(shard::writeLoop);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            for (Shard shard : shards) {
+                shard.writer.join(10_000);
+                if (shard.writer.isAlive()) {
+                    shard.writer.interrupt();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Start before and stop after the web server, and stop before the sales ledger it feeds. */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 3072;
+    }
+}
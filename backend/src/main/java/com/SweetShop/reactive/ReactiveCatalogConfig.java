@@ -0,0 +1,77 @@
+package com.sweetshop.reactive;
+
+import com.sweetshop.security.JwtUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+
+/**
+ * Wiring for the reactive catalog read stack, active with the "reactive" profile
+ * ({@code spring.main.web-application-type=reactive}).
+ */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCatalogConfig {
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    // Tomcat is on the classpath for the servlet API; serve the reactive stack from Netty.
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public SecurityWebFilterChain reactiveSecurityFilterChain(ServerHttpSecurity http) {
+        AuthenticationWebFilter jwtFilter = new AuthenticationWebFilter(jwtAuthenticationManager());
+        jwtFilter.setServerAuthenticationConverter(exchange -> {
+            String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+            if (header == null || !header.startsWith("Bearer ")) {
+                return Mono.empty();
+            }
+            String jwt = header.substring(7);
+            return Mono.just(new UsernamePasswordAuthenticationToken(jwt, jwt));
+        });
+        jwtFilter.setSecurityContextRepository(NoOpServerSecurityContextRepository.getInstance());
+
+        return http
+            .csrf(ServerHttpSecurity.CsrfSpec::disable)
+            .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+            .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+            .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+            .authorizeExchange(exchanges -> exchanges
+                .pathMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()
+                .anyExchange().authenticated())
+            .addFilterAt(jwtFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+            .build();
+    }
+
+    // Signature and expiry are checked without a user lookup so no request blocks on JDBC.
+    private ReactiveAuthenticationManager jwtAuthenticationManager() {
+        return authentication -> Mono.fromCallable(() -> {
+                String jwt = (String) authentication.getCredentials();
+                String username = jwtUtil.extractUsername(jwt);
+                return new UsernamePasswordAuthenticationToken(username, jwt, Collections.emptyList());
+            })
+            .cast(Authentication.class)
+            .onErrorMap(e -> new BadCredentialsException("Invalid JWT token", e));
+    }
+}
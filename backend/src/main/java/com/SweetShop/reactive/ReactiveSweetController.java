@@ -0,0 +1,70 @@
+package com.sweetshop.reactive;
+
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.model.Sweet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+/**
+ * Reactive variant of the {@code SweetController} read endpoints.
+ *
+ * JSON responses keep the {@link ApiResponse} envelope of the servlet API; clients that
+ * accept {@code application/x-ndjson} get a backpressured stream of sweets instead.
+ */
+@RestController
+@RequestMapping("/api/sweets")
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSweetController {
+
+    @Autowired
+    private ReactiveSweetRepository sweetRepository;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ApiResponse>> getAllSweets() {
+        return sweetRepository.findAll()
+            .collectList()
+            .map(sweets -> ResponseEntity.ok(new ApiResponse(true, "Sweets retrieved successfully", sweets)));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Sweet> streamAllSweets() {
+        return sweetRepository.findAll();
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<ApiResponse>> getSweetById(@PathVariable Long id) {
+        return sweetRepository.findById(id)
+            .map(sweet -> ResponseEntity.ok(new ApiResponse(true, "Sweet retrieved successfully", sweet)))
+            .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ApiResponse(false, "Sweet not found with id: " + id)));
+    }
+
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ApiResponse>> searchSweets(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice) {
+        return sweetRepository.searchSweets(name, category, minPrice, maxPrice)
+            .collectList()
+            .map(sweets -> ResponseEntity.ok(new ApiResponse(true, "Search completed successfully", sweets)));
+    }
+
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Sweet> streamSearchSweets(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice) {
+        return sweetRepository.searchSweets(name, category, minPrice, maxPrice);
+    }
+}
@@ -0,0 +1,143 @@
+package com.sweetshop.reactive;
+
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Repository;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Non-blocking, in-memory view of the catalog for the reactive read stack.
+ *
+ * The snapshot is loaded from the JPA repository on the bounded elastic scheduler and
+ * swapped atomically, so request handling on the event loop never touches JDBC. Writes
+ * happen in the servlet instance, so there are no change events to follow here: the
+ * snapshot is reloaded every {@code catalog.reactive.refresh-interval} and reads can be
+ * that much plus one load behind the database.
+ *
+ * A catalog of more than {@code catalog.reactive.max-snapshot-sweets} is not held in
+ * memory; reads then query the database on the bounded elastic scheduler, paging through
+ * the catalog by id.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSweetRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveSweetRepository.class);
+
+    private static final int PAGE_SIZE = 1_000;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Value("${catalog.reactive.refresh-interval:5s}")
+    private Duration refreshInterval;
+
+    @Value("${catalog.reactive.max-snapshot-sweets:100000}")
+    private int maxSnapshotSweets;
+
+    /** Null while the catalog is too large to keep. */
+    private volatile NavigableMap<Long, Sweet> snapshot = Collections.emptyNavigableMap();
+
+    private Disposable refresher;
+
+    @PostConstruct
+    void start() {
+        // Initial load on the startup thread: a worker thread would deadlock on the bean factory lock.
+        load();
+        refresher = Flux.interval(refreshInterval, refreshInterval, Schedulers.boundedElastic())
+            .concatMap(tick -> refresh().onErrorResume(e -> {
+                log.warn("Catalog snapshot refresh failed", e);
+                return Mono.empty();
+            }))
+            .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+    }
+
+    Mono<Void> refresh() {
+        return Mono.fromRunnable(this::load)
+            .subscribeOn(Schedulers.boundedElastic())
+            .then();
+    }
+
+    private void load() {
+        List<Sweet> sweets = sweetRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, maxSnapshotSweets + 1));
+        if (sweets.size() > maxSnapshotSweets) {
+            if (snapshot != null) {
+                log.warn("Catalog has more than {} sweets (catalog.reactive.max-snapshot-sweets); reading from the database",
+                    maxSnapshotSweets);
+            }
+            snapshot = null;
+            return;
+        }
+        replace(sweets);
+    }
+
+    void replace(List<Sweet> sweets) {
+        NavigableMap<Long, Sweet> next = new TreeMap<>();
+        sweets.forEach(sweet -> next.put(sweet.getId(), sweet));
+        snapshot = Collections.unmodifiableNavigableMap(next);
+    }
+
+    public Flux<Sweet> findAll() {
+        return Flux.defer(() -> {
+            NavigableMap<Long, Sweet> sweets = snapshot;
+            return sweets != null ? Flux.fromIterable(sweets.values()) : pagesAfter(0L);
+        });
+    }
+
+    private Flux<Sweet> pagesAfter(long id) {
+        return Mono.fromCallable(() -> sweetRepository.findByIdGreaterThanOrderByIdAsc(id, PageRequest.of(0, PAGE_SIZE)))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(page -> page.size() < PAGE_SIZE
+                ? Flux.fromIterable(page)
+                : Flux.fromIterable(page).concatWith(Flux.defer(() -> pagesAfter(page.get(page.size() - 1).getId()))));
+    }
+
+    public Mono<Sweet> findById(Long id) {
+        return Mono.defer(() -> {
+            NavigableMap<Long, Sweet> sweets = snapshot;
+            return sweets != null
+                ? Mono.justOrEmpty(sweets.get(id))
+                : Mono.fromCallable(() -> sweetRepository.findById(id).orElse(null)).subscribeOn(Schedulers.boundedElastic());
+        });
+    }
+
+    public Flux<Sweet> searchSweets(String name, String category, BigDecimal minPrice, BigDecimal maxPrice) {
+        if (snapshot == null) {
+            return Mono.fromCallable(() -> sweetRepository.searchSweets(name, category, minPrice, maxPrice))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapIterable(sweets -> sweets);
+        }
+        String nameFilter = name == null ? null : name.toLowerCase(Locale.ROOT);
+        return findAll().filter(sweet ->
+            (nameFilter == null || sweet.getName().toLowerCase(Locale.ROOT).contains(nameFilter))
+                && (category == null || sweet.getCategory().equalsIgnoreCase(category))
+                && (minPrice == null || sweet.getPrice().compareTo(minPrice) >= 0)
+                && (maxPrice == null || sweet.getPrice().compareTo(maxPrice) <= 0));
+    }
+}
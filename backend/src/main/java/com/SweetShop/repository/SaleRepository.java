@@ -0,0 +1,49 @@
+package com.sweetshop.repository;
+
+import com.sweetshop.dto.PurchaseHistoryItem;
+import com.sweetshop.model.Sale;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface SaleRepository extends JpaRepository<Sale, Long> {
+
+    // Range reads go oldest first by (soldAt, id); the *After variants start strictly after a sale.
+
+    @Query("SELECT s FROM Sale s WHERE s.soldAt >= :from AND s.soldAt < :to ORDER BY s.soldAt ASC, s.id ASC")
+    List<Sale> findRange(@Param("from") Instant from, @Param("to") Instant to, Pageable pageable);
+
+    @Query("SELECT s FROM Sale s WHERE s.soldAt >= :from AND s.soldAt < :to " +
+           "AND (s.soldAt > :soldAt OR (s.soldAt = :soldAt AND s.id > :id)) ORDER BY s.soldAt ASC, s.id ASC")
+    List<Sale> findRangeAfter(@Param("from") Instant from, @Param("to") Instant to, @Param("soldAt") Instant soldAt,
+                              @Param("id") long id, Pageable pageable);
+
+    @Query("SELECT s FROM Sale s WHERE s.sweetId = :sweetId AND s.soldAt >= :from AND s.soldAt < :to " +
+           "ORDER BY s.soldAt ASC, s.id ASC")
+    List<Sale> findSweetRange(@Param("sweetId") Long sweetId, @Param("from") Instant from, @Param("to") Instant to,
+                              Pageable pageable);
+
+    @Query("SELECT s FROM Sale s WHERE s.sweetId = :sweetId AND s.soldAt >= :from AND s.soldAt < :to " +
+           "AND (s.soldAt > :soldAt OR (s.soldAt = :soldAt AND s.id > :id)) ORDER BY s.soldAt ASC, s.id ASC")
+    List<Sale> findSweetRangeAfter(@Param("sweetId") Long sweetId, @Param("from") Instant from, @Param("to") Instant to,
+                                   @Param("soldAt") Instant soldAt, @Param("id") long id, Pageable pageable);
+
+    // Purchase history reads only columns of idx_sales_user_history, in its order.
+
+    @Query("SELECT new com.sweetshop.dto.PurchaseHistoryItem(s.id, s.sweetId, s.quantity, s.unitPrice, s.soldAt) " +
+           "FROM Sale s WHERE s.username = :username ORDER BY s.soldAt DESC, s.id DESC")
+    List<PurchaseHistoryItem> findHistory(@Param("username") String username, Pageable pageable);
+
+    /** The page after the purchase {@code (soldAt, id)}, i.e. strictly older in history order. */
+    @Query("SELECT new com.sweetshop.dto.PurchaseHistoryItem(s.id, s.sweetId, s.quantity, s.unitPrice, s.soldAt) " +
+           "FROM Sale s WHERE s.username = :username AND (s.soldAt < :soldAt OR (s.soldAt = :soldAt AND s.id < :id)) " +
+           "ORDER BY s.soldAt DESC, s.id DESC")
+    List<PurchaseHistoryItem> findHistoryBefore(@Param("username") String username, @Param("soldAt") Instant soldAt,
+                                                @Param("id") long id, Pageable pageable);
+}
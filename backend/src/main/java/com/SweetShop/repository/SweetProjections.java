@@ -0,0 +1,21 @@
+package com.sweetshop.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Column projections for list screens that need only some of a sweet's fields. Rows are
+ * plain values, not managed entities, so nothing else is selected or dirty-checked.
+ */
+public interface SweetProjections {
+
+    /** Field names a projection can select, in the order of the full representation. */
+    List<String> FIELDS = List.of("id", "name", "category", "price", "quantity", "description", "reorderLevel", "changeSeq");
+
+    /**
+     * The given fields of the sweets matching the search filters (null filters match all),
+     * ordered by id, as one array per sweet with values in the order of {@code fields}.
+     */
+    List<Object[]> searchFields(List<String> fields, String name, String category,
+                                BigDecimal minPrice, BigDecimal maxPrice);
+}
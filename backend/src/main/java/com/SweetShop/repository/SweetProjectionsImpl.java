@@ -0,0 +1,53 @@
+package com.sweetshop.repository;
+
+import com.sweetshop.model.Sweet;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/** Builds the select list from the requested fields; the filters match {@link SweetRepository#searchSweets}. */
+class SweetProjectionsImpl implements SweetProjections {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Object[]> searchFields(List<String> fields, String name, String category,
+                                       BigDecimal minPrice, BigDecimal maxPrice) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Sweet> sweet = query.from(Sweet.class);
+
+        List<Selection<?>> columns = new ArrayList<>(fields.size());
+        for (String field : fields) {
+            if (!FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown sweet field: " + field);
+            }
+            columns.add(sweet.get(field));
+        }
+        List<Predicate> filters = new ArrayList<>();
+        if (name != null) {
+            filters.add(cb.like(cb.lower(sweet.get("name")), "%" + name.toLowerCase(Locale.ROOT) + "%"));
+        }
+        if (category != null) {
+            filters.add(cb.equal(cb.lower(sweet.get("category")), category.toLowerCase(Locale.ROOT)));
+        }
+        if (minPrice != null) {
+            filters.add(cb.greaterThanOrEqualTo(sweet.get("price"), minPrice));
+        }
+        if (maxPrice != null) {
+            filters.add(cb.lessThanOrEqualTo(sweet.get("price"), maxPrice));
+        }
+        query.multiselect(columns).where(filters.toArray(Predicate[]::new)).orderBy(cb.asc(sweet.get("id")));
+        return entityManager.createQuery(query).getResultList();
+    }
+}
@@ -1,16 +1,22 @@
 package com.sweetshop.repository;
 
 import com.sweetshop.model.Sweet;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface SweetRepository extends JpaRepository<Sweet, Long> {
+public interface SweetRepository extends JpaRepository<Sweet, Long>, SweetProjections {
     
     List<Sweet> findByNameContainingIgnoreCase(String name);
     
@@ -29,4 +35,59 @@ public interface SweetRepository extends JpaRepository<Sweet, Long> {
                             @Param("category") String category,
                             @Param("minPrice") BigDecimal minPrice,
                             @Param("maxPrice") BigDecimal maxPrice);
-}
\ No newline at end of file
+
+    /** Loads the sweet with a row lock so concurrent stock changes are serialized. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Sweet s WHERE s.id = :id")
+    Optional<Sweet> findByIdForUpdate(@Param("id") Long id);
+
+    List<Sweet> findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(
+        Long since, Long until, Pageable pageable);
+
+    /** Keyset page of the catalog in id order. */
+    List<Sweet> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Bulk changes below work on a chunk of ids without loading entities. Each row gets
+    // change sequence firstSeq + (id - fromId), so a block reserved for the chunk's id span
+    // gives every row its own number.
+
+    @Query("SELECT s.id FROM Sweet s WHERE " +
+           "(:name IS NULL OR LOWER(s.name) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
+           "(:category IS NULL OR LOWER(s.category) = LOWER(:category)) AND " +
+           "(:minPrice IS NULL OR s.price >= :minPrice) AND " +
+           "(:maxPrice IS NULL OR s.price <= :maxPrice) ORDER BY s.id")
+    List<Long> findIdsForBulk(@Param("name") String name,
+                              @Param("category") String category,
+                              @Param("minPrice") BigDecimal minPrice,
+                              @Param("maxPrice") BigDecimal maxPrice);
+
+    /** Sets price to {@code price * factor + delta}, skipping sweets it would take below zero. */
+    @Modifying
+    @Query("UPDATE Sweet s SET s.price = ROUND(s.price * :factor + :delta, 2), s.changeSeq = :firstSeq + s.id - :fromId " +
+           "WHERE s.id IN :ids AND s.price * :factor + :delta >= 0")
+    int adjustPrices(@Param("ids") List<Long> ids, @Param("factor") BigDecimal factor, @Param("delta") BigDecimal delta,
+                     @Param("firstSeq") long firstSeq, @Param("fromId") long fromId);
+
+    @Modifying
+    @Query("UPDATE Sweet s SET s.quantity = :quantity, s.changeSeq = :firstSeq + s.id - :fromId WHERE s.id IN :ids")
+    int setQuantities(@Param("ids") List<Long> ids, @Param("quantity") int quantity,
+                      @Param("firstSeq") long firstSeq, @Param("fromId") long fromId);
+
+    /** Adds {@code delta} to the quantity, skipping sweets it would take below zero. */
+    @Modifying
+    @Query("UPDATE Sweet s SET s.quantity = s.quantity + :delta, s.changeSeq = :firstSeq + s.id - :fromId " +
+           "WHERE s.id IN :ids AND s.quantity + :delta >= 0")
+    int addQuantities(@Param("ids") List<Long> ids, @Param("delta") int delta,
+                      @Param("firstSeq") long firstSeq, @Param("fromId") long fromId);
+
+    /** Tombstones for the sweets of a chunk that still exist; call before {@link #deleteByIdIn}. */
+    @Modifying
+    @Query("INSERT INTO SweetTombstone (sweetId, changeSeq, deletedAt) " +
+           "SELECT s.id, :firstSeq + s.id - :fromId, :deletedAt FROM Sweet s WHERE s.id IN :ids")
+    int insertTombstones(@Param("ids") List<Long> ids, @Param("firstSeq") long firstSeq, @Param("fromId") long fromId,
+                         @Param("deletedAt") Instant deletedAt);
+
+    @Modifying
+    @Query("DELETE FROM Sweet s WHERE s.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+}
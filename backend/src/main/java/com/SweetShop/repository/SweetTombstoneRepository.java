@@ -0,0 +1,15 @@
+package com.sweetshop.repository;
+
+import com.sweetshop.model.SweetTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SweetTombstoneRepository extends JpaRepository<SweetTombstone, Long> {
+
+    List<SweetTombstone> findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(
+        Long since, Long until, Pageable pageable);
+}
@@ -0,0 +1,12 @@
+package com.sweetshop.sales;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Published by {@code SweetService} inside the purchase transaction once stock has been taken.
+ * Listeners that must only see committed sales use {@code @TransactionalEventListener}.
+ */
+public record PurchaseCompletedEvent(String saleId, long sweetId, String category, String username,
+                                     int quantity, BigDecimal unitPrice, Instant soldAt) {
+}
@@ -0,0 +1,127 @@
+package com.sweetshop.sales;
+
+import com.sweetshop.dto.PurchaseHistoryItem;
+import com.sweetshop.dto.PurchaseHistoryPage;
+import com.sweetshop.repository.SaleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-user purchase history from the sales ledger, newest first.
+ *
+ * Pages are found by keyset: the cursor holds the {@code (soldAt, id)} of the last purchase
+ * returned, and the next page starts strictly after it in index order, so a deep page
+ * costs the same as the first. Sales appear once {@link SalesLedger} has written them,
+ * usually within milliseconds of the purchase.
+ *
+ * The newest {@code sweetshop.history.recent-size} purchases of recently active users are
+ * cached, and first pages up to that size are served from there. A written sale drops its
+ * buyer's entry. A load that raced with such a write is returned but not cached.
+ */
+@Service
+public class PurchaseHistory {
+
+    /** Newest purchases of a user, or only the generation of the last write for a dropped entry. */
+    private record Recent(long generation, List<PurchaseHistoryItem> items) {
+    }
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Value("${sweetshop.history.recent-size:20}")
+    private int recentSize;
+
+    @Value("${sweetshop.history.cache-users:5000}")
+    private int cacheUsers;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Recent> recent = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Recent> eldest) {
+            return size() > cacheUsers;
+        }
+    };
+    private long generation;
+    private Counter hits;
+    private Counter misses;
+
+    @Autowired
+    void registerMetrics(MeterRegistry registry) {
+        hits = registry.counter("sweetshop.history.cache", "result", "hit");
+        misses = registry.counter("sweetshop.history.cache", "result", "miss");
+    }
+
+    /** Up to {@code limit} purchases of {@code username} after {@code cursor}, or the newest ones without it. */
+    public PurchaseHistoryPage page(String username, String cursor, int limit) {
+        if (cursor != null && !cursor.isBlank()) {
+            SalesCursor after = SalesCursor.decode(cursor);
+            return page(saleRepository.findHistoryBefore(username, after.soldAt(), after.id(), PageRequest.of(0, limit + 1)), limit);
+        }
+        if (limit > recentSize) {
+            return page(saleRepository.findHistory(username, PageRequest.of(0, limit + 1)), limit);
+        }
+        List<PurchaseHistoryItem> newest = recent(username);
+        return newest.size() > limit ? page(newest.subList(0, limit + 1), limit) : new PurchaseHistoryPage(newest, null);
+    }
+
+    private List<PurchaseHistoryItem> recent(String username) {
+        long loadedAt;
+        lock.lock();
+        try {
+            Recent cached = recent.get(username);
+            if (cached != null && cached.items() != null) {
+                hits.increment();
+                return cached.items();
+            }
+            loadedAt = generation;
+        } finally {
+            lock.unlock();
+        }
+        misses.increment();
+        // one extra row tells a full history from one that fits exactly
+        List<PurchaseHistoryItem> items = List.copyOf(saleRepository.findHistory(username, PageRequest.of(0, recentSize + 1)));
+        lock.lock();
+        try {
+            Recent current = recent.get(username);
+            boolean unchanged = current == null ? generation == loadedAt : current.items() == null && current.generation() <= loadedAt;
+            if (unchanged) {
+                recent.put(username, new Recent(loadedAt, items));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return items;
+    }
+
+    @EventListener
+    public void onSalesWritten(SalesWrittenEvent event) {
+        lock.lock();
+        try {
+            long written = ++generation;
+            for (String username : event.usernames()) {
+                recent.put(username, new Recent(written, null));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static PurchaseHistoryPage page(List<PurchaseHistoryItem> rows, int limit) {
+        if (rows.size() <= limit) {
+            return new PurchaseHistoryPage(rows, null);
+        }
+        List<PurchaseHistoryItem> page = rows.subList(0, limit);
+        PurchaseHistoryItem last = page.get(limit - 1);
+        return new PurchaseHistoryPage(page, new SalesCursor(last.getPurchasedAt(), last.getId()).encode());
+    }
+}
@@ -0,0 +1,27 @@
+package com.sweetshop.sales;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/** Keyset position of a sale in the ledger, handed to clients as an opaque URL-safe token. */
+public record SalesCursor(Instant soldAt, long id) {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public String encode() {
+        String position = soldAt.getEpochSecond() + ":" + soldAt.getNano() + ":" + id;
+        return ENCODER.encodeToString(position.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static SalesCursor decode(String cursor) {
+        try {
+            String[] parts = new String(DECODER.decode(cursor), StandardCharsets.US_ASCII).split(":");
+            return new SalesCursor(Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1])),
+                Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.sweetshop.sales;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append path for the {@code sales} ledger, kept off the purchase transaction's critical
+ * work: the purchase only adds a narrow, unindexed {@code sales_pending} row.
+ *
+ * {@link #onPurchase} reserves a slot in a bounded buffer and inserts the pending row while
+ * the purchase transaction is still open, so the row commits or rolls back with the stock
+ * update. If the buffer stays full for {@code sweetshop.sales.enqueue-timeout-ms} the
+ * purchase fails and its stock update rolls back, so a slow database pushes back on
+ * buyers instead of dropping sales. The entry becomes visible to the writer only after
+ * the stock update commits and is discarded on rollback. A background thread inserts
+ * entries in batches and deletes their pending rows in the same transaction. A failed
+ * batch is retried {@code sweetshop.sales.max-retries} times, then written row by row: a
+ * row that breaks a constraint is moved to {@code sales_dead_letters}, one already in the
+ * ledger is skipped, and one that fails for any other reason (the database is down) is
+ * retried until it goes in. Graceful shutdown drains the buffer. After a crash, {@link #start}
+ * queues the pending rows left behind before purchases are accepted, so every committed
+ * purchase is written at least once, or set aside.
+ */
+@Component
+public class SalesLedger implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesLedger.class);
+
+    private static final String INSERT =
+        "INSERT INTO sales (sale_id, sweet_id, category, username, quantity, unit_price, sold_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PENDING =
+        "INSERT INTO sales_pending (sale_id, sweet_id, category, username, quantity, unit_price, sold_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_PENDING = "DELETE FROM sales_pending WHERE sale_id = ?";
+    private static final String INSERT_DEAD_LETTER = "INSERT INTO sales_dead_letters "
+        + "(sale_id, sweet_id, category, username, quantity, unit_price, sold_at, error, failed_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final long MAX_BACKOFF_MS = 5_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${sweetshop.sales.queue-capacity:10000}")
+    private int capacity;
+
+    @Value("${sweetshop.sales.batch-size:500}")
+    private int batchSize;
+
+    @Value("${sweetshop.sales.enqueue-timeout-ms:500}")
+    private long enqueueTimeoutMillis;
+
+    @Value("${sweetshop.sales.max-retries:5}")
+    private int maxRetries;
+
+    private final LinkedBlockingQueue<PurchaseCompletedEvent> queue = new LinkedBlockingQueue<>();
+    private volatile Semaphore slots;
+    private Counter written;
+    private Counter rejected;
+    private Counter retries;
+    private Counter deadLettered;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    void registerMetrics(MeterRegistry registry) {
+        Gauge.builder("sweetshop.sales.queue", queue, LinkedBlockingQueue::size)
+            .description("Committed sales waiting to be written")
+            .register(registry);
+        written = registry.counter("sweetshop.sales.written");
+        rejected = registry.counter("sweetshop.sales.rejected");
+        retries = registry.counter("sweetshop.sales.retries");
+        deadLettered = registry.counter("sweetshop.sales.dead_lettered");
+    }
+
+    /**
+     * Runs synchronously inside the purchase transaction, so a rejection here rolls the
+     * purchase back. Outside a transaction the sale is queued immediately.
+     */
+    @EventListener
+    public void onPurchase(PurchaseCompletedEvent event) {
+        reserve();
+        try {
+            jdbcTemplate.update(INSERT_PENDING, event.saleId(), event.sweetId(), event.category(), event.username(),
+                event.quantity(), event.unitPrice(), Timestamp.from(event.soldAt()));
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            queue.add(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    queue.add(event);
+                } else {
+                    slots.release();
+                }
+            }
+        });
+    }
+
+    private void reserve() {
+        try {
+            if (!slots.tryAcquire(enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new RuntimeException("Sales ledger is busy, please retry the purchase");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while recording sale", e);
+        }
+    }
+
+    /** Number of committed sales not yet written. */
+    public int pending() {
+        return queue.size();
+    }
+
+    private void writeLoop() {
+        List<PurchaseCompletedEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PurchaseCompletedEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+                slots.release(batch.size());
+                batch.clear();
+            } catch (InterruptedException e) {
+                if (!running) {
+                    // stop() gave up waiting for the final drain
+                    log.warn("Sales ledger stopped with {} unwritten sales", queue.size() + batch.size());
+                    return;
+                }
+            }
+        }
+    }
+
+    private void write(List<PurchaseCompletedEvent> batch) throws InterruptedException {
+        List<PurchaseCompletedEvent> stored = insertWithRetry(batch) ? batch : insertOneByOne(batch);
+        written.increment(stored.size());
+        if (stored.isEmpty()) {
+            return;
+        }
+        Set<String> usernames = new HashSet<>();
+        stored.forEach(entry -> usernames.add(entry.username()));
+        try {
+            eventPublisher.publishEvent(new SalesWrittenEvent(usernames));
+        } catch (RuntimeException e) {
+            // the rows are committed; inserting them again would only hit the saleId constraint
+            log.warn("A listener failed on {} written sales: {}", stored.size(), e.getMessage());
+        }
+    }
+
+    /** False once the batch has failed {@code maxRetries} retries. */
+    private boolean insertWithRetry(List<PurchaseCompletedEvent> batch) throws InterruptedException {
+        long backoff = 50;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                insert(batch);
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt == maxRetries) {
+                    log.warn("Writing {} sales failed {} times, writing them one by one: {}", batch.size(), attempt + 1, e.getMessage());
+                    return false;
+                }
+                retries.increment();
+                log.warn("Writing {} sales failed, retrying in {} ms: {}", batch.size(), backoff, e.getMessage());
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+            }
+        }
+    }
+
+    /** Finds the rows that keep a batch from going in; returns those inserted now. */
+    private List<PurchaseCompletedEvent> insertOneByOne(List<PurchaseCompletedEvent> batch) throws InterruptedException {
+        List<PurchaseCompletedEvent> stored = new ArrayList<>(batch.size());
+        for (PurchaseCompletedEvent entry : batch) {
+            long backoff = 50;
+            while (true) {
+                try {
+                    insert(List.of(entry));
+                    stored.add(entry);
+                    break;
+                } catch (RuntimeException e) {
+                    if (e instanceof DuplicateKeyException) {
+                        // an earlier attempt committed although it reported a failure
+                        jdbcTemplate.update(DELETE_PENDING, entry.saleId());
+                        break;
+                    }
+                    if (e instanceof NonTransientDataAccessException poison && !(e instanceof DataAccessResourceFailureException)) {
+                        deadLetter(entry, poison);
+                        break;
+                    }
+                    retries.increment();
+                    log.warn("Writing sale {} failed, retrying in {} ms: {}", entry.saleId(), backoff, e.getMessage());
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+                }
+            }
+        }
+        return stored;
+    }
+
+    private void insert(List<PurchaseCompletedEvent> entries) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT, entries, entries.size(), (ps, entry) -> {
+                ps.setString(1, entry.saleId());
+                ps.setLong(2, entry.sweetId());
+                ps.setString(3, entry.category());
+                ps.setString(4, entry.username());
+                ps.setInt(5, entry.quantity());
+                ps.setBigDecimal(6, entry.unitPrice());
+                ps.setTimestamp(7, Timestamp.from(entry.soldAt()));
+            });
+            jdbcTemplate.batchUpdate(DELETE_PENDING, entries, entries.size(), (ps, entry) -> ps.setString(1, entry.saleId()));
+        });
+    }
+
+    private void deadLetter(PurchaseCompletedEvent entry, NonTransientDataAccessException cause) {
+        deadLettered.increment();
+        String error = String.valueOf(cause.getMostSpecificCause().getMessage());
+        log.error("Sale {} cannot be written and is moved to sales_dead_letters: {} ({})", entry.saleId(), entry, error);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(INSERT_DEAD_LETTER, entry.saleId(), entry.sweetId(), entry.category(), entry.username(),
+                    entry.quantity(), entry.unitPrice(), Timestamp.from(entry.soldAt()),
+                    error.substring(0, Math.min(error.length(), 1000)), Timestamp.from(Instant.now()));
+                jdbcTemplate.update(DELETE_PENDING, entry.saleId());
+            });
+        } catch (RuntimeException e) {
+            log.error("Could not store dead-lettered sale {}, it stays in sales_pending: {}", entry.saleId(), e.getMessage());
+        }
+    }
+
+    /** Queues the pending rows a previous run left behind; their slots are taken out of the buffer. */
+    @Override
+    public void start() {
+        List<PurchaseCompletedEvent> left = jdbcTemplate.query("SELECT sale_id, sweet_id, category, username, quantity, "
+                + "unit_price, sold_at FROM sales_pending ORDER BY sold_at",
+            (rs, row) -> new PurchaseCompletedEvent(rs.getString(1), rs.getLong(2), rs.getString(3), rs.getString(4),
+                rs.getInt(5), rs.getBigDecimal(6), rs.getTimestamp(7).toInstant()));
+        if (!left.isEmpty()) {
+            log.info("Recovering {} sales committed but not yet written to the ledger", left.size());
+        }
+        slots = new Semaphore(capacity - left.size());
+        queue.addAll(left);
+        running = true;
+        writer = Thread.ofPlatform().name("sales-ledger-writer").daemon().start(this::writeLoop);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join(10_000);
+            if (writer.isAlive()) {
+                writer.interrupt();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Stop after the web server so in-flight purchases are still recorded, and before the DataSource closes. */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,7 @@
+package com.sweetshop.sales;
+
+import java.util.Set;
+
+/** Published by {@link SalesLedger} after a batch of sales has been committed to the {@code sales} table. */
+public record SalesWrittenEvent(Set<String> usernames) {
+}
@@ -28,10 +28,12 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
                 .collect(Collectors.toSet());
 
-        return new org.springframework.security.core.userdetails.User(
+        return new ShopUserDetails(
                 user.getUsername(),
                 user.getPassword(),
-                authorities
+                authorities,
+                user.getEmail(),
+                user.getRoles()
         );
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.sweetshop.security;
 
+import com.sweetshop.metrics.SweetShopMetrics;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,11 +24,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private SweetShopMetrics metrics;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                     HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
         
+        long start = System.nanoTime();
         final String authorizationHeader = request.getHeader("Authorization");
 
         String username = null;
@@ -52,6 +57,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
+        if (jwt != null) {
+            metrics.recordJwtFilter(System.nanoTime() - start);
+        }
         filterChain.doFilter(request, response);
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.sweetshop.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+import java.util.Set;
+
+/** Authenticated user with the profile fields login hands back, so it needs no second lookup. */
+public class ShopUserDetails extends User {
+
+    private final String email;
+    private final Set<String> roles;
+
+    public ShopUserDetails(String username, String password, Collection<? extends GrantedAuthority> authorities,
+                           String email, Set<String> roles) {
+        super(username, password, authorities);
+        this.email = email;
+        this.roles = Set.copyOf(roles);
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+}
@@ -1,24 +0,0 @@
-package com.sweetshop.dto;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-import java.util.Set;
-
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class AuthResponse {
-    private String token;
-    private String username;
-    private String email;
-    private Set<String> roles;
-    private String message;
-    
-    public AuthResponse(String token, String username, String email, Set<String> roles) {
-        this.token = token;
-        this.username = username;
-        this.email = email;
-        this.roles = roles;
-    }
@@ -0,0 +1,135 @@
+package com.sweetshop.service;
+
+import com.sweetshop.dto.BulkSweetRequest;
+import com.sweetshop.dto.BulkSweetResult;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.stream.SweetsBulkChangedEvent;
+import com.sweetshop.sync.ChangeSequence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Admin changes to many sweets at once. The selection is resolved to ids once, then every
+ * chunk of up to {@code sweetshop.bulk.chunk-size} ids is changed by a single set-based
+ * statement, so no entity is loaded however many sweets match. The whole operation is one
+ * transaction and publishes one {@link SweetsBulkChangedEvent} instead of an event per sweet.
+ */
+@Service
+public class SweetBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(SweetBulkService.class);
+
+    // a chunk reserves one change sequence per id in its range, so keep ranges short
+    private static final long MAX_ID_SPAN = 10_000;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${sweetshop.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Transactional
+    public BulkSweetResult update(BulkSweetRequest request) {
+        long started = System.currentTimeMillis();
+        long changes = Stream.of(request.getPricePercent(), request.getPriceDelta(), request.getSetQuantity(),
+            request.getAddQuantity()).filter(change -> change != null).count();
+        if (changes != 1) {
+            throw new RuntimeException("Give exactly one of pricePercent, priceDelta, setQuantity or addQuantity");
+        }
+        if (request.getPricePercent() != null && request.getPricePercent().compareTo(BigDecimal.valueOf(-100)) <= 0) {
+            throw new RuntimeException("pricePercent must be greater than -100");
+        }
+
+        List<Long> ids = select(request);
+        BigDecimal factor = request.getPricePercent() == null ? BigDecimal.ONE
+            : BigDecimal.ONE.add(request.getPricePercent().movePointLeft(2));
+        BigDecimal delta = request.getPriceDelta() == null ? BigDecimal.ZERO : request.getPriceDelta();
+        long affected = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            long fromId = chunk.get(0);
+            long firstSeq = changeSequence.nextBlock(chunk.get(chunk.size() - 1) - fromId + 1);
+            if (request.getSetQuantity() != null) {
+                affected += sweetRepository.setQuantities(chunk, request.getSetQuantity(), firstSeq, fromId);
+            } else if (request.getAddQuantity() != null) {
+                affected += sweetRepository.addQuantities(chunk, request.getAddQuantity(), firstSeq, fromId);
+            } else {
+                affected += sweetRepository.adjustPrices(chunk, factor, delta, firstSeq, fromId);
+            }
+        }
+
+        boolean stock = request.getSetQuantity() != null || request.getAddQuantity() != null;
+        return finish(stock ? "stock" : "price", ids.size(), affected, stock, false, started);
+    }
+
+    @Transactional
+    public BulkSweetResult delete(BulkSweetRequest request) {
+        long started = System.currentTimeMillis();
+        List<Long> ids = select(request);
+        Instant now = Instant.now();
+        long affected = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            long fromId = chunk.get(0);
+            long firstSeq = changeSequence.nextBlock(chunk.get(chunk.size() - 1) - fromId + 1);
+            sweetRepository.insertTombstones(chunk, firstSeq, fromId, now);
+            affected += sweetRepository.deleteByIdIn(chunk);
+        }
+        return finish("delete", ids.size(), affected, false, true, started);
+    }
+
+    private BulkSweetResult finish(String operation, long matched, long affected, boolean stock, boolean deleted,
+                                   long started) {
+        if (affected > 0) {
+            eventPublisher.publishEvent(new SweetsBulkChangedEvent(affected, stock, deleted));
+        }
+        long elapsed = System.currentTimeMillis() - started;
+        log.info("Bulk {} changed {} of {} selected sweets in {} ms", operation, affected, matched, elapsed);
+        return new BulkSweetResult(matched, affected, elapsed);
+    }
+
+    /** Sorted, distinct ids of the selected sweets. */
+    private List<Long> select(BulkSweetRequest request) {
+        boolean filtered = request.getCategory() != null || request.getName() != null
+            || request.getMinPrice() != null || request.getMaxPrice() != null;
+        if (request.getIds() != null && !request.getIds().isEmpty()) {
+            if (filtered) {
+                throw new RuntimeException("Select sweets by ids or by filters, not both");
+            }
+            return new ArrayList<>(new TreeSet<>(request.getIds()));
+        }
+        if (!filtered) {
+            throw new RuntimeException("Select sweets by ids, category, name or price range");
+        }
+        return sweetRepository.findIdsForBulk(request.getName(), request.getCategory(),
+            request.getMinPrice(), request.getMaxPrice());
+    }
+
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        int from = 0;
+        for (int i = 1; i <= ids.size(); i++) {
+            if (i == ids.size() || i - from == chunkSize || ids.get(i) - ids.get(from) >= MAX_ID_SPAN) {
+                chunks.add(ids.subList(from, i));
+                from = i;
+            }
+        }
+        return chunks;
+    }
+}
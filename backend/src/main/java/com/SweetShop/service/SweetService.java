@@ -1,16 +1,40 @@
 package com.sweetshop.service;
 
 import com.sweetshop.dto.PurchaseRequest;
+import com.sweetshop.dto.SweetChange;
+import com.sweetshop.dto.SweetChangesResponse;
+import com.sweetshop.dto.SweetFieldList;
 import com.sweetshop.dto.SweetRequest;
+import com.sweetshop.metrics.SweetShopMetrics;
+import com.sweetshop.metrics.SweetShopMetrics.PurchaseOutcome;
 import com.sweetshop.model.Sweet;
+import com.sweetshop.model.SweetTombstone;
+import com.sweetshop.order.PurchaseOrder;
+import com.sweetshop.repository.SweetProjections;
 import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.repository.SweetTombstoneRepository;
+import com.sweetshop.sales.PurchaseCompletedEvent;
+import com.sweetshop.stream.SweetChangedEvent;
+import com.sweetshop.sync.ChangeSequence;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
 
 @Service
 public class SweetService {
@@ -18,8 +42,20 @@ public class SweetService {
     @Autowired
     private SweetRepository sweetRepository;
 
+    @Autowired
+    private SweetTombstoneRepository sweetTombstoneRepository;
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private SweetShopMetrics metrics;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public Sweet createSweet(Sweet sweet) {
-        return sweetRepository.save(sweet);
+        return changed(sweetRepository.save(sweet));
     }
 
     public Sweet createSweet(SweetRequest request) {
@@ -29,32 +65,64 @@ public class SweetService {
         sweet.setPrice(request.getPrice());
         sweet.setQuantity(request.getQuantity());
         sweet.setDescription(request.getDescription());
-        return sweetRepository.save(sweet);
+        sweet.setReorderLevel(request.getReorderLevel());
+        return changed(sweetRepository.save(sweet));
     }
 
+    @Transactional(readOnly = true)
     public List<Sweet> getAllSweets() {
         return sweetRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Optional<Sweet> getSweetById(Long id) {
         return sweetRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public Sweet getSweetByIdOrThrow(Long id) {
         return sweetRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Sweet not found with id: " + id));
     }
 
+    @Transactional(readOnly = true)
     public List<Sweet> searchSweets(String query) {
         return sweetRepository.findByNameContainingIgnoreCaseOrCategoryContainingIgnoreCase(query, query);
     }
 
+    @Transactional(readOnly = true)
     public List<Sweet> searchSweets(String name, String category, BigDecimal minPrice, BigDecimal maxPrice) {
         return sweetRepository.searchSweets(name, category, minPrice, maxPrice);
     }
 
+    /** Only {@code fields} of the matching sweets; see {@link SweetProjections#FIELDS}. */
+    @Transactional(readOnly = true)
+    public SweetFieldList searchSweetFields(List<String> fields, String name, String category,
+                                            BigDecimal minPrice, BigDecimal maxPrice) {
+        return new SweetFieldList(fields, sweetRepository.searchFields(fields, name, category, minPrice, maxPrice));
+    }
+
+    /** Parses a {@code fields=id,name,price} parameter; null or blank means every field. */
+    public static List<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String trimmed = field.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!SweetProjections.FIELDS.contains(trimmed)) {
+                throw new IllegalArgumentException("Unknown field '" + trimmed + "', expected any of " + SweetProjections.FIELDS);
+            }
+            parsed.add(trimmed);
+        }
+        return parsed.isEmpty() ? null : List.copyOf(parsed);
+    }
+
     public Sweet updateSweet(Sweet sweet) {
-        return sweetRepository.save(sweet);
+        return changed(sweetRepository.save(sweet));
     }
 
     public Sweet updateSweet(Long id, SweetRequest request) {
@@ -64,59 +132,158 @@ public class SweetService {
         sweet.setPrice(request.getPrice());
         sweet.setQuantity(request.getQuantity());
         sweet.setDescription(request.getDescription());
-        return sweetRepository.save(sweet);
+        sweet.setReorderLevel(request.getReorderLevel());
+        return changed(sweetRepository.save(sweet));
+    }
+
+    /**
+     * Changes with {@code since < seq <= watermark}, oldest first. A sweet changed several
+     * times appears once, at its latest sequence. Both lookups are index range scans.
+     * Not read-only: the watermark describes the primary, so this must not read a replica.
+     */
+    @Transactional
+    public SweetChangesResponse getChangesSince(long since, int limit) {
+        long until = changeSequence.watermark();
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<SweetChange> changes = new ArrayList<>();
+        for (Sweet sweet : sweetRepository.findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(since, until, page)) {
+            changes.add(new SweetChange(sweet.getChangeSeq(), sweet.getId(), false, sweet));
+        }
+        for (SweetTombstone tombstone : sweetTombstoneRepository.findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(since, until, page)) {
+            changes.add(new SweetChange(tombstone.getChangeSeq(), tombstone.getSweetId(), true, null));
+        }
+        changes.sort(Comparator.comparing(SweetChange::getSeq));
+
+        if (changes.size() > limit) {
+            List<SweetChange> first = new ArrayList<>(changes.subList(0, limit));
+            return new SweetChangesResponse(first, first.get(limit - 1).getSeq(), true);
+        }
+        return new SweetChangesResponse(changes, Math.max(since, until), false);
     }
 
     public void deleteSweet(Long id) {
         sweetRepository.deleteById(id);
+        eventPublisher.publishEvent(SweetChangedEvent.deleted(id));
     }
 
     @Transactional
     public boolean purchaseSweet(Long id, int quantity) {
-        Optional<Sweet> optionalSweet = sweetRepository.findById(id);
+        Optional<Sweet> optionalSweet = sweetRepository.findByIdForUpdate(id);
         if (optionalSweet.isEmpty()) {
+            metrics.recordPurchase(PurchaseOutcome.NOT_FOUND);
             return false;
         }
         
         Sweet sweet = optionalSweet.get();
         if (sweet.getQuantity() < quantity) {
+            metrics.recordPurchase(PurchaseOutcome.INSUFFICIENT_STOCK);
             return false;
         }
         
         sweet.setQuantity(sweet.getQuantity() - quantity);
-        sweetRepository.save(sweet);
+        stockChanged(sweetRepository.save(sweet));
+        publishPurchase(sweet, quantity);
+        metrics.recordPurchase(PurchaseOutcome.OK);
         return true;
     }
 
     @Transactional
     public Sweet purchaseSweet(Long id, PurchaseRequest request) {
-        Sweet sweet = getSweetByIdOrThrow(id);
+        Sweet sweet = sweetRepository.findByIdForUpdate(id).orElse(null);
+        if (sweet == null) {
+            metrics.recordPurchase(PurchaseOutcome.NOT_FOUND);
+            throw new RuntimeException("Sweet not found with id: " + id);
+        }
         
         if (sweet.getQuantity() < request.getQuantity()) {
+            metrics.recordPurchase(PurchaseOutcome.INSUFFICIENT_STOCK);
             throw new RuntimeException("Insufficient quantity. Available: " + sweet.getQuantity());
         }
         
         sweet.setQuantity(sweet.getQuantity() - request.getQuantity());
-        return sweetRepository.save(sweet);
+        Sweet saved = stockChanged(sweetRepository.save(sweet));
+        publishPurchase(sweet, request.getQuantity());
+        metrics.recordPurchase(PurchaseOutcome.OK);
+        return saved;
+    }
+
+    /**
+     * Applies queued purchases in one transaction, with one row lock and one update per
+     * sweet however many orders it has. Orders are decided in arrival order; the caller
+     * publishes the decisions, and counts their outcomes, once this commits. A rollback leaves
+     * the decisions unpublished, so the caller may retry the orders of each sweet separately.
+     */
+    @Transactional
+    public void purchaseBatch(Map<Long, List<PurchaseOrder>> ordersBySweet) {
+        for (Map.Entry<Long, List<PurchaseOrder>> entry : new TreeMap<>(ordersBySweet).entrySet()) {
+            Sweet sweet = sweetRepository.findByIdForUpdate(entry.getKey()).orElse(null);
+            if (sweet == null) {
+                for (PurchaseOrder order : entry.getValue()) {
+                    order.reject(PurchaseOutcome.NOT_FOUND, "Sweet not found with id: " + entry.getKey());
+                }
+                continue;
+            }
+
+            int before = sweet.getQuantity();
+            for (PurchaseOrder order : entry.getValue()) {
+                if (sweet.getQuantity() < order.getQuantity()) {
+                    order.reject(PurchaseOutcome.INSUFFICIENT_STOCK, "Insufficient quantity. Available: " + sweet.getQuantity());
+                    continue;
+                }
+                sweet.setQuantity(sweet.getQuantity() - order.getQuantity());
+                order.accept(sweet.getQuantity());
+                publishPurchase(sweet, order.getId(), order.getUsername(), order.getQuantity());
+            }
+            if (sweet.getQuantity() != before) {
+                stockChanged(sweetRepository.save(sweet));
+            }
+        }
     }
 
     @Transactional
     public boolean restockSweet(Long id, int quantity) {
-        Optional<Sweet> optionalSweet = sweetRepository.findById(id);
+        Optional<Sweet> optionalSweet = sweetRepository.findByIdForUpdate(id);
         if (optionalSweet.isEmpty()) {
             return false;
         }
         
         Sweet sweet = optionalSweet.get();
         sweet.setQuantity(sweet.getQuantity() + quantity);
-        sweetRepository.save(sweet);
+        stockChanged(sweetRepository.save(sweet));
         return true;
     }
 
     @Transactional
     public Sweet restockSweet(Long id, PurchaseRequest request) {
-        Sweet sweet = getSweetByIdOrThrow(id);
+        Sweet sweet = sweetRepository.findByIdForUpdate(id)
+            .orElseThrow(() -> new RuntimeException("Sweet not found with id: " + id));
         sweet.setQuantity(sweet.getQuantity() + request.getQuantity());
-        return sweetRepository.save(sweet);
+        return stockChanged(sweetRepository.save(sweet));
+    }
+
+    private Sweet changed(Sweet sweet) {
+        if (sweet != null) {
+            // updates are stamped with their change sequence on flush; the event carries it
+            sweetRepository.flush();
+            eventPublisher.publishEvent(SweetChangedEvent.of(sweet));
+        }
+        return sweet;
+    }
+
+    private Sweet stockChanged(Sweet sweet) {
+        sweetRepository.flush();
+        eventPublisher.publishEvent(SweetChangedEvent.stock(sweet));
+        return sweet;
+    }
+
+    private void publishPurchase(Sweet sweet, int quantity) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication != null ? authentication.getName() : "anonymous";
+        publishPurchase(sweet, UUID.randomUUID().toString(), username, quantity);
+    }
+
+    private void publishPurchase(Sweet sweet, String saleId, String username, int quantity) {
+        eventPublisher.publishEvent(new PurchaseCompletedEvent(saleId, sweet.getId(),
+            sweet.getCategory(), username, quantity, sweet.getPrice(), Instant.now()));
     }
-}
\ No newline at end of file
+}
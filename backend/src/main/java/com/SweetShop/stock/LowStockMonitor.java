@@ -0,0 +1,170 @@
+package com.sweetshop.stock;
+
+import com.sweetshop.dto.LowStockAlert;
+import com.sweetshop.dto.LowStockFeed;
+import com.sweetshop.stream.SweetChangedEvent;
+import com.sweetshop.stream.SweetsBulkChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks which sweets are below their reorder level from committed stock changes, instead
+ * of scanning the table. A LOW alert fires when a sweet drops below its level and a
+ * RECOVERED alert once it is back to the level plus {@code sweetshop.low-stock.hysteresis-percent};
+ * changes in between fire nothing, so stock bouncing around the level doesn't flap.
+ * Per change the cost is a couple of hash lookups. Alerts are kept in a bounded feed.
+ *
+ * After-commit events can arrive out of order, so the last applied change sequence of each
+ * changed sweet is kept and older changes are dropped; a delete is final. That map grows
+ * with the number of distinct sweets changed since startup.
+ */
+@Component
+public class LowStockMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(LowStockMonitor.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${sweetshop.low-stock.hysteresis-percent:20}")
+    private int hysteresisPercent;
+
+    @Value("${sweetshop.low-stock.feed-size:1000}")
+    private int feedSize;
+
+    private static final long DELETED = Long.MAX_VALUE;
+
+    private final Set<Long> low = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Long> applied = new ConcurrentHashMap<>();
+    private final ReentrantLock feedLock = new ReentrantLock();
+    private LowStockAlert[] feed;
+    private long nextAlertId = 1;
+    private Counter lowAlerts;
+    private Counter recoveredAlerts;
+    private Counter staleChanges;
+
+    @PostConstruct
+    void init() {
+        feed = new LowStockAlert[feedSize];
+    }
+
+    @Autowired
+    void registerMetrics(MeterRegistry registry) {
+        Gauge.builder("sweetshop.stock.low", low, Set::size)
+            .description("Sweets below their reorder level")
+            .register(registry);
+        lowAlerts = registry.counter("sweetshop.stock.alerts", "type", "low");
+        recoveredAlerts = registry.counter("sweetshop.stock.alerts", "type", "recovered");
+        staleChanges = registry.counter("sweetshop.stock.stale-changes");
+    }
+
+    /** One scan at startup so sweets that were already low don't alert again. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadLowSweets() {
+        low.addAll(jdbcTemplate.queryForList(
+            "SELECT id FROM sweets WHERE reorder_level IS NOT NULL AND quantity < reorder_level", Long.class));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSweetChanged(SweetChangedEvent event) {
+        applied.compute(event.sweetId(), (id, last) -> {
+            if (last != null && (last == DELETED || event.changeSeq() != null && event.changeSeq() < last)) {
+                staleChanges.increment();
+                return last;
+            }
+            apply(event);
+            if (event.deleted()) {
+                return DELETED;
+            }
+            return event.changeSeq() != null ? event.changeSeq() : last;
+        });
+    }
+
+    private void apply(SweetChangedEvent event) {
+        Integer level = event.reorderLevel();
+        Integer quantity = event.quantity();
+        if (event.deleted() || level == null || quantity == null) {
+            low.remove(event.sweetId());
+        } else if (quantity < level) {
+            if (low.add(event.sweetId())) {
+                alert(event, LowStockAlert.Type.LOW);
+            }
+        } else if (quantity >= level + Math.max(1, level * hysteresisPercent / 100)) {
+            if (low.remove(event.sweetId())) {
+                alert(event, LowStockAlert.Type.RECOVERED);
+            }
+        }
+    }
+
+    /** Bulk stock changes and deletes carry no per-sweet values, so re-check every sweet that has a reorder level. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSweetsBulkChanged(SweetsBulkChangedEvent event) {
+        if (!event.stockChanged() && !event.deleted()) {
+            return;
+        }
+        Set<Long> tracked = new HashSet<>();
+        jdbcTemplate.query("SELECT id, quantity, reorder_level, change_seq FROM sweets WHERE reorder_level IS NOT NULL", row -> {
+            long id = row.getLong(1);
+            tracked.add(id);
+            onSweetChanged(new SweetChangedEvent(id, row.getInt(2), null, row.getInt(3), false, false,
+                row.getObject(4, Long.class)));
+        });
+        low.retainAll(tracked);
+    }
+
+    private void alert(SweetChangedEvent event, LowStockAlert.Type type) {
+        feedLock.lock();
+        try {
+            LowStockAlert alert = new LowStockAlert(nextAlertId, event.sweetId(), type, event.quantity(),
+                event.reorderLevel(), Instant.now());
+            feed[(int) (nextAlertId % feed.length)] = alert;
+            nextAlertId++;
+        } finally {
+            feedLock.unlock();
+        }
+        if (type == LowStockAlert.Type.LOW) {
+            lowAlerts.increment();
+            log.warn("Sweet {} is low on stock: {} left, reorder level {}", event.sweetId(), event.quantity(),
+                event.reorderLevel());
+        } else {
+            recoveredAlerts.increment();
+        }
+    }
+
+    /** Alerts with id greater than {@code since} still in the feed, oldest first, and the sweets low right now. */
+    public LowStockFeed alertsSince(long since) {
+        List<LowStockAlert> alerts = new ArrayList<>();
+        long next;
+        feedLock.lock();
+        try {
+            next = nextAlertId - 1;
+            for (long id = Math.max(Math.max(since, 0) + 1, nextAlertId - feed.length); id < nextAlertId; id++) {
+                alerts.add(feed[(int) (id % feed.length)]);
+            }
+        } finally {
+            feedLock.unlock();
+        }
+        return new LowStockFeed(alerts, Math.max(since, next), low.stream().sorted().toList());
+    }
+}
@@ -0,0 +1,281 @@
+package com.sweetshop.stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fans committed sweet changes out to {@code GET /api/sweets/stream} subscribers.
+ *
+ * Changes are collected per sweet and flushed every {@code sweetshop.stream.flush-interval-ms},
+ * so a burst of purchases on one sweet reaches clients as a single event with the latest
+ * values. Each flush gets consecutive event ids and is kept in a bounded replay ring;
+ * a reconnecting client that sends {@code Last-Event-ID} receives what it missed, or a
+ * {@code reset} event if that is no longer in the ring. A bulk admin change sends {@code reset}
+ * to everyone instead of one event per sweet.
+ *
+ * Connections hold no thread. Every subscriber has a bounded queue of pending flushes
+ * drained by a short-lived virtual thread only while there is something to send. A
+ * subscriber whose queue overflows is disconnected; its browser reconnects and resumes
+ * from the replay ring.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class StockBroadcaster implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(StockBroadcaster.class);
+    private static final Object HEARTBEAT = new Object();
+    private static final Object RESET = new Object();
+
+    private record Frame(long id, SweetChangedEvent change) {
+    }
+
+    @Value("${sweetshop.stream.flush-interval-ms:100}")
+    private long flushIntervalMillis;
+
+    @Value("${sweetshop.stream.heartbeat-ms:15000}")
+    private long heartbeatMillis;
+
+    @Value("${sweetshop.stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${sweetshop.stream.replay-size:1024}")
+    private int replaySize;
+
+    @Value("${sweetshop.stream.subscriber-buffer:64}")
+    private int subscriberBuffer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, SweetChangedEvent> pending = new LinkedHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private Frame[] replay;
+    private long nextId = 1;
+    // clients that last saw an id below this missed a bulk change and must reload
+    private long resetBefore;
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService senders;
+    private Counter dropped;
+
+    @PostConstruct
+    void init() {
+        replay = new Frame[replaySize];
+    }
+
+    @Autowired
+    void registerMetrics(MeterRegistry registry) {
+        Gauge.builder("sweetshop.stream.subscribers", subscribers, Set::size)
+            .description("Open stock update streams")
+            .register(registry);
+        dropped = registry.counter("sweetshop.stream.dropped");
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSweetChanged(SweetChangedEvent event) {
+        lock.lock();
+        try {
+            pending.put(event.sweetId(), event);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSweetsBulkChanged(SweetsBulkChangedEvent event) {
+        lock.lock();
+        try {
+            resetBefore = nextId;
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(RESET);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public SseEmitter subscribe(String lastEventId) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis));
+        subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscriber.emitter.onError(e -> subscribers.remove(subscriber));
+
+        lock.lock();
+        try {
+            subscriber.offer(HEARTBEAT);
+            if (lastEventId != null) {
+                subscriber.offer(missedSince(lastEventId));
+            }
+            subscribers.add(subscriber);
+        } finally {
+            lock.unlock();
+        }
+        return subscriber.emitter;
+    }
+
+    /** Frames after {@code lastEventId}, or {@link #RESET} if some of them already left the ring. Caller holds the lock. */
+    private Object missedSince(String lastEventId) {
+        long last;
+        try {
+            last = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return RESET;
+        }
+        long oldest = Math.max(1, nextId - replay.length);
+        if (last < oldest - 1 || last < resetBefore || last >= nextId) {
+            return RESET;
+        }
+        List<Frame> missed = new ArrayList<>((int) (nextId - last - 1));
+        for (long id = last + 1; id < nextId; id++) {
+            missed.add(replay[(int) (id % replay.length)]);
+        }
+        return missed;
+    }
+
+    void flush() {
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<Frame> frames = new ArrayList<>(pending.size());
+            for (SweetChangedEvent change : pending.values()) {
+                Frame frame = new Frame(nextId, change);
+                replay[(int) (nextId % replay.length)] = frame;
+                nextId++;
+                frames.add(frame);
+            }
+            pending.clear();
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(frames);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Stock update flush failed", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(HEARTBEAT);
+        }
+    }
+
+    private final class Subscriber {
+
+        final SseEmitter emitter;
+        final ArrayBlockingQueue<Object> queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Object item) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(item)) {
+                dropped.increment();
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        void drain() {
+            try {
+                Object item;
+                while (!closed && (item = queue.poll()) != null) {
+                    send(item);
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                draining.set(false);
+            }
+            if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void send(Object item) throws IOException {
+            if (item == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } else if (item == RESET) {
+                emitter.send(SseEmitter.event().name("reset").data(""));
+            } else {
+                for (Frame frame : (List<Frame>) item) {
+                    SweetChangedEvent change = frame.change();
+                    emitter.send(SseEmitter.event()
+                        .id(Long.toString(frame.id()))
+                        .name(change.deleted() ? "deleted" : "stock")
+                        .data(new StockUpdate(change.sweetId(), change.quantity(), change.price()),
+                            MediaType.APPLICATION_JSON));
+                }
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+            emitter.complete();
+        }
+    }
+
+    @Override
+    public void start() {
+        senders = Executors.newVirtualThreadPerTaskExecutor();
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("stock-broadcaster").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Runs before graceful shutdown (default phase), so open streams don't hold it up. */
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        senders.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null && !scheduler.isShutdown();
+    }
+}
@@ -0,0 +1,10 @@
+package com.sweetshop.stream;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+
+/** SSE payload: only what the catalog view needs to patch a card in place. */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StockUpdate(long id, Integer quantity, BigDecimal price) {
+}
@@ -0,0 +1,38 @@
+package com.sweetshop.stream;
+
+import com.sweetshop.model.Sweet;
+
+import java.math.BigDecimal;
+
+/**
+ * Stock or price of a sweet changed, or the sweet was deleted. Published by {@code SweetService} writes.
+ * {@code stockOnly} marks purchases and restocks, which change nothing but the quantity.
+ * {@code changeSeq} is the sweet's change sequence after the write, or null if unknown;
+ * after-commit listeners can receive events out of order and use it to drop stale ones.
+ */
+public record SweetChangedEvent(long sweetId, Integer quantity, BigDecimal price, Integer reorderLevel, boolean deleted,
+                                boolean stockOnly, Long changeSeq) {
+
+    public SweetChangedEvent(long sweetId, Integer quantity, BigDecimal price, Integer reorderLevel, boolean deleted) {
+        this(sweetId, quantity, price, reorderLevel, deleted, false, null);
+    }
+
+    public SweetChangedEvent(long sweetId, Integer quantity, BigDecimal price, Integer reorderLevel, boolean deleted,
+                             boolean stockOnly) {
+        this(sweetId, quantity, price, reorderLevel, deleted, stockOnly, null);
+    }
+
+    public static SweetChangedEvent of(Sweet sweet) {
+        return new SweetChangedEvent(sweet.getId(), sweet.getQuantity(), sweet.getPrice(), sweet.getReorderLevel(), false,
+            false, sweet.getChangeSeq());
+    }
+
+    public static SweetChangedEvent stock(Sweet sweet) {
+        return new SweetChangedEvent(sweet.getId(), sweet.getQuantity(), sweet.getPrice(), sweet.getReorderLevel(), false,
+            true, sweet.getChangeSeq());
+    }
+
+    public static SweetChangedEvent deleted(long sweetId) {
+        return new SweetChangedEvent(sweetId, null, null, null, true);
+    }
+}
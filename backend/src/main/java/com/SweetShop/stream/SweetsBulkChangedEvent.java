@@ -0,0 +1,8 @@
+package com.sweetshop.stream;
+
+/**
+ * Many sweets changed in one set-based statement, published once per bulk operation
+ * instead of a {@link SweetChangedEvent} per row. Listeners reload what they need.
+ */
+public record SweetsBulkChangedEvent(long count, boolean stockChanged, boolean deleted) {
+}
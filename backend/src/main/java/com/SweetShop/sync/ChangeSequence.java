@@ -0,0 +1,106 @@
+package com.sweetshop.sync;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out catalog change sequence numbers and tracks which are not yet committed.
+ *
+ * Numbers are assigned when a change is flushed, but transactions can commit in a different
+ * order. {@link #watermark()} is the highest number below which every assigned number has
+ * committed or rolled back. Serving only changes up to it means a client that stores the
+ * last sequence it saw can never skip a row that commits late. The counter starts from the
+ * highest sequence in the database, so it assumes a single writing instance.
+ */
+@Component
+public class ChangeSequence {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    private boolean loaded;
+    private long last;
+    private long floor;
+
+    /** Next number, held back from the watermark until the current transaction completes. */
+    public long next() {
+        return nextBlock(1);
+    }
+
+    /** Like {@link #next()} for {@code count} consecutive numbers; returns the first. */
+    public long nextBlock(long count) {
+        long seq = reserve(count);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    release(seq);
+                }
+            });
+        } else {
+            release(seq);
+        }
+        return seq;
+    }
+
+    /** Reserves {@code count} consecutive numbers and returns the first; call {@link #release} once they are written. */
+    public long reserve(long count) {
+        lock.lock();
+        try {
+            load();
+            long first = last + 1;
+            last += count;
+            inFlight.add(first);
+            return first;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long first) {
+        lock.lock();
+        try {
+            inFlight.remove(first);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long watermark() {
+        lock.lock();
+        try {
+            load();
+            return inFlight.isEmpty() ? last : inFlight.first() - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Never hand out {@code seq} or anything below it, for sequences stamped outside the database. */
+    public void observe(long seq) {
+        lock.lock();
+        try {
+            floor = Math.max(floor, seq);
+            last = Math.max(last, floor);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void load() {
+        if (!loaded) {
+            Long sweets = jdbcTemplate.queryForObject("SELECT MAX(change_seq) FROM sweets", Long.class);
+            Long tombstones = jdbcTemplate.queryForObject("SELECT MAX(change_seq) FROM sweet_tombstones", Long.class);
+            last = Math.max(floor, Math.max(sweets == null ? 0 : sweets, tombstones == null ? 0 : tombstones));
+            loaded = true;
+        }
+    }
+}
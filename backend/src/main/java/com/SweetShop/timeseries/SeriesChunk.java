@@ -0,0 +1,153 @@
+package com.sweetshop.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * Append-only run of time-ordered records of one tier, delta-encoded into a byte array.
+ *
+ * A record is {@code (time, quantity min/max/last, price cents min/max/last)}. The time is
+ * stored as a varint delta from the previous record. Minimum quantity and price are
+ * zigzag varint deltas from the previous last values. Spreads to max and last are stored
+ * the same way, except in raw chunks, where min, max and last are one sample. A sample whose
+ * price didn't change takes three or four bytes.
+ */
+final class SeriesChunk {
+
+    interface RecordVisitor {
+        void visit(long time, int quantityMin, int quantityMax, int quantityLast,
+                   long priceMin, long priceMax, long priceLast);
+    }
+
+    private final boolean raw;
+    private final long firstTime;
+    private byte[] data = new byte[32];
+    private int length;
+    private int count;
+    private long lastTime;
+    private int lastQuantity;
+    private long lastPrice;
+
+    SeriesChunk(boolean raw, long firstTime) {
+        this.raw = raw;
+        this.firstTime = firstTime;
+        this.lastTime = firstTime;
+    }
+
+    void append(long time, int quantity, long price) {
+        append(time, quantity, quantity, quantity, price, price, price);
+    }
+
+    void append(long time, int quantityMin, int quantityMax, int quantityLast,
+                long priceMin, long priceMax, long priceLast) {
+        ensureCapacity(raw ? 30 : 60);
+        writeVarint(time - lastTime);
+        writeVarint(zigzag(quantityMin - (long) lastQuantity));
+        writeVarint(zigzag(priceMin - lastPrice));
+        if (!raw) {
+            writeVarint(zigzag((long) quantityMax - quantityMin));
+            writeVarint(zigzag((long) quantityLast - quantityMin));
+            writeVarint(zigzag(priceMax - priceMin));
+            writeVarint(zigzag(priceLast - priceMin));
+        }
+        lastTime = time;
+        lastQuantity = quantityLast;
+        lastPrice = priceLast;
+        count++;
+    }
+
+    void forEach(RecordVisitor visitor) {
+        int position = 0;
+        long time = firstTime;
+        long quantity = 0;
+        long price = 0;
+        long[] value = new long[1];
+        for (int i = 0; i < count; i++) {
+            position = readVarint(position, value);
+            time += value[0];
+            position = readVarint(position, value);
+            long quantityMin = quantity + unzigzag(value[0]);
+            position = readVarint(position, value);
+            long priceMin = price + unzigzag(value[0]);
+            long quantityMax = quantityMin;
+            long priceMax = priceMin;
+            quantity = quantityMin;
+            price = priceMin;
+            if (!raw) {
+                position = readVarint(position, value);
+                quantityMax = quantityMin + unzigzag(value[0]);
+                position = readVarint(position, value);
+                quantity = quantityMin + unzigzag(value[0]);
+                position = readVarint(position, value);
+                priceMax = priceMin + unzigzag(value[0]);
+                position = readVarint(position, value);
+                price = priceMin + unzigzag(value[0]);
+            }
+            visitor.visit(time, (int) quantityMin, (int) quantityMax, (int) quantity, priceMin, priceMax, price);
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    long firstTime() {
+        return firstTime;
+    }
+
+    long lastTime() {
+        return lastTime;
+    }
+
+    int lastQuantity() {
+        return lastQuantity;
+    }
+
+    long lastPrice() {
+        return lastPrice;
+    }
+
+    /** Bytes held, including unused capacity. */
+    int bytes() {
+        return data.length;
+    }
+
+    /** Drops unused capacity once no more records will be appended. */
+    void seal() {
+        data = Arrays.copyOf(data, length);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+        }
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    private int readVarint(int position, long[] value) {
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[position++];
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        value[0] = result;
+        return position;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,248 @@
+package com.sweetshop.timeseries;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stock and price history of one sweet in three tiers: raw samples, minute buckets and hour
+ * buckets. Each tier holds at most {@code maxChunks} chunks of {@code chunkSize} records.
+ * A raw chunk past the raw retention, or beyond the chunk limit, is folded into minute
+ * buckets. Minute chunks are folded into hour buckets the same way. Hour chunks are dropped.
+ * The tiers therefore cover consecutive time ranges, oldest in hours and newest raw.
+ */
+final class SweetSeries {
+
+    enum Tier {
+        RAW(0),
+        MINUTE(60_000L),
+        HOUR(3_600_000L);
+
+        private final long widthMillis;
+
+        Tier(long widthMillis) {
+            this.widthMillis = widthMillis;
+        }
+
+        long widthMillis() {
+            return widthMillis;
+        }
+    }
+
+    /** One step of a query: min, max and last quantity and price cents seen in {@code [start, start + step)}. */
+    record Point(long start, int quantityMin, int quantityMax, int quantityLast,
+                 long priceMin, long priceMax, long priceLast) {
+    }
+
+    private final int chunkSize;
+    private final int maxChunks;
+    private final long[] retentionMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<SeriesChunk>[] tiers = new ArrayDeque[Tier.values().length];
+    private boolean hasLast;
+    private long lastTime;
+    private int lastQuantity;
+    private long lastPrice;
+
+    /** {@code retentionMillis} is indexed by {@link Tier#ordinal()}. */
+    SweetSeries(int chunkSize, int maxChunks, long[] retentionMillis) {
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+        this.retentionMillis = retentionMillis;
+    }
+
+    /** Records the values at {@code time}, unless neither changed. Returns whether a sample was added. */
+    boolean record(long time, int quantity, long priceCents) {
+        lock.lock();
+        try {
+            if (hasLast && quantity == lastQuantity && priceCents == lastPrice) {
+                return false;
+            }
+            // listeners of concurrent commits may observe the clock out of order
+            time = hasLast ? Math.max(time, lastTime) : time;
+            ArrayDeque<SeriesChunk> raw = tier(Tier.RAW);
+            SeriesChunk open = raw.peekLast();
+            if (open == null || open.count() >= chunkSize) {
+                if (open != null) {
+                    open.seal();
+                }
+                open = new SeriesChunk(true, time);
+                raw.addLast(open);
+            }
+            open.append(time, quantity, priceCents);
+            hasLast = true;
+            lastTime = time;
+            lastQuantity = quantity;
+            lastPrice = priceCents;
+            compact(time);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Folds and drops chunks that are past their tier's retention as of {@code now}. */
+    void compact(long now) {
+        lock.lock();
+        try {
+            Tier[] all = Tier.values();
+            for (int i = 0; i < all.length; i++) {
+                ArrayDeque<SeriesChunk> chunks = tiers[i];
+                if (chunks == null) {
+                    continue;
+                }
+                long cutoff = now - retentionMillis[i];
+                while (!chunks.isEmpty()
+                    && (chunks.peekFirst().lastTime() < cutoff || chunks.size() > maxChunks)) {
+                    SeriesChunk expired = chunks.pollFirst();
+                    if (i + 1 < all.length) {
+                        fold(expired, all[i + 1]);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Steps of {@code stepMillis} from {@code from} (inclusive) to {@code to} (exclusive) that saw a change. */
+    List<Point> query(long from, long to, long stepMillis) {
+        int steps = (int) ((to - from + stepMillis - 1) / stepMillis);
+        long[] values = new long[steps * 6];
+        boolean[] present = new boolean[steps];
+        lock.lock();
+        try {
+            for (int i = tiers.length - 1; i >= 0; i--) {
+                if (tiers[i] == null) {
+                    continue;
+                }
+                for (SeriesChunk chunk : tiers[i]) {
+                    if (chunk.lastTime() < from || chunk.firstTime() >= to) {
+                        continue;
+                    }
+                    chunk.forEach((time, qMin, qMax, qLast, pMin, pMax, pLast) -> {
+                        if (time < from || time >= to) {
+                            return;
+                        }
+                        int step = (int) ((time - from) / stepMillis);
+                        int at = step * 6;
+                        if (!present[step]) {
+                            present[step] = true;
+                            values[at] = qMin;
+                            values[at + 1] = qMax;
+                            values[at + 3] = pMin;
+                            values[at + 4] = pMax;
+                        } else {
+                            values[at] = Math.min(values[at], qMin);
+                            values[at + 1] = Math.max(values[at + 1], qMax);
+                            values[at + 3] = Math.min(values[at + 3], pMin);
+                            values[at + 4] = Math.max(values[at + 4], pMax);
+                        }
+                        values[at + 2] = qLast;
+                        values[at + 5] = pLast;
+                    });
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        List<Point> points = new ArrayList<>();
+        for (int step = 0; step < steps; step++) {
+            if (present[step]) {
+                int at = step * 6;
+                points.add(new Point(from + step * stepMillis, (int) values[at], (int) values[at + 1],
+                    (int) values[at + 2], values[at + 3], values[at + 4], values[at + 5]));
+            }
+        }
+        return points;
+    }
+
+    /** Records held in each tier, indexed by {@link Tier#ordinal()}. */
+    int[] records() {
+        lock.lock();
+        try {
+            int[] records = new int[tiers.length];
+            for (int i = 0; i < tiers.length; i++) {
+                if (tiers[i] != null) {
+                    for (SeriesChunk chunk : tiers[i]) {
+                        records[i] += chunk.count();
+                    }
+                }
+            }
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long bytes() {
+        lock.lock();
+        try {
+            long bytes = 0;
+            for (ArrayDeque<SeriesChunk> chunks : tiers) {
+                if (chunks != null) {
+                    for (SeriesChunk chunk : chunks) {
+                        bytes += chunk.bytes();
+                    }
+                }
+            }
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fold(SeriesChunk source, Tier target) {
+        ArrayDeque<SeriesChunk> chunks = tier(target);
+        long width = target.widthMillis();
+        long[] bucket = new long[7];
+        bucket[0] = Long.MIN_VALUE;
+        source.forEach((time, qMin, qMax, qLast, pMin, pMax, pLast) -> {
+            long start = Math.floorDiv(time, width) * width;
+            if (start != bucket[0]) {
+                flush(chunks, bucket);
+                bucket[0] = start;
+                bucket[1] = qMin;
+                bucket[2] = qMax;
+                bucket[4] = pMin;
+                bucket[5] = pMax;
+            } else {
+                bucket[1] = Math.min(bucket[1], qMin);
+                bucket[2] = Math.max(bucket[2], qMax);
+                bucket[4] = Math.min(bucket[4], pMin);
+                bucket[5] = Math.max(bucket[5], pMax);
+            }
+            bucket[3] = qLast;
+            bucket[6] = pLast;
+        });
+        flush(chunks, bucket);
+    }
+
+    // most sweets change rarely and never need the coarser tiers
+    private ArrayDeque<SeriesChunk> tier(Tier tier) {
+        ArrayDeque<SeriesChunk> chunks = tiers[tier.ordinal()];
+        if (chunks == null) {
+            chunks = new ArrayDeque<>(2);
+            tiers[tier.ordinal()] = chunks;
+        }
+        return chunks;
+    }
+
+    // a bucket split across two source chunks is written twice; queries merge the halves
+    private void flush(ArrayDeque<SeriesChunk> chunks, long[] bucket) {
+        if (bucket[0] == Long.MIN_VALUE) {
+            return;
+        }
+        SeriesChunk open = chunks.peekLast();
+        if (open == null || open.count() >= chunkSize) {
+            if (open != null) {
+                open.seal();
+            }
+            open = new SeriesChunk(false, bucket[0]);
+            chunks.addLast(open);
+        }
+        open.append(bucket[0], (int) bucket[1], (int) bucket[2], (int) bucket[3], bucket[4], bucket[5], bucket[6]);
+    }
+}
@@ -0,0 +1,171 @@
+package com.sweetshop.timeseries;
+
+import com.sweetshop.dto.StockHistoryPoint;
+import com.sweetshop.stream.SweetChangedEvent;
+import com.sweetshop.stream.SweetsBulkChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quantity and price of each sweet over time, recorded from committed {@code SweetService}
+ * writes. A write that changes neither value is not recorded.
+ *
+ * Each sweet has a {@link SweetSeries}. Recent changes are kept as raw samples in
+ * delta-encoded chunks, at three to six bytes each. Older chunks are folded into minute
+ * buckets and then into hour buckets, keeping min, max and last of both values. Every tier
+ * is capped at {@code sweetshop.timeseries.max-chunks} chunks of {@code chunk-size} records.
+ * A series therefore stays bounded however often its sweet changes. A busy sweet just
+ * reaches the coarser tiers sooner.
+ *
+ * Queries read the tiers in place, so a 30-day chart with an hour step reads at most one
+ * hour bucket per step for the older part of the range, not every change. A step finer than the tier a range falls in returns that
+ * tier's buckets at their own start. History is kept in memory and starts empty after a
+ * restart.
+ */
+@Service
+public class SweetTimeSeries {
+
+    private static final long MIN_STEP_MILLIS = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${sweetshop.timeseries.chunk-size:128}")
+    private int chunkSize;
+
+    @Value("${sweetshop.timeseries.max-chunks:8}")
+    private int maxChunks;
+
+    @Value("${sweetshop.timeseries.raw-retention-hours:6}")
+    private long rawRetentionHours;
+
+    @Value("${sweetshop.timeseries.minute-retention-days:7}")
+    private long minuteRetentionDays;
+
+    @Value("${sweetshop.timeseries.hour-retention-days:400}")
+    private long hourRetentionDays;
+
+    @Value("${sweetshop.timeseries.max-points:1000}")
+    private int maxPoints;
+
+    private final Map<Long, SweetSeries> series = new ConcurrentHashMap<>();
+    private long[] retentionMillis;
+
+    @PostConstruct
+    void init() {
+        retentionMillis = new long[]{
+            Duration.ofHours(rawRetentionHours).toMillis(),
+            Duration.ofDays(minuteRetentionDays).toMillis(),
+            Duration.ofDays(hourRetentionDays).toMillis()
+        };
+    }
+
+    @Autowired
+    void registerMetrics(MeterRegistry registry) {
+        Gauge.builder("sweetshop.timeseries.series", series, Map::size)
+            .description("Sweets with stock and price history")
+            .register(registry);
+        Gauge.builder("sweetshop.timeseries.bytes", this, SweetTimeSeries::bytes)
+            .description("Bytes held by stock and price history chunks")
+            .register(registry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSweetChanged(SweetChangedEvent event) {
+        if (event.deleted()) {
+            series.remove(event.sweetId());
+        } else if (event.quantity() != null && event.price() != null) {
+            record(event.sweetId(), System.currentTimeMillis(), event.quantity(), event.price());
+        }
+    }
+
+    /** Bulk writes carry no per-sweet values, so read them back; unchanged sweets record nothing. */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSweetsBulkChanged(SweetsBulkChangedEvent event) {
+        long now = System.currentTimeMillis();
+        Set<Long> existing = new HashSet<>();
+        jdbcTemplate.query("SELECT id, quantity, price FROM sweets", row -> {
+            long id = row.getLong(1);
+            existing.add(id);
+            record(id, now, row.getInt(2), row.getBigDecimal(3));
+        });
+        if (event.deleted()) {
+            series.keySet().retainAll(existing);
+        }
+    }
+
+    public void record(long sweetId, long time, int quantity, BigDecimal price) {
+        series.computeIfAbsent(sweetId, id -> new SweetSeries(chunkSize, maxChunks, retentionMillis))
+            .record(time, quantity, cents(price));
+    }
+
+    /**
+     * Quantity and price of a sweet in steps of {@code step} over {@code [from, to)}. Only
+     * steps with a change are returned; values hold until the next point.
+     */
+    public List<StockHistoryPoint> history(long sweetId, Instant from, Instant to, Duration step) {
+        long stepMillis = step.toMillis();
+        if (stepMillis < MIN_STEP_MILLIS) {
+            throw new IllegalArgumentException("Step must be at least 1 second");
+        }
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        long span = to.toEpochMilli() - from.toEpochMilli();
+        if ((span + stepMillis - 1) / stepMillis > maxPoints) {
+            throw new IllegalArgumentException("Range covers more than " + maxPoints + " steps; use a larger step");
+        }
+        SweetSeries sweet = series.get(sweetId);
+        if (sweet == null) {
+            return List.of();
+        }
+        List<StockHistoryPoint> points = new ArrayList<>();
+        for (SweetSeries.Point point : sweet.query(from.toEpochMilli(), to.toEpochMilli(), stepMillis)) {
+            points.add(new StockHistoryPoint(Instant.ofEpochMilli(point.start()),
+                point.quantityMin(), point.quantityMax(), point.quantityLast(),
+                BigDecimal.valueOf(point.priceMin(), 2), BigDecimal.valueOf(point.priceMax(), 2),
+                BigDecimal.valueOf(point.priceLast(), 2)));
+        }
+        return points;
+    }
+
+    /** Downsamples series whose sweets haven't changed lately; writes compact the others. */
+    @Scheduled(fixedDelayString = "${sweetshop.timeseries.compact-interval-ms:60000}")
+    public void compact() {
+        long now = System.currentTimeMillis();
+        for (SweetSeries sweet : series.values()) {
+            sweet.compact(now);
+        }
+    }
+
+    long bytes() {
+        long bytes = 0;
+        for (SweetSeries sweet : series.values()) {
+            bytes += sweet.bytes();
+        }
+        return bytes;
+    }
+
+    private static long cents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
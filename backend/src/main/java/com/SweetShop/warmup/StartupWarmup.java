@@ -0,0 +1,239 @@
+package com.sweetshop.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.analytics.SalesAnalytics;
+import com.sweetshop.cache.CatalogResponseCache;
+import com.sweetshop.controller.SweetController;
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.dto.SweetRequest;
+import com.sweetshop.dto.SweetSalesSummary;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.security.JwtUtil;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Warms the application up before it reports ready. Spring Boot marks readiness
+ * ({@code /actuator/health/readiness}) as accepting traffic only after application
+ * runners have finished, so until this one returns, load balancers keep traffic away.
+ *
+ * The warm-up fills the connection pool and loads the catalog response cache for every
+ * format. It also caches the best sellers of the week, or the first sweets when there
+ * are no sales yet. Then it repeats read-only synthetic calls until
+ * {@code sweetshop.warmup.iterations} or the time limit is reached. Those calls cover
+ * token signing and parsing, Jackson in both directions, the {@link SweetController}
+ * read endpoints and a loopback HTTP request through the filter chain. Warm-up is
+ * bounded by {@code sweetshop.warmup.max-duration-ms}. When that runs out, or a step
+ * fails, the app is marked ready anyway.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmup.class);
+
+    private static final String USERNAME = "warmup";
+    private static final String JSON = MediaType.APPLICATION_JSON_VALUE;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private SalesAnalytics salesAnalytics;
+
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // absent without a servlet web server
+    @Autowired
+    private ObjectProvider<SweetController> sweetController;
+
+    @Autowired
+    private ApplicationContext context;
+
+    // checked at run time rather than as a condition, which an AOT build would fix
+    @Value("${sweetshop.warmup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sweetshop.warmup.max-duration-ms:15000}")
+    private long maxDurationMillis;
+
+    @Value("${sweetshop.warmup.iterations:500}")
+    private int iterations;
+
+    @Value("${sweetshop.warmup.hot-sweets:50}")
+    private int hotSweets;
+
+    @Value("${sweetshop.warmup.connections:10}")
+    private int connections;
+
+    private volatile int completedIterations;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "warmup"));
+        Future<?> warmup = executor.submit(() -> {
+            warmUp(start + TimeUnit.MILLISECONDS.toNanos(maxDurationMillis));
+            return null;
+        });
+        try {
+            warmup.get(maxDurationMillis, TimeUnit.MILLISECONDS);
+            log.info("Warm-up finished in {} ms after {} iterations",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), completedIterations);
+        } catch (TimeoutException e) {
+            warmup.cancel(true);
+            log.warn("Warm-up stopped after {} ms and {} iterations", maxDurationMillis, completedIterations);
+        } catch (ExecutionException e) {
+            log.warn("Warm-up failed, continuing without it", e.getCause());
+        } catch (InterruptedException e) {
+            warmup.cancel(true);
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void warmUp(long deadline) throws Exception {
+        fillConnectionPool();
+        List<Sweet> hot = hotSweets();
+        loadCaches(hot);
+
+        UserDetails user = User.withUsername(USERNAME).password("").roles("USER").build();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+            USERNAME, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        String liveness = context instanceof WebServerApplicationContext web && web.getWebServer() != null
+            ? "http://localhost:" + web.getWebServer().getPort() + "/actuator/health/liveness"
+            : null;
+        try {
+            for (int i = 0; i < iterations && System.nanoTime() < deadline && !Thread.currentThread().isInterrupted(); i++) {
+                String token = jwtUtil.generateToken(USERNAME);
+                jwtUtil.validateToken(token, user);
+
+                byte[] json = objectMapper.writeValueAsBytes(new ApiResponse(true, "Sweets retrieved successfully", hot));
+                objectMapper.readTree(json);
+                objectMapper.readValue(objectMapper.writeValueAsBytes(
+                    new SweetRequest("Warm-up", "Warm-up", BigDecimal.ONE, 1, null, null)), SweetRequest.class);
+
+                SweetController controller = sweetController.getIfAvailable();
+                if (controller != null && !hot.isEmpty()) {
+                    Sweet sweet = hot.get(i % hot.size());
+                    write(controller.getAllSweets(null, JSON, "gzip"));
+                    write(controller.getSweetById(sweet.getId(), JSON, null));
+                    write(controller.searchSweets(sweet.getName(), null, null, null, null));
+                    write(controller.searchSweets(sweet.getName(), null, null, null, "id,name,price,quantity"));
+                    write(controller.getHistory(sweet.getId(), null, null, "1h"));
+                }
+                if (liveness != null) {
+                    client.send(HttpRequest.newBuilder(URI.create(liveness)).build(), HttpResponse.BodyHandlers.discarding());
+                }
+                completedIterations = i + 1;
+            }
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /** Opens the connections the pool would otherwise open on the first requests. */
+    private void fillConnectionPool() throws SQLException {
+        int size = connections;
+        if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            size = Math.min(size, dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize());
+        }
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < size; i++) {
+                held.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+    }
+
+    private List<Sweet> hotSweets() {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (SweetSalesSummary summary : salesAnalytics.topSellers("WEEK", hotSweets)) {
+            ids.add(summary.getSweetId());
+        }
+        List<Sweet> hot = new ArrayList<>(sweetRepository.findAllById(ids));
+        if (hot.size() < hotSweets) {
+            for (Sweet sweet : sweetRepository.findByChangeSeqGreaterThanAndChangeSeqLessThanEqualOrderByChangeSeqAsc(
+                    0L, Long.MAX_VALUE, PageRequest.of(0, hotSweets))) {
+                if (hot.size() < hotSweets && ids.add(sweet.getId())) {
+                    hot.add(sweet);
+                }
+            }
+        }
+        return hot;
+    }
+
+    private void loadCaches(List<Sweet> hot) {
+        for (CatalogResponseCache.Format format : CatalogResponseCache.Format.values()) {
+            catalogResponseCache.catalog(format, true);
+            catalogResponseCache.catalog(format, false);
+            for (Sweet sweet : hot) {
+                catalogResponseCache.sweet(sweet.getId(), format, false);
+            }
+        }
+    }
+
+    private void write(ResponseEntity<?> response) throws Exception {
+        if (!(response.getBody() instanceof byte[])) {
+            objectMapper.writeValueAsBytes(response.getBody());
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.sweetshop.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.web.ConcurrencyLimiter.Admission;
+import com.sweetshop.web.ConcurrencyLimiter.Priority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the sweet, batch and auth write endpoints. It runs inside the
+ * security chain right after JWT authentication, so a shed request costs one token check
+ * and no controller or database work.
+ *
+ * Restocks and deletes by an authenticated admin go first, then other sweet writes
+ * (including restocks and deletes by anyone else), batches and logins, then purchases,
+ * which arrive in bursts. Reads are never held back. Every admitted request
+ * must be able to finish within {@code sweetshop.admission.deadline-ms}, or the client's
+ * shorter {@code X-Request-Timeout-Ms}; one that can't is answered {@code 503} with
+ * {@code Retry-After} right away instead of timing out later while holding a thread and
+ * a connection.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "sweetshop.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${sweetshop.admission.initial-limit:20}")
+    private int initialLimit;
+
+    @Value("${sweetshop.admission.min-limit:2}")
+    private int minLimit;
+
+    @Value("${sweetshop.admission.max-limit:200}")
+    private int maxLimit;
+
+    @Value("${sweetshop.admission.latency-target-ms:250}")
+    private long latencyTargetMillis;
+
+    @Value("${sweetshop.admission.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Value("${sweetshop.admission.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${sweetshop.admission.deadline-ms:2000}")
+    private long deadlineMillis;
+
+    private ConcurrencyLimiter limiter;
+    private final Map<Priority, Map<Admission, Counter>> outcomes = new EnumMap<>(Priority.class);
+
+    @PostConstruct
+    void init() {
+        limiter = new ConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+            TimeUnit.MILLISECONDS.toNanos(latencyTargetMillis), backoffRatio, queueCapacity);
+    }
+
+    @Autowired
+    void registerMetrics(MeterRegistry registry) {
+        Gauge.builder("sweetshop.admission.limit", this, filter -> filter.limiter.limit())
+            .description("Current concurrency limit for write endpoints")
+            .register(registry);
+        Gauge.builder("sweetshop.admission.in-flight", this, filter -> filter.limiter.inFlight())
+            .description("Admitted write requests still running")
+            .register(registry);
+        for (Priority priority : Priority.values()) {
+            String tag = priority.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("sweetshop.admission.queued", this, filter -> filter.limiter.queued(priority))
+                .description("Write requests waiting for a slot")
+                .tag("priority", tag)
+                .register(registry);
+            Map<Admission, Counter> counters = new EnumMap<>(Admission.class);
+            for (Admission admission : Admission.values()) {
+                counters.put(admission, Counter.builder("sweetshop.admission.requests")
+                    .description("Write requests by admission outcome")
+                    .tags("priority", tag, "outcome", admission.name().toLowerCase(Locale.ROOT).replace('_', '-'))
+                    .register(registry));
+            }
+            outcomes.put(priority, counters);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return priority(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Priority priority = priority(request);
+        if (priority == Priority.HIGH && !isAdmin()) {
+            priority = Priority.NORMAL;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis(request));
+        Admission admission;
+        try {
+            admission = limiter.acquire(priority, deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admission = Admission.DEADLINE;
+        }
+        outcomes.get(priority).get(admission).increment();
+        if (admission != Admission.ADMITTED) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                new ApiResponse(false, "Server is busy, please retry shortly"));
+            return;
+        }
+
+        long started = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - started);
+        }
+    }
+
+    private long timeoutMillis(HttpServletRequest request) {
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header != null) {
+            try {
+                return Math.max(0, Math.min(deadlineMillis, Long.parseLong(header.trim())));
+            } catch (NumberFormatException ignored) {
+                // fall back to the server deadline
+            }
+        }
+        return deadlineMillis;
+    }
+
+    private static boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getAuthorities().stream()
+            .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    }
+
+    /** Null for requests that are not admission controlled; HIGH still needs an admin caller. */
+    static Priority priority(HttpServletRequest request) {
+        String method = request.getMethod();
+        if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/auth/") || path.equals("/api/batch")) {
+            return Priority.NORMAL;
+        }
+        if (!path.equals("/api/sweets") && !path.startsWith("/api/sweets/")) {
+            return null;
+        }
+        if (path.endsWith("/purchase")) {
+            return Priority.LOW;
+        }
+        if (path.endsWith("/restock") || "DELETE".equals(method)) {
+            return Priority.HIGH;
+        }
+        return Priority.NORMAL;
+    }
+}
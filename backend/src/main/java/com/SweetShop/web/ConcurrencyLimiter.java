@@ -0,0 +1,182 @@
+package com.sweetshop.web;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adaptive concurrency limit with a queue per priority.
+ *
+ * The limit follows AIMD on the observed service time: every request that finishes
+ * within the latency target while the limit is at least half used raises it by
+ * {@code 1/limit} (about one per round of requests), and a slower one cuts it by the
+ * backoff ratio, at most once per target interval so a single slow burst doesn't
+ * collapse it to the minimum.
+ *
+ * Past the limit, a request waits in its priority's queue. Freed slots go to the highest
+ * priority first, FIFO within a priority. A request is refused at once when its queue is
+ * full or when the estimated wait plus the average service time already runs past its
+ * deadline, and gives up waiting once starting could no longer finish in time.
+ */
+final class ConcurrencyLimiter {
+
+    enum Priority { HIGH, NORMAL, LOW }
+
+    enum Admission { ADMITTED, QUEUE_FULL, DEADLINE }
+
+    private final class Waiter {
+        final Condition ready = lock.newCondition();
+        boolean admitted;
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final int queueCapacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Priority, ArrayDeque<Waiter>> queues = new EnumMap<>(Priority.class);
+    private double limit;
+    private int inFlight;
+    private double averageNanos;
+    private long lastDecrease;
+
+    ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyTargetNanos, double backoffRatio,
+                       int queueCapacity) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.backoffRatio = backoffRatio;
+        this.queueCapacity = queueCapacity;
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /** Waits for a slot until shortly before {@code deadline} (a {@link System#nanoTime()} value). */
+    Admission acquire(Priority priority, long deadline) throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit && queued() == 0) {
+                inFlight++;
+                return Admission.ADMITTED;
+            }
+            ArrayDeque<Waiter> queue = queues.get(priority);
+            if (queue.size() >= queueCapacity) {
+                return Admission.QUEUE_FULL;
+            }
+            long latestStart = deadline - (long) averageNanos;
+            long now = System.nanoTime();
+            if (now + estimatedWait(priority) > latestStart) {
+                return Admission.DEADLINE;
+            }
+
+            Waiter waiter = new Waiter();
+            queue.addLast(waiter);
+            try {
+                while (!waiter.admitted) {
+                    long remaining = latestStart - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.remove(waiter);
+                        return Admission.DEADLINE;
+                    }
+                    waiter.ready.awaitNanos(remaining);
+                }
+                return Admission.ADMITTED;
+            } catch (InterruptedException e) {
+                if (!queue.remove(waiter)) {
+                    // admitted while being interrupted: hand the slot on
+                    inFlight--;
+                    admitWaiters();
+                }
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Frees an admitted request's slot and feeds its service time into the limit. */
+    void release(long latencyNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            averageNanos = averageNanos == 0 ? latencyNanos : averageNanos * 0.9 + latencyNanos * 0.1;
+            long now = System.nanoTime();
+            if (latencyNanos > latencyTargetNanos) {
+                if (now - lastDecrease > latencyTargetNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecrease = now;
+                }
+            } else if ((inFlight + 1) * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            admitWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Caller holds the lock. */
+    private void admitWaiters() {
+        for (Priority priority : Priority.values()) {
+            ArrayDeque<Waiter> queue = queues.get(priority);
+            while (inFlight < (int) limit && !queue.isEmpty()) {
+                Waiter waiter = queue.pollFirst();
+                waiter.admitted = true;
+                inFlight++;
+                waiter.ready.signal();
+            }
+        }
+    }
+
+    /** Time until a new request of {@code priority} would start. Caller holds the lock. */
+    private long estimatedWait(Priority priority) {
+        int ahead = 0;
+        for (Priority other : Priority.values()) {
+            if (other.compareTo(priority) <= 0) {
+                ahead += queues.get(other).size();
+            }
+        }
+        return (long) ((ahead + 1) * averageNanos / Math.max(1, (int) limit));
+    }
+
+    private int queued() {
+        int queued = 0;
+        for (ArrayDeque<Waiter> queue : queues.values()) {
+            queued += queue.size();
+        }
+        return queued;
+    }
+
+    int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int queued(Priority priority) {
+        lock.lock();
+        try {
+            return queues.get(priority).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
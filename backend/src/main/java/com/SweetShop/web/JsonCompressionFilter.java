@@ -0,0 +1,292 @@
+package com.sweetshop.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.WebUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips JSON responses of at least {@code sweetshop.compression.min-response-size} bytes
+ * for clients that send {@code Accept-Encoding: gzip}.
+ *
+ * Only the first {@code min-response-size} bytes are held back. A body that ends before
+ * that is sent as is with a Content-Length; a longer one switches to gzip and everything
+ * after the held-back prefix is compressed and streamed through as it is written, so large
+ * responses are never buffered whole. Tomcat's own compression can't apply the threshold
+ * here: Jackson flushes at the end of every body, which commits the response without a
+ * length, and Tomcat then compresses everything. Bodies that already carry a
+ * Content-Encoding (pre-compressed cache entries) pass through untouched.
+ *
+ * An async request ({@code DeferredResult}, SSE) keeps the wrapper it was started with,
+ * so the filter also runs on the async dispatch and finishes the body after the last one.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "sweetshop.compression.enabled", havingValue = "true", matchIfMissing = true)
+public class JsonCompressionFilter extends OncePerRequestFilter {
+
+    @Value("${sweetshop.compression.min-response-size:2048}")
+    private int minResponseSize;
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        CompressingResponse started = WebUtils.getNativeResponse(response, CompressingResponse.class);
+        if (started != null) {
+            filterChain.doFilter(request, response);
+            if (!request.isAsyncStarted()) {
+                started.finish();
+            }
+            return;
+        }
+        if (!acceptsGzip(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        CompressingResponse compressing = new CompressingResponse(response);
+        filterChain.doFilter(request, compressing);
+        if (!request.isAsyncStarted()) {
+            compressing.finish();
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        for (String header : Collections.list(request.getHeaders(HttpHeaders.ACCEPT_ENCODING))) {
+            if (acceptsGzip(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Whether an Accept-Encoding header value allows gzip. */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String value = coding.trim();
+            if (value.startsWith("gzip") && !value.replace(" ", "").endsWith(";q=0")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class CompressingResponse extends HttpServletResponseWrapper {
+
+        private CompressingStream stream;
+
+        CompressingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) {
+                stream = new CompressingStream(this);
+            }
+            return stream;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            if (!isCandidate()) {
+                super.setContentLength(length);
+            }
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+            if (!isCandidate()) {
+                super.setContentLengthLong(length);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (stream != null) {
+                stream.flush();
+            }
+            if (stream == null || stream.decided()) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (stream != null) {
+                stream.discardPrefix();
+            }
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            if (stream != null) {
+                stream.discardPrefix();
+            }
+            super.reset();
+        }
+
+        boolean isCandidate() {
+            String contentType = getContentType();
+            if (contentType == null || containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+                return false;
+            }
+            try {
+                return MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        ServletOutputStream target() throws IOException {
+            return super.getOutputStream();
+        }
+
+        void finish() throws IOException {
+            if (stream != null) {
+                stream.finish();
+            }
+        }
+    }
+
+    private final class CompressingStream extends ServletOutputStream {
+
+        private final CompressingResponse response;
+        private ByteArrayOutputStream prefix;
+        private OutputStream out;
+        private ServletOutputStream target;
+        private boolean finished;
+
+        CompressingStream(CompressingResponse response) {
+            this.response = response;
+        }
+
+        boolean decided() {
+            return out != null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (out == null) {
+                if (prefix == null) {
+                    if (!response.isCandidate()) {
+                        passThrough();
+                        out.write(bytes, offset, length);
+                        return;
+                    }
+                    prefix = new ByteArrayOutputStream(Math.min(minResponseSize, 8192));
+                }
+                if (prefix.size() + length < minResponseSize) {
+                    prefix.write(bytes, offset, length);
+                    return;
+                }
+                startGzip();
+            }
+            out.write(bytes, offset, length);
+        }
+
+        void discardPrefix() {
+            if (out == null) {
+                prefix = null;
+            }
+        }
+
+        private void passThrough() throws IOException {
+            target = response.target();
+            out = target;
+        }
+
+        private void startGzip() throws IOException {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            target = response.target();
+            out = new GZIPOutputStream(target, 8192);
+            prefix.writeTo(out);
+            prefix = null;
+        }
+
+        /** Ignored while the body might still fit under the threshold; otherwise pushes out what is written so far. */
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (out == null) {
+                if (prefix != null) {
+                    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                    response.getResponse().setContentLength(prefix.size());
+                    target = response.target();
+                    prefix.writeTo(target);
+                }
+            } else if (out instanceof GZIPOutputStream gzip) {
+                gzip.finish();
+            }
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        @Override
+        public boolean isReady() {
+            return target == null || target.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                if (out == null) {
+                    passThrough();
+                }
+                target.setWriteListener(writeListener);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.sweetshop.analytics;
+
+import com.sweetshop.dto.PurchaseRequest;
+import com.sweetshop.dto.SweetSalesSummary;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.sales.SalesLedger;
+import com.sweetshop.service.SweetService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SalesAnalyticsTest {
+
+    @Autowired
+    private SalesAnalytics salesAnalytics;
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private SalesLedger salesLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(username = "analyst")
+    void testRollupsMatchLedgerAfterRebuild() throws Exception {
+        Sweet best = sweetRepository.save(new Sweet(null, "Rollup Truffle", "Truffles", new BigDecimal("2.50"), 100, null));
+        Sweet other = sweetRepository.save(new Sweet(null, "Rollup Nougat", "Nougat", new BigDecimal("1.10"), 100, null));
+        sweetService.purchaseSweet(best.getId(), new PurchaseRequest(40));
+        sweetService.purchaseSweet(best.getId(), new PurchaseRequest(35));
+        sweetService.purchaseSweet(other.getId(), new PurchaseRequest(20));
+        assertThrows(RuntimeException.class, () -> sweetService.purchaseSweet(other.getId(), new PurchaseRequest(500)));
+
+        List<SweetSalesSummary> live = salesAnalytics.topSellers("HOUR", 2);
+        assertEquals(best.getId(), live.get(0).getSweetId());
+        assertEquals(75, live.get(0).getUnits());
+        assertEquals(0, new BigDecimal("187.50").compareTo(live.get(0).getRevenue()));
+        assertEquals(other.getId(), live.get(1).getSweetId());
+        assertEquals(20, live.get(1).getUnits());
+
+        Map<LocalDate, Long> units = salesAnalytics.unitsPerDay(best.getId(), 7);
+        assertEquals(7, units.size());
+        assertEquals(75L, units.get(LocalDate.now(ZoneOffset.UTC)));
+        assertTrue(salesAnalytics.revenueByCategoryPerHour(LocalDate.now(ZoneOffset.UTC)).values().stream()
+            .anyMatch(byCategory -> new BigDecimal("22.00").compareTo(byCategory.getOrDefault("Nougat", BigDecimal.ZERO)) == 0));
+
+        SalesAnalytics.RebuildResult rebuilt = salesAnalytics.rebuild();
+        assertEquals(0, salesLedger.pending());
+        assertTrue(rebuilt.sales() >= 3);
+        assertEquals(live, salesAnalytics.topSellers("HOUR", 2));
+        assertEquals(75L, jdbcTemplate.queryForObject(
+            "SELECT units FROM sales_rollups WHERE granularity = 'DAY' AND sweet_id = ?", Long.class, best.getId()));
+
+        mockMvc.perform(get("/api/admin/analytics/top-sellers").param("period", "WEEK").param("limit", "1")
+                .with(user("admin").roles("ADMIN")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.length()").value(1));
+
+        mockMvc.perform(get("/api/admin/analytics/sweets/{id}/units", best.getId())
+                .with(user("analyst").roles("USER")))
+            .andExpect(status().isForbidden());
+    }
+}
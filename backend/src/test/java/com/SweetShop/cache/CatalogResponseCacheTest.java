@@ -0,0 +1,134 @@
+package com.sweetshop.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.cache.CatalogResponseCache.CachedBody;
+import com.sweetshop.cache.CatalogResponseCache.Format;
+import com.sweetshop.dto.PurchaseRequest;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.service.SweetService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:response_cache_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "sweetshop.catalog-cache.max-bytes=65536",
+    "sweetshop.catalog-cache.stock-refresh-ms=300"
+})
+class CatalogResponseCacheTest {
+
+    @Autowired
+    private CatalogResponseCache cache;
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testServesCachedBytesUntilTheCatalogChanges() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            ids.add(sweetService.createSweet(new Sweet(null, "Cached Sweet " + i, "Cache", new BigDecimal("2.00"), 10,
+                "A sweet whose response gets cached, number " + i)).getId());
+        }
+
+        CachedBody json = cache.catalog(Format.JSON, false).orElseThrow();
+        assertSame(json.bytes(), cache.catalog(Format.JSON, false).orElseThrow().bytes());
+        CachedBody gzipped = cache.catalog(Format.JSON, true).orElseThrow();
+        assertTrue(gzipped.gzip());
+        assertArrayEquals(json.bytes(), new GZIPInputStream(new ByteArrayInputStream(gzipped.bytes())).readAllBytes());
+        assertFalse(cache.catalog(Format.CBOR, true).orElseThrow().gzip());
+
+        // purchases are coalesced for stock-refresh-ms, other changes retire the body at once
+        sweetService.purchaseSweet(ids.get(0), new PurchaseRequest(4));
+        assertSame(json.bytes(), cache.catalog(Format.JSON, false).orElseThrow().bytes());
+        Thread.sleep(350);
+        CachedBody rebuilt = cache.catalog(Format.JSON, false).orElseThrow();
+        assertNotSame(json.bytes(), rebuilt.bytes());
+        assertEquals(6, sweetIn(rebuilt, ids.get(0)).get("quantity").asInt());
+        Sweet renamed = sweetService.getSweetByIdOrThrow(ids.get(0));
+        renamed.setName("Renamed Sweet");
+        sweetService.updateSweet(renamed);
+        assertEquals("Renamed Sweet", sweetIn(cache.catalog(Format.JSON, false).orElseThrow(), ids.get(0)).get("name").asText());
+
+        CachedBody one = cache.sweet(ids.get(1), Format.JSON, true).orElseThrow();
+        assertFalse(one.gzip(), "small bodies are not compressed");
+        assertSame(one.bytes(), cache.sweet(ids.get(1), Format.JSON, true).orElseThrow().bytes());
+        assertTrue(cache.sweet(-1, Format.JSON, false).isEmpty());
+
+        for (Long id : ids) {
+            cache.sweet(id, Format.JSON, false);
+            cache.sweet(id, Format.SMILE, false);
+        }
+        assertTrue(cache.bytes() <= 65536, "cache holds " + cache.bytes() + " bytes");
+    }
+
+    @Test
+    void testConcurrentMissesShareOneBuild() throws Exception {
+        sweetService.createSweet(new Sweet(null, "Shared Build", "Cache", new BigDecimal("1.00"), 5, null));
+        cache.invalidateAll();
+        int readers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(readers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<byte[]>> bodies = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                bodies.add(pool.submit(() -> {
+                    start.await();
+                    return cache.catalog(Format.SMILE, false).orElseThrow().bytes();
+                }));
+            }
+            start.countDown();
+            byte[] first = bodies.get(0).get();
+            for (Future<byte[]> body : bodies) {
+                assertSame(first, body.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCatalogTooLargeToKeepIsStreamedUntilItChanges() {
+        sweetService.createSweet(new Sweet(null, "Oversize", "Cache", new BigDecimal("1.00"), 5, null));
+        long maxBytes = (Long) ReflectionTestUtils.getField(cache, "maxBytes");
+        ReflectionTestUtils.setField(cache, "maxBytes", 64L);
+        try {
+            cache.invalidateAll();
+            assertTrue(cache.catalog(Format.JSON, false).isPresent(), "the build that finds out is still served");
+            assertTrue(cache.catalog(Format.JSON, false).isEmpty());
+            assertTrue(cache.catalog(Format.JSON, true).isEmpty());
+            cache.invalidateAll();
+            ReflectionTestUtils.setField(cache, "maxBytes", maxBytes);
+            assertTrue(cache.catalog(Format.JSON, false).isPresent());
+        } finally {
+            ReflectionTestUtils.setField(cache, "maxBytes", maxBytes);
+        }
+    }
+
+    private JsonNode sweetIn(CachedBody catalog, long id) throws IOException {
+        for (JsonNode sweet : objectMapper.readTree(catalog.bytes()).get("data")) {
+            if (sweet.get("id").asLong() == id) {
+                return sweet;
+            }
+        }
+        throw new AssertionError("sweet " + id + " is not in the catalog");
+    }
+}
@@ -0,0 +1,86 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:batch_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL")
+@AutoConfigureMockMvc
+class BatchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Test
+    void testRunsOperationsInOrderAndReadsSeeEarlierWrites() throws Exception {
+        Sweet sweet = sweetRepository.save(new Sweet(null, "Batch Ladoo", "Ladoo", new BigDecimal("3.00"), 10, null));
+        long id = sweet.getId();
+        String batch = """
+            {"operations": [
+              {"id": "restock", "method": "POST", "path": "/api/sweets/%1$d/restock", "body": {"quantity": 5}},
+              {"id": "update", "method": "PUT", "path": "/api/sweets/%1$d",
+               "body": {"name": "Batch Ladoo", "category": "Ladoo", "price": 4.50, "quantity": 20}},
+              {"id": "one", "method": "GET", "path": "/api/sweets/%1$d"},
+              {"id": "all", "method": "GET", "path": "/api/sweets"},
+              {"id": "search", "method": "GET", "path": "/api/sweets/search?name=Batch%%20Ladoo&maxPrice=5"},
+              {"id": "invalid", "method": "POST", "path": "/api/sweets/%1$d/purchase", "body": {"quantity": 0}},
+              {"id": "unknown", "method": "GET", "path": "/api/sweets/%1$d/stream"}
+            ]}
+            """.formatted(id);
+
+        mockMvc.perform(post("/api/batch")
+                .with(user("admin").roles("ADMIN"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batch))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data[*].id").value(org.hamcrest.Matchers.contains(
+                "restock", "update", "one", "all", "search", "invalid", "unknown")))
+            .andExpect(jsonPath("$.data[0].status").value(200))
+            .andExpect(jsonPath("$.data[0].body.data.quantity").value(15))
+            .andExpect(jsonPath("$.data[2].body.data.quantity").value(20))
+            .andExpect(jsonPath("$.data[2].body.data.price").value(4.5))
+            .andExpect(jsonPath("$.data[3].body.data[*].name").value(hasItem("Batch Ladoo")))
+            .andExpect(jsonPath("$.data[4].body.data[0].id").value(id))
+            .andExpect(jsonPath("$.data[5].status").value(400))
+            .andExpect(jsonPath("$.data[5].body.data.quantity").value("Quantity must be at least 1"))
+            .andExpect(jsonPath("$.data[6].status").value(404));
+    }
+
+    @Test
+    void testEachOperationKeepsItsOwnAuthorization() throws Exception {
+        Sweet sweet = sweetRepository.save(new Sweet(null, "Batch Peda", "Peda", new BigDecimal("2.00"), 10, null));
+        String batch = """
+            {"operations": [
+              {"method": "POST", "path": "/api/sweets/%1$d/restock", "body": {"quantity": 100}},
+              {"method": "POST", "path": "/api/sweets/%1$d/purchase", "body": {"quantity": 4}},
+              {"method": "GET", "path": "/api/sweets/%1$d"}
+            ]}
+            """.formatted(sweet.getId());
+
+        mockMvc.perform(post("/api/batch")
+                .with(user("buyer").roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batch))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data[0].status").value(403))
+            .andExpect(jsonPath("$.data[1].status").value(200))
+            .andExpect(jsonPath("$.data[2].body.data.quantity").value(6));
+        assertEquals(6, sweetRepository.findById(sweet.getId()).orElseThrow().getQuantity());
+    }
+}
@@ -0,0 +1,124 @@
+package com.sweetshop.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.sweetshop.dto.ApiResponse;
+import com.sweetshop.dto.AuthRequest;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.service.AuthService;
+import com.sweetshop.service.SweetService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:formats_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "sweetshop.compression.min-response-size=2048"
+})
+@Import(ResponseFormatTest.DeferredController.class)
+class ResponseFormatTest {
+
+    /** Answers from another thread, the way order lookups that wait do. */
+    @RestController
+    static class DeferredController {
+        @GetMapping("/test/deferred")
+        DeferredResult<ApiResponse> deferred(@RequestParam int size) {
+            DeferredResult<ApiResponse> result = new DeferredResult<>(5000L);
+            CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS)
+                .execute(() -> result.setResult(new ApiResponse(true, "x".repeat(size))));
+            return result;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private AuthService authService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private String token;
+    private long firstId;
+
+    @BeforeEach
+    void setUp() {
+        firstId = sweetService.createSweet(new Sweet(null, "Format Sweet 0", "Formats", new BigDecimal("1.25"), 10, null)).getId();
+        for (int i = 1; i < 200; i++) {
+            sweetService.createSweet(new Sweet(null, "Format Sweet " + i, "Formats", new BigDecimal("1.25"), 10, "Sweet number " + i));
+        }
+        token = authService.register(new AuthRequest("formats-" + firstId, "password123", null)).getToken();
+    }
+
+    @Test
+    void testNegotiatesBinaryFormatsAndGzipsLargeJson() throws Exception {
+        HttpResponse<byte[]> cbor = get("/api/sweets/search?category=Formats", "application/cbor", null);
+        assertEquals("application/cbor", cbor.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals(200, new CBORMapper().readTree(cbor.body()).get("data").size());
+
+        HttpResponse<byte[]> smile = get("/api/sweets/search?category=Formats", "application/x-jackson-smile", null);
+        assertEquals(200, new SmileMapper().readTree(smile.body()).get("data").size());
+
+        HttpResponse<byte[]> gzipped = get("/api/sweets/search?category=Formats", null, "gzip");
+        assertEquals("gzip", gzipped.headers().firstValue("Content-Encoding").orElseThrow());
+        assertTrue(gzipped.headers().firstValue("Content-Length").isEmpty(), "large responses are streamed");
+        byte[] json = new GZIPInputStream(new ByteArrayInputStream(gzipped.body())).readAllBytes();
+        assertEquals(200, new ObjectMapper().readTree(json).get("data").size());
+        assertTrue(gzipped.body().length * 4 < json.length, gzipped.body().length + " vs " + json.length);
+        assertTrue(cbor.body().length < json.length && smile.body().length < json.length);
+
+        HttpResponse<byte[]> small = get("/api/sweets/" + firstId, null, "gzip");
+        assertTrue(small.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(small.body().length, Long.parseLong(small.headers().firstValue("Content-Length").orElseThrow()));
+        assertEquals("Format Sweet 0", new ObjectMapper().readTree(small.body()).get("data").get("name").asText());
+    }
+
+    @Test
+    void testGzipClientsGetTheBodyOfDeferredResults() throws Exception {
+        HttpResponse<byte[]> small = get("/test/deferred?size=10", null, "gzip");
+        assertTrue(small.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(small.body().length, Long.parseLong(small.headers().firstValue("Content-Length").orElseThrow()));
+        assertEquals("xxxxxxxxxx", new ObjectMapper().readTree(small.body()).get("message").asText());
+
+        HttpResponse<byte[]> large = get("/test/deferred?size=100000", null, "gzip");
+        assertEquals("gzip", large.headers().firstValue("Content-Encoding").orElseThrow());
+        byte[] json = new GZIPInputStream(new ByteArrayInputStream(large.body())).readAllBytes();
+        assertEquals(100_000, new ObjectMapper().readTree(json).get("message").asText().length());
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String acceptEncoding) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .header("Authorization", "Bearer " + token);
+        if (accept != null) {
+            request.header("Accept", accept);
+        }
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        return response;
+    }
+}
@@ -1,14 +1,26 @@
 package com.sweetshop.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.cache.CatalogResponseCache;
+import com.sweetshop.dto.PurchaseRequest;
 import com.sweetshop.dto.SweetRequest;
+import com.sweetshop.metrics.SweetShopMetrics;
 import com.sweetshop.model.Sweet;
+import com.sweetshop.security.CustomUserDetailsService;
+import com.sweetshop.security.JwtUtil;
 import com.sweetshop.service.SweetService;
+import com.sweetshop.stream.StockBroadcaster;
+import com.sweetshop.timeseries.SweetTimeSeries;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -25,14 +37,39 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(SweetController.class)
+@Import({CatalogResponseCache.class, SweetControllerTest.Metrics.class})
 class SweetControllerTest {
 
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
     @Autowired
     private MockMvc mockMvc;
 
     @MockBean
     private SweetService sweetService;
 
+    // collaborators of the controller and of the filters the slice picks up
+    @MockBean
+    private StockBroadcaster stockBroadcaster;
+
+    @MockBean
+    private SweetTimeSeries sweetTimeSeries;
+
+    @MockBean
+    private JwtUtil jwtUtil;
+
+    @MockBean
+    private CustomUserDetailsService userDetailsService;
+
+    @MockBean
+    private SweetShopMetrics metrics;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -60,9 +97,9 @@ class SweetControllerTest {
         // When & Then
         mockMvc.perform(get("/api/sweets"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].name").value("Chocolate Cake"))
-                .andExpect(jsonPath("$[0].category").value("Cakes"))
-                .andExpect(jsonPath("$[0].price").value(15.99));
+                .andExpect(jsonPath("$.data[0].name").value("Chocolate Cake"))
+                .andExpect(jsonPath("$.data[0].category").value("Cakes"))
+                .andExpect(jsonPath("$.data[0].price").value(15.99));
 
         verify(sweetService).getAllSweets();
     }
@@ -76,8 +113,8 @@ class SweetControllerTest {
         // When & Then
         mockMvc.perform(get("/api/sweets/1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.name").value("Chocolate Cake"))
-                .andExpect(jsonPath("$.category").value("Cakes"));
+                .andExpect(jsonPath("$.data.name").value("Chocolate Cake"))
+                .andExpect(jsonPath("$.data.category").value("Cakes"));
 
         verify(sweetService).getSweetById(1L);
     }
@@ -99,7 +136,7 @@ class SweetControllerTest {
     @WithMockUser(roles = "ADMIN")
     void testCreateSweet() throws Exception {
         // Given
-        when(sweetService.createSweet(any(Sweet.class))).thenReturn(testSweet);
+        when(sweetService.createSweet(any(SweetRequest.class))).thenReturn(testSweet);
 
         // When & Then
         mockMvc.perform(post("/api/sweets")
@@ -107,17 +144,16 @@ class SweetControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(sweetRequest)))
                 .andExpect(status().isCreated())
-                .andExpect(jsonPath("$.name").value("Chocolate Cake"));
+                .andExpect(jsonPath("$.data.name").value("Chocolate Cake"));
 
-        verify(sweetService).createSweet(any(Sweet.class));
+        verify(sweetService).createSweet(any(SweetRequest.class));
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
     void testUpdateSweet() throws Exception {
         // Given
-        when(sweetService.getSweetById(1L)).thenReturn(Optional.of(testSweet));
-        when(sweetService.updateSweet(any(Sweet.class))).thenReturn(testSweet);
+        when(sweetService.updateSweet(eq(1L), any(SweetRequest.class))).thenReturn(testSweet);
 
         // When & Then
         mockMvc.perform(put("/api/sweets/1")
@@ -125,24 +161,20 @@ class SweetControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(sweetRequest)))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.name").value("Chocolate Cake"));
+                .andExpect(jsonPath("$.data.name").value("Chocolate Cake"));
 
-        verify(sweetService).getSweetById(1L);
-        verify(sweetService).updateSweet(any(Sweet.class));
+        verify(sweetService).updateSweet(eq(1L), any(SweetRequest.class));
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
     void testDeleteSweet() throws Exception {
-        // Given
-        when(sweetService.getSweetById(1L)).thenReturn(Optional.of(testSweet));
-
         // When & Then
         mockMvc.perform(delete("/api/sweets/1")
                 .with(csrf()))
-                .andExpect(status().isNoContent());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Sweet deleted successfully"));
 
-        verify(sweetService).getSweetById(1L);
         verify(sweetService).deleteSweet(1L);
     }
 
@@ -151,22 +183,22 @@ class SweetControllerTest {
     void testSearchSweets() throws Exception {
         // Given
         List<Sweet> sweets = Arrays.asList(testSweet);
-        when(sweetService.searchSweets("chocolate")).thenReturn(sweets);
+        when(sweetService.searchSweets("chocolate", null, null, null)).thenReturn(sweets);
 
         // When & Then
         mockMvc.perform(get("/api/sweets/search")
-                .param("query", "chocolate"))
+                .param("name", "chocolate"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].name").value("Chocolate Cake"));
+                .andExpect(jsonPath("$.data[0].name").value("Chocolate Cake"));
 
-        verify(sweetService).searchSweets("chocolate");
+        verify(sweetService).searchSweets("chocolate", null, null, null);
     }
 
     @Test
     @WithMockUser
     void testPurchaseSweet_Success() throws Exception {
         // Given
-        when(sweetService.purchaseSweet(1L, 2)).thenReturn(true);
+        when(sweetService.purchaseSweet(eq(1L), any(PurchaseRequest.class))).thenReturn(testSweet);
 
         // When & Then
         mockMvc.perform(post("/api/sweets/1/purchase")
@@ -174,16 +206,17 @@ class SweetControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content("{\"quantity\": 2}"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.message").value("Purchase successful"));
+                .andExpect(jsonPath("$.message").value("Purchase completed successfully"));
 
-        verify(sweetService).purchaseSweet(1L, 2);
+        verify(sweetService).purchaseSweet(eq(1L), argThat((PurchaseRequest request) -> request.getQuantity() == 2));
     }
 
     @Test
     @WithMockUser
     void testPurchaseSweet_Failed() throws Exception {
         // Given
-        when(sweetService.purchaseSweet(1L, 15)).thenReturn(false);
+        when(sweetService.purchaseSweet(eq(1L), any(PurchaseRequest.class)))
+                .thenThrow(new RuntimeException("Insufficient quantity"));
 
         // When & Then
         mockMvc.perform(post("/api/sweets/1/purchase")
@@ -193,14 +226,14 @@ class SweetControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value("Insufficient quantity"));
 
-        verify(sweetService).purchaseSweet(1L, 15);
+        verify(sweetService).purchaseSweet(eq(1L), argThat((PurchaseRequest request) -> request.getQuantity() == 15));
     }
 
     @Test
     @WithMockUser(roles = "ADMIN")
     void testRestockSweet() throws Exception {
         // Given
-        when(sweetService.restockSweet(1L, 5)).thenReturn(true);
+        when(sweetService.restockSweet(eq(1L), any(PurchaseRequest.class))).thenReturn(testSweet);
 
         // When & Then
         mockMvc.perform(post("/api/sweets/1/restock")
@@ -208,8 +241,8 @@ class SweetControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content("{\"quantity\": 5}"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.message").value("Restock successful"));
+                .andExpect(jsonPath("$.message").value("Restock completed successfully"));
 
-        verify(sweetService).restockSweet(1L, 5);
+        verify(sweetService).restockSweet(eq(1L), argThat((PurchaseRequest request) -> request.getQuantity() == 5));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+package com.sweetshop.controller;
+
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:fields_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL")
+@AutoConfigureMockMvc
+class SweetFieldsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Test
+    void testReturnsOnlyRequestedFields() throws Exception {
+        Sweet cheap = sweetRepository.save(new Sweet(null, "Fields Jalebi", "Fields", new BigDecimal("1.50"), 8, "x".repeat(900)));
+        sweetRepository.save(new Sweet(null, "Fields Rasgulla", "Fields", new BigDecimal("6.00"), 3, "y".repeat(900)));
+
+        mockMvc.perform(get("/api/sweets").param("fields", "name, id,price,id")
+                .with(user("buyer").roles("USER")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data[*].name", hasItems("Fields Jalebi", "Fields Rasgulla")))
+            .andExpect(jsonPath("$.data[0].*", hasSize(3)))
+            .andExpect(jsonPath("$.data[0].description").doesNotExist());
+
+        mockMvc.perform(get("/api/sweets/search").param("category", "fields").param("maxPrice", "2")
+                .param("fields", "id,quantity")
+                .with(user("buyer").roles("USER")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data", hasSize(1)))
+            .andExpect(jsonPath("$.data[0].id").value(cheap.getId()))
+            .andExpect(jsonPath("$.data[0].quantity").value(8))
+            .andExpect(jsonPath("$.data[0].name").doesNotExist());
+
+        mockMvc.perform(get("/api/sweets/search").param("name", "rasgulla").param("fields", "price")
+                .with(user("buyer").roles("USER")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data[0].price").value(6.0))
+            .andExpect(jsonPath("$.data[0].*", hasSize(1)));
+
+        mockMvc.perform(get("/api/sweets").param("fields", "id,password")
+                .with(user("buyer").roles("USER")))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message", containsString("password")));
+    }
+}
@@ -0,0 +1,91 @@
+package com.sweetshop.datagen;
+
+import com.sweetshop.dto.DataGenerationRequest;
+import com.sweetshop.dto.DataGenerationResult;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:datagen_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "sweetshop.datagen.chunk-size=250",
+    "sweetshop.datagen.writers=4"
+})
+class SyntheticDataGeneratorTest {
+
+    @Autowired
+    private SyntheticDataGenerator generator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Test
+    void testGeneratesReproducibleSkewedData() {
+        DataGenerationResult first = generator.generate(new DataGenerationRequest(2000, 300, 7));
+        List<Map<String, Object>> sweets = snapshot(first.getFirstSweetId());
+        assertEquals(2000, sweets.size());
+        assertEquals(300, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM users WHERE id >= ?", Long.class, first.getFirstUserId()));
+        assertTrue(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_roles WHERE role = 'USER'", Long.class) >= 300);
+
+        List<Long> categoryCounts = jdbcTemplate.queryForList(
+            "SELECT COUNT(*) FROM sweets GROUP BY category ORDER BY COUNT(*) DESC", Long.class);
+        assertTrue(categoryCounts.get(0) > 5 * categoryCounts.get(categoryCounts.size() / 2),
+            "categories should be Zipf-skewed: " + categoryCounts);
+
+        String hash = jdbcTemplate.queryForObject("SELECT password FROM users WHERE id = ?", String.class,
+            first.getFirstUserId());
+        assertTrue(passwordEncoder.matches("password123", hash));
+
+        // same seed from the same starting state, different chunk scheduling: identical rows
+        deleteFrom(first);
+        DataGenerationResult second = generator.generate(new DataGenerationRequest(2000, 300, 7));
+        assertEquals(first.getFirstSweetId(), second.getFirstSweetId());
+        assertEquals(sweets, snapshot(second.getFirstSweetId()));
+
+        Sweet created = sweetRepository.save(new Sweet(null, "After Generation", "Cakes", new BigDecimal("1.00"), 1, null));
+        assertEquals(second.getFirstSweetId() + 2000, created.getId());
+    }
+
+    @Test
+    void testRefusesToReuseARegisteredUsername() {
+        Long maxUserId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Long.class);
+        Long maxSweetId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM sweets", Long.class);
+        String taken = "datagen-" + (maxUserId + 4);
+        jdbcTemplate.update("INSERT INTO users (id, username, email, password) VALUES (?, ?, ?, ?)",
+            maxUserId + 1, taken, "someone@example.org", "x");
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+            () -> generator.generate(new DataGenerationRequest(10, 10, 1)));
+        assertTrue(e.getMessage().contains(taken), e.getMessage());
+        assertEquals(maxSweetId, jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM sweets", Long.class));
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", maxUserId + 1);
+    }
+
+    private List<Map<String, Object>> snapshot(long firstId) {
+        return jdbcTemplate.queryForList(
+            "SELECT id, name, category, price, quantity, description FROM sweets WHERE id >= ? ORDER BY id", firstId);
+    }
+
+    private void deleteFrom(DataGenerationResult result) {
+        jdbcTemplate.update("DELETE FROM sweets WHERE id >= ?", result.getFirstSweetId());
+        jdbcTemplate.update("DELETE FROM user_roles WHERE user_id >= ?", result.getFirstUserId());
+        jdbcTemplate.update("DELETE FROM users WHERE id >= ?", result.getFirstUserId());
+    }
+}
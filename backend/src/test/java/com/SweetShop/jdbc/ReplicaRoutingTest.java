@@ -0,0 +1,110 @@
+package com.sweetshop.jdbc;
+
+import com.sweetshop.cache.CatalogResponseCache;
+import com.sweetshop.cache.CatalogResponseCache.Format;
+import com.sweetshop.dto.PurchaseRequest;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.service.SweetService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two unrelated embedded databases stand in for a primary and its replica: the test plays
+ * replication by copying a row and writing the replica's heartbeat itself, so the replica
+ * is told apart from the primary by that row's name.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:routing_primary;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "sweetshop.datasource.replicas[0].url=" + ReplicaRoutingTest.REPLICA_URL,
+    "sweetshop.datasource.max-lag=2s",
+    "sweetshop.datasource.heartbeat-interval=50ms"
+})
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;DB_CLOSE_DELAY=-1;MODE=PostgreSQL";
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private CatalogResponseCache catalogCache;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @AfterEach
+    void clearUser() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testRoutesReadOnlyServiceCallsToFreshReplicas() throws Exception {
+        Sweet sweet = sweetRepository.save(new Sweet(null, "Primary Praline", "Pralines", new BigDecimal("2.00"), 20, null));
+        replica.execute("CREATE TABLE IF NOT EXISTS sweets (id BIGINT PRIMARY KEY, name VARCHAR(255), category VARCHAR(255), " +
+            "price DECIMAL(10, 2), quantity INT, description VARCHAR(1000), reorder_level INT, change_seq BIGINT)");
+        replica.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat TIMESTAMP NOT NULL)");
+        replica.update("MERGE INTO sweets (id, name, category, price, quantity) VALUES (?, 'Replica Praline', 'Pralines', 2.00, 20)",
+            sweet.getId());
+        beat(Instant.now().plusSeconds(3600));
+
+        login("reader");
+        assertEquals("Replica Praline", await(() -> sweetService.getSweetByIdOrThrow(sweet.getId()).getName(), "Replica Praline"));
+        assertEquals("Primary Praline", sweetRepository.findById(sweet.getId()).orElseThrow().getName());
+        assertEquals("Primary Praline", ReplicaRouting.onPrimary(() -> sweetService.getSweetByIdOrThrow(sweet.getId()).getName()));
+        String cached = new String(catalogCache.sweet(sweet.getId(), Format.JSON, false).orElseThrow().bytes(), StandardCharsets.UTF_8);
+        assertTrue(cached.contains("Primary Praline"), cached);
+
+        login("writer");
+        sweetService.purchaseSweet(sweet.getId(), new PurchaseRequest(1));
+        assertEquals(19, sweetService.getSweetByIdOrThrow(sweet.getId()).getQuantity());
+        login("reader");
+        assertEquals("Replica Praline", sweetService.getSweetByIdOrThrow(sweet.getId()).getName());
+
+        beat(Instant.now().minusSeconds(60));
+        assertEquals("Primary Praline", await(() -> sweetService.getSweetByIdOrThrow(sweet.getId()).getName(), "Primary Praline"));
+
+        assertTrue(registry.get("sweetshop.datasource.connections").tag("route", "replica-0").counter().count() >= 2);
+        assertTrue(registry.get("sweetshop.datasource.replica.lag").tag("replica", "replica-0").gauge().value() > 30);
+    }
+
+    private void beat(Instant at) {
+        replica.update("MERGE INTO replica_heartbeat (id, beat) VALUES (1, ?)", Timestamp.from(at));
+    }
+
+    private static void login(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static String await(Supplier<String> read, String expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String value = read.get();
+        while (!expected.equals(value) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            value = read.get();
+        }
+        return value;
+    }
+}
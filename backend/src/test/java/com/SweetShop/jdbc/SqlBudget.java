@@ -0,0 +1,70 @@
+package com.sweetshop.jdbc;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Declares how much JDBC work an operation may do and fails the test when it does more.
+ *
+ * <pre>
+ * SqlBudget.of("GET /api/sweets/{id}")
+ *     .maxStatements(2)
+ *     .noRepeatedStatements()
+ *     .verify(() -&gt; mockMvc.perform(get("/api/sweets/1")).andExpect(status().isOk()));
+ * </pre>
+ *
+ * MockMvc runs the request on the calling thread, so the budget scope also covers
+ * everything the request filters and the security chain execute.
+ */
+public final class SqlBudget {
+
+    @FunctionalInterface
+    public interface Operation {
+        void run() throws Exception;
+    }
+
+    private final String name;
+    private int maxStatements = Integer.MAX_VALUE;
+    private long maxRows = Long.MAX_VALUE;
+    private boolean noRepeats;
+
+    private SqlBudget(String name) {
+        this.name = name;
+    }
+
+    public static SqlBudget of(String name) {
+        return new SqlBudget(name);
+    }
+
+    public SqlBudget maxStatements(int maxStatements) {
+        this.maxStatements = maxStatements;
+        return this;
+    }
+
+    public SqlBudget maxRows(long maxRows) {
+        this.maxRows = maxRows;
+        return this;
+    }
+
+    public SqlBudget noRepeatedStatements() {
+        this.noRepeats = true;
+        return this;
+    }
+
+    public StatementStats verify(Operation operation) throws Exception {
+        StatementStats stats;
+        try (StatementStatsScope scope = StatementStatsScope.open()) {
+            operation.run();
+            stats = scope.stats();
+        }
+        if (stats.getStatements() > maxStatements) {
+            fail(name + " executed " + stats.getStatements() + " statements, budget is " + maxStatements + ": " + stats);
+        }
+        if (stats.getRows() > maxRows) {
+            fail(name + " fetched " + stats.getRows() + " rows, budget is " + maxRows + ": " + stats);
+        }
+        if (noRepeats && !stats.getRepeatedStatements().isEmpty()) {
+            fail(name + " repeated statements (likely N+1): " + stats.getRepeatedStatements());
+        }
+        return stats;
+    }
+}
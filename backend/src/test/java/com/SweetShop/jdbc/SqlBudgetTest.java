@@ -0,0 +1,89 @@
+package com.sweetshop.jdbc;
+
+import com.sweetshop.model.Sweet;
+import com.sweetshop.model.User;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.repository.UserRepository;
+import com.sweetshop.security.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SqlBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private String token;
+    private Sweet cake;
+
+    @BeforeEach
+    void setUp() {
+        if (!userRepository.existsByUsername("budget")) {
+            userRepository.save(new User(null, "budget", "budget@sweetshop.com",
+                passwordEncoder.encode("password123"), Set.of("USER")));
+        }
+        token = jwtUtil.generateToken("budget");
+        cake = sweetRepository.save(new Sweet(null, "Budget Cake", "Cakes", new BigDecimal("9.99"), 5, "Counted"));
+        sweetRepository.save(new Sweet(null, "Budget Tart", "Tarts", new BigDecimal("4.50"), 5, "Counted"));
+    }
+
+    @Test
+    void testGetSweetByIdWithAuth() throws Exception {
+        // one statement for the JWT user (roles joined in), one for the sweet
+        SqlBudget.of("GET /api/sweets/{id}")
+            .maxStatements(2)
+            .noRepeatedStatements()
+            .verify(() -> mockMvc.perform(get("/api/sweets/{id}", cake.getId())
+                    .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-DB-Statements", "2"))
+                .andExpect(header().string("X-DB-Repeated", "0")));
+    }
+
+    @Test
+    void testListSweetsWithAuth() throws Exception {
+        SqlBudget.of("GET /api/sweets")
+            .maxStatements(2)
+            .noRepeatedStatements()
+            .verify(() -> mockMvc.perform(get("/api/sweets")
+                    .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void testLogin() throws Exception {
+        SqlBudget.of("POST /api/auth/login")
+            .maxStatements(1)
+            .noRepeatedStatements()
+            .verify(() -> mockMvc.perform(post("/api/auth/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"username\": \"budget\", \"password\": \"password123\"}"))
+                .andExpect(status().isOk()));
+    }
+}
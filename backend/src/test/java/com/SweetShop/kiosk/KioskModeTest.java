@@ -0,0 +1,81 @@
+package com.sweetshop.kiosk;
+
+import com.sweetshop.dto.AuthRequest;
+import com.sweetshop.dto.PurchaseRequest;
+import com.sweetshop.dto.SweetChange;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.service.AuthService;
+import com.sweetshop.service.SweetService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:kiosk_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL")
+@ActiveProfiles("kiosk")
+// closes the store before the temp dir goes
+@DirtiesContext
+class KioskModeTest {
+
+    @TempDir
+    static Path dir;
+
+    @DynamicPropertySource
+    static void kioskDir(DynamicPropertyRegistry registry) {
+        registry.add("sweetshop.kiosk.dir", dir::toString);
+    }
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private KioskStore store;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testServicesRunOnTheKioskStore() {
+        assertInstanceOf(KioskSweetRepository.class, sweetRepository);
+
+        Sweet sweet = sweetService.createSweet(new Sweet(null, "Till Peda", "Peda", new BigDecimal("1.50"), 5, "Milk sweet"));
+        Sweet other = sweetService.createSweet(new Sweet(null, "Till Jalebi", "Jalebi", new BigDecimal("0.80"), 9, null));
+        long synced = sweetService.getChangesSince(0, 10).getNext();
+
+        sweetService.purchaseSweet(sweet.getId(), new PurchaseRequest(2));
+        assertThrows(RuntimeException.class, () -> sweetService.purchaseSweet(sweet.getId(), new PurchaseRequest(4)));
+        sweetService.deleteSweet(other.getId());
+
+        Sweet stored = store.sweet(sweet.getId()).orElseThrow();
+        assertEquals(3, stored.getQuantity());
+        assertEquals("Milk sweet", stored.getDescription());
+        assertEquals(List.of(sweet.getId()), sweetService.searchSweets("till", null, null, null).stream().map(Sweet::getId).toList());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sweets", Long.class));
+
+        List<SweetChange> changes = sweetService.getChangesSince(synced, 10).getChanges();
+        assertEquals(List.of(sweet.getId(), other.getId()), changes.stream().map(SweetChange::getId).toList());
+        assertTrue(changes.get(1).isDeleted());
+
+        authService.register(new AuthRequest("kiosk-clerk", "secret123", null));
+        assertEquals("kiosk-clerk", authService.login(new AuthRequest("kiosk-clerk", "secret123", null)).getUsername());
+        assertThrows(RuntimeException.class, () -> authService.register(new AuthRequest("kiosk-clerk", "other123", null)));
+    }
+}
@@ -0,0 +1,98 @@
+package com.sweetshop.kiosk;
+
+import com.sweetshop.model.Sweet;
+import com.sweetshop.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KioskStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRecoversFromLogAfterCrash() throws Exception {
+        KioskStore store = new KioskStore(dir, 1, 64 << 20);
+        store.commit(List.of(
+            new KioskStore.PutSweet(sweet(1, "Kaju Katli", "Barfi", "4.50", 20, 1)),
+            new KioskStore.PutSweet(sweet(2, "Rasgulla", "Bengali", "2.25", 30, 2)),
+            new KioskStore.PutUser(new User(1L, "till", "till@shop.local", "hash", Set.of("USER")))));
+        store.commit(List.of(new KioskStore.PutSweet(sweet(1, "Kaju Katli", "Barfi", "4.50", 17, 3))));
+        store.commit(List.of(new KioskStore.DeleteSweet(2)));
+
+        // no close(): the record file never got a checkpoint, lose it and append a torn frame
+        Files.delete(dir.resolve("sweets.dat"));
+        Files.write(dir.resolve("changes.log"), new byte[]{0, 0, 1, 0, 7}, StandardOpenOption.APPEND);
+
+        try (KioskStore reopened = new KioskStore(dir, 1, 64 << 20)) {
+            assertEquals(1, reopened.sweetCount());
+            Sweet katli = reopened.sweet(1).orElseThrow();
+            assertEquals(17, katli.getQuantity());
+            assertEquals(new BigDecimal("4.50"), katli.getPrice());
+            assertEquals("Fresh Kaju Katli", katli.getDescription());
+            assertEquals(3L, katli.getChangeSeq());
+            assertTrue(reopened.sweet(2).isEmpty());
+            assertEquals("till", reopened.userByEmail("till@shop.local").orElseThrow().getUsername());
+            assertEquals(3, reopened.allocateSweetId());
+            assertEquals(3, reopened.maxChangeSeq());
+        }
+    }
+
+    @Test
+    void testCompactionKeepsStateAndEmptiesLog() throws Exception {
+        try (KioskStore store = new KioskStore(dir, 0, 4096)) {
+            for (int i = 1; i <= 50; i++) {
+                store.commit(List.of(new KioskStore.PutSweet(sweet(i, "Ladoo " + i, i % 2 == 0 ? "Ladoo" : "Halwa", "1.10", i, i))));
+            }
+            store.commit(List.of(new KioskStore.DeleteSweet(7)));
+            store.compact();
+            assertEquals(0, Files.size(dir.resolve("changes.log")));
+            store.commit(List.of(new KioskStore.PutSweet(sweet(51, "Gajar Halwa", "Halwa", "3.00", 5, 52))));
+        }
+        try (KioskStore reopened = new KioskStore(dir, 0, 4096)) {
+            assertEquals(50, reopened.sweetCount());
+            assertEquals(25, reopened.sweetsInCategory("HALWA").size());
+            assertEquals(List.of(51L), reopened.sweetsMatching("gajar", null).stream().map(Sweet::getId).toList());
+            assertEquals(List.of(50L, 51L), reopened.sweetsChanged(49, 60, 10).stream().map(Sweet::getId).toList());
+        }
+    }
+
+    @Test
+    void testReloadsLargeCatalog() throws Exception {
+        try (KioskStore store = new KioskStore(dir, 1, 64 << 20)) {
+            for (int batch = 0; batch < 100; batch++) {
+                List<KioskStore.Mutation> mutations = new ArrayList<>();
+                for (int i = 1; i <= 1000; i++) {
+                    long id = batch * 1000L + i;
+                    mutations.add(new KioskStore.PutSweet(sweet(id, "Sweet " + id, "Category " + id % 40, "2.75", 100, id)));
+                }
+                store.commit(mutations);
+            }
+        }
+        // load time is measured by KioskStoreBenchmark
+        try (KioskStore reopened = new KioskStore(dir, 1, 64 << 20)) {
+            assertEquals(100_000, reopened.sweetCount());
+            assertEquals(100_000, reopened.maxChangeSeq());
+            Sweet last = reopened.sweet(100_000).orElseThrow();
+            assertEquals("Sweet 100000", last.getName());
+            assertEquals(0, new BigDecimal("2.75").compareTo(last.getPrice()));
+            assertEquals(2500, reopened.sweetsInCategory("Category 7").size());
+        }
+    }
+
+    private static Sweet sweet(long id, String name, String category, String price, int quantity, long changeSeq) {
+        Sweet sweet = new Sweet(id, name, category, new BigDecimal(price), quantity, "Fresh " + name);
+        sweet.setChangeSeq(changeSeq);
+        return sweet;
+    }
+}
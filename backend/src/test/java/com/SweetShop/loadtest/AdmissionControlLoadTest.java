@@ -0,0 +1,137 @@
+package com.sweetshop.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A purchase burst well past what a slow database can serve, with admin restocks and
+ * catalog reads running alongside, once without and once with admission control.
+ * Clients give up after one second, so only answers within that count as goodput.
+ * The default purchase rate is about twice what a single core sustains against the
+ * slowed-down database.
+ *
+ * mvn -Pload-test test -Dtest=AdmissionControlLoadTest [-Dload.purchaseRate=140 -Dload.durationSeconds=20]
+ */
+@Tag("load")
+class AdmissionControlLoadTest {
+
+    private static final Duration DB_LATENCY = Duration.ofMillis(Long.getLong("load.dbLatencyMs", 10));
+    private static final double PURCHASE_RATE = Double.parseDouble(System.getProperty("load.purchaseRate", "70"));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.durationSeconds", 15));
+    private static final Duration CLIENT_TIMEOUT = Duration.ofSeconds(1);
+    private static final int SWEETS = 200;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private record Run(OpenModelLoadDriver.Report purchases, OpenModelLoadDriver.Report restocks,
+                       OpenModelLoadDriver.Report reads, String limit) {
+    }
+
+    @Test
+    void goodputHoldsUnderOverload() throws Exception {
+        Run without = run(false);
+        Run with = run(true);
+        System.out.println("--- " + PURCHASE_RATE + " purchases/s, " + DB_LATENCY.toMillis()
+            + "ms per statement, 5 connections, clients wait " + CLIENT_TIMEOUT.toMillis() + "ms ---");
+        System.out.println("without admission control:");
+        print(without);
+        System.out.println("with admission control:");
+        print(with);
+
+        assertTrue(with.purchases().throughput() >= 2 * without.purchases().throughput(),
+            "purchase goodput should hold up: " + without.purchases().throughput() + "/s without, "
+                + with.purchases().throughput() + "/s with admission control");
+        assertTrue(with.restocks().errorRate() <= 0.05, "restocks should win over purchases: " + with.restocks());
+        assertTrue(with.reads().errorRate() <= 0.02, "reads should not be held back: " + with.reads());
+    }
+
+    private Run run(boolean admission) throws Exception {
+        try (LoadTestApplication app = LoadTestApplication.builder()
+                .virtualThreads(true)
+                .statementLatency(DB_LATENCY)
+                .property("sweetshop.admission.enabled", admission)
+                .property("spring.datasource.hikari.maximum-pool-size", 5)
+                .property("spring.datasource.hikari.minimum-idle", 5)
+                .property("logging.level.com.sweetshop", "WARN")
+                .property("logging.level.org.springframework.security", "WARN")
+                .property("spring.jpa.show-sql", false)
+                .start()) {
+            String admin = app.registerAdmin("overload-admin");
+            List<String> tokens = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                tokens.add(app.registerUser("overload"));
+            }
+            List<Sweet> sweets = new ArrayList<>();
+            for (int i = 0; i < SWEETS; i++) {
+                sweets.add(new Sweet(null, "Overload Sweet " + i, "Candies", new BigDecimal("1.00"), 1_000_000, null));
+            }
+            List<Long> ids = app.context().getBean(SweetRepository.class).saveAll(sweets).stream().map(Sweet::getId).toList();
+            String one = MAPPER.writeValueAsString(Map.of("quantity", 1));
+
+            CompletableFuture<OpenModelLoadDriver.Report> purchases = drive("purchase", app,
+                n -> write(app, "/api/sweets/" + ids.get((int) (n % SWEETS)) + "/purchase", tokens.get((int) (n % 10)), one),
+                PURCHASE_RATE);
+            CompletableFuture<OpenModelLoadDriver.Report> restocks = drive("restock", app,
+                n -> write(app, "/api/sweets/" + ids.get((int) (n * 7 % SWEETS)) + "/restock", admin, one), 5);
+            CompletableFuture<OpenModelLoadDriver.Report> reads = drive("read", app,
+                n -> app.request("/api/sweets/" + ids.get((int) (n * 13 % SWEETS)), tokens.get((int) (n % 10)))
+                    .timeout(CLIENT_TIMEOUT).GET().build(), 20);
+            try {
+                return new Run(purchases.join(), restocks.join(), reads.join(), limit(app));
+            } catch (CompletionException e) {
+                throw (Exception) e.getCause();
+            }
+        }
+    }
+
+    private static HttpRequest write(LoadTestApplication app, String path, String token, String body) {
+        return app.request(path, token)
+            .timeout(CLIENT_TIMEOUT)
+            .header("Content-Type", "application/json")
+            .header("X-Request-Timeout-Ms", Long.toString(CLIENT_TIMEOUT.toMillis()))
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    private static CompletableFuture<OpenModelLoadDriver.Report> drive(String scenario, LoadTestApplication app,
+                                                                       LongFunction<HttpRequest> requests,
+                                                                       double rate) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return OpenModelLoadDriver.run(scenario, app.client(), requests, status -> status == 200, rate,
+                    Duration.ofSeconds(2), DURATION, Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                throw new CompletionException(e);
+            }
+        }, runnable -> Thread.ofPlatform().start(runnable));
+    }
+
+    private static String limit(LoadTestApplication app) {
+        Gauge limit = app.context().getBean(MeterRegistry.class).find("sweetshop.admission.limit").gauge();
+        return limit == null ? "none" : Long.toString(Math.round(limit.value()));
+    }
+
+    private static void print(Run run) {
+        System.out.println("  concurrency limit at the end: " + run.limit());
+        System.out.println("  " + run.purchases());
+        System.out.println("  " + run.restocks());
+        System.out.println("  " + run.reads());
+    }
+}
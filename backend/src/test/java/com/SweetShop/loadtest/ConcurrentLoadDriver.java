@@ -0,0 +1,98 @@
+package com.sweetshop.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Closed-model driver: keeps a fixed number of connections busy, each issuing the
+ * next request as soon as the previous one completes.
+ */
+final class ConcurrentLoadDriver {
+
+    private ConcurrentLoadDriver() {
+    }
+
+    record Result(String label, int concurrency, long requests, long errors, double seconds,
+                  long p50Micros, long p95Micros, long p99Micros) {
+
+        double throughput() {
+            return requests / seconds;
+        }
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-10s c=%-6d req=%-8d err=%-6d rps=%-10.1f p50=%-8.1fms p95=%-8.1fms p99=%.1fms",
+                label, concurrency, requests, errors, throughput(),
+                p50Micros / 1000.0, p95Micros / 1000.0, p99Micros / 1000.0);
+        }
+    }
+
+    static Result run(String label, HttpClient client, Supplier<HttpRequest> requests,
+                      int concurrency, Duration warmup, Duration duration) throws InterruptedException {
+        long start = System.nanoTime() + warmup.toNanos();
+        long end = start + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        long[][] samples = new long[concurrency][];
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                int index = i;
+                workers.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    try {
+                        long now;
+                        while ((now = System.nanoTime()) < end) {
+                            boolean ok;
+                            try {
+                                HttpResponse<Void> response = client.send(requests.get(), HttpResponse.BodyHandlers.discarding());
+                                ok = response.statusCode() < 500;
+                            } catch (Exception e) {
+                                ok = false;
+                            }
+                            long finished = System.nanoTime();
+                            if (now >= start && finished <= end) {
+                                if (!ok) {
+                                    errors.incrementAndGet();
+                                }
+                                if (count == latencies.length) {
+                                    latencies = Arrays.copyOf(latencies, count * 2);
+                                }
+                                latencies[count++] = (finished - now) / 1000;
+                            }
+                        }
+                    } finally {
+                        samples[index] = Arrays.copyOf(latencies, count);
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        }
+
+        long[] all = Arrays.stream(samples).flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(label, concurrency, all.length, errors.get(), duration.toNanos() / 1e9,
+            percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99));
+    }
+
+    static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,72 @@
+package com.sweetshop.loadtest;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Turns the embedded test database into a stand-in for a remote one by sleeping
+ * before every statement execution while the connection is held.
+ */
+class LatencyInjectingDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final Duration latency;
+
+    LatencyInjectingDataSourcePostProcessor(Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !latency.isZero()) {
+            return proxy(DataSource.class, dataSource);
+        }
+        return bean;
+    }
+
+    private <T> T proxy(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> invoke(target, method, args);
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if (name.equals("unwrap") && args != null && ((Class<?>) args[0]).isInstance(target)) {
+            return target;
+        }
+        if (name.equals("isWrapperFor") && args != null && ((Class<?>) args[0]).isInstance(target)) {
+            return true;
+        }
+        if (name.startsWith("execute")) {
+            Thread.sleep(latency);
+        }
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+        if (result instanceof Connection connection) {
+            return proxy(Connection.class, connection);
+        }
+        if (result instanceof CallableStatement statement) {
+            return proxy(CallableStatement.class, statement);
+        }
+        if (result instanceof PreparedStatement statement) {
+            return proxy(PreparedStatement.class, statement);
+        }
+        if (result instanceof Statement statement) {
+            return proxy(Statement.class, statement);
+        }
+        return result;
+    }
+}
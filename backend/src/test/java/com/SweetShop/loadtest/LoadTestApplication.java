@@ -0,0 +1,170 @@
+package com.sweetshop.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.SweetShopApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Boots the real application on a random port against a private embedded database
+ * and exposes small helpers for driving it over HTTP.
+ */
+final class LoadTestApplication implements AutoCloseable {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ConfigurableApplicationContext context;
+    private final HttpClient client;
+    private final String baseUrl;
+
+    private LoadTestApplication(ConfigurableApplicationContext context) {
+        this.context = context;
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        this.baseUrl = "http://localhost:" + port;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    ConfigurableApplicationContext context() {
+        return context;
+    }
+
+    HttpClient client() {
+        return client;
+    }
+
+    URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path)).timeout(Duration.ofSeconds(60));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    /** Registers a fresh user and returns its JWT. */
+    String registerUser(String prefix) throws IOException, InterruptedException {
+        return register(prefix + "-" + UUID.randomUUID().toString().substring(0, 8));
+    }
+
+    /** Registers {@code username} with password {@code password123} and returns its JWT. */
+    String register(String username) throws IOException, InterruptedException {
+        JsonNode body = post("/api/auth/register", null,
+            Map.of("username", username, "password", "password123"));
+        return body.path("data").path("token").asText();
+    }
+
+    /** Registers a user, promotes it to ADMIN directly in the database and returns a fresh JWT. */
+    String registerAdmin(String prefix) throws IOException, InterruptedException {
+        String username = prefix + "-" + UUID.randomUUID().toString().substring(0, 8);
+        post("/api/auth/register", null, Map.of("username", username, "password", "password123"));
+        context.getBean(JdbcTemplate.class).update(
+            "INSERT INTO user_roles (user_id, role) SELECT id, 'ADMIN' FROM users WHERE username = ?", username);
+        JsonNode body = post("/api/auth/login", null, Map.of("username", username, "password", "password123"));
+        return body.path("data").path("token").asText();
+    }
+
+    long createSweet(String token, String name, String category, String price, int quantity)
+            throws IOException, InterruptedException {
+        Map<String, Object> sweet = new LinkedHashMap<>();
+        sweet.put("name", name);
+        sweet.put("category", category);
+        sweet.put("price", price);
+        sweet.put("quantity", quantity);
+        return post("/api/sweets", token, sweet).path("data").path("id").asLong();
+    }
+
+    JsonNode get(String path, String token) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request(path, token).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        return MAPPER.readTree(response.body());
+    }
+
+    JsonNode post(String path, String token, Object body) throws IOException, InterruptedException {
+        HttpRequest request = request(path, token)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)))
+            .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("POST " + path + " failed: " + response.statusCode() + " " + response.body());
+        }
+        return MAPPER.readTree(response.body());
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    static final class Builder {
+
+        private final Map<String, Object> properties = new LinkedHashMap<>();
+        private Duration statementLatency = Duration.ZERO;
+        private String[] profiles = new String[0];
+
+        private Builder() {
+            properties.put("server.port", 0);
+            properties.put("spring.datasource.url",
+                "jdbc:h2:mem:loadtest" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+            properties.put("spring.datasource.hikari.minimum-idle", 10);
+            properties.put("server.tomcat.max-connections", 20000);
+            properties.put("server.tomcat.accept-count", 10000);
+        }
+
+        Builder virtualThreads(boolean enabled) {
+            return property("spring.threads.virtual.enabled", enabled);
+        }
+
+        Builder profiles(String... profiles) {
+            this.profiles = profiles;
+            return this;
+        }
+
+        Builder statementLatency(Duration latency) {
+            this.statementLatency = latency;
+            return this;
+        }
+
+        Builder property(String name, Object value) {
+            properties.put(name, value);
+            return this;
+        }
+
+        LoadTestApplication start() {
+            LatencyInjectingDataSourcePostProcessor latency = new LatencyInjectingDataSourcePostProcessor(statementLatency);
+            String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(SweetShopApplication.class)
+                .profiles(profiles)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(latency))
+                .run(args);
+            return new LoadTestApplication(context);
+        }
+    }
+}
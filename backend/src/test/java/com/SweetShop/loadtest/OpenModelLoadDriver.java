@@ -0,0 +1,141 @@
+package com.sweetshop.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntPredicate;
+import java.util.function.LongFunction;
+
+/**
+ * Open-model driver: requests arrive at a fixed rate whether or not earlier ones have
+ * completed, the way independent users do. Each arrival gets its own virtual thread and
+ * its latency is measured from its scheduled start, so a stalled server shows up as
+ * latency instead of as a silently lower request rate.
+ */
+final class OpenModelLoadDriver {
+
+    private static final long TIMED_OUT = -1;
+    private static final int FAILED = -1;
+
+    private OpenModelLoadDriver() {
+    }
+
+    /** Limits a scenario must stay within; {@code minThroughputRatio} is relative to the arrival rate. */
+    record Thresholds(Duration maxP99, double maxErrorRate, double minThroughputRatio) {
+    }
+
+    /**
+     * Latency and error figures cover the measured window only; {@code statuses} counts every
+     * arrival including warm-up (status -1 for requests that failed or timed out), which
+     * is what correctness checks such as oversell need.
+     */
+    record Report(String scenario, double rate, long requests, long errors, double seconds,
+                  long p50Micros, long p95Micros, long p99Micros, long maxMicros, Map<Integer, Long> statuses) {
+
+        double throughput() {
+            return (requests - errors) / seconds;
+        }
+
+        double errorRate() {
+            return requests == 0 ? 0 : (double) errors / requests;
+        }
+
+        long count(int status) {
+            return statuses.getOrDefault(status, 0L);
+        }
+
+        List<String> violations(Thresholds thresholds) {
+            List<String> violations = new ArrayList<>();
+            if (p99Micros > thresholds.maxP99().toNanos() / 1000) {
+                violations.add(String.format("%s: p99 %.1fms > %dms", scenario, p99Micros / 1000.0, thresholds.maxP99().toMillis()));
+            }
+            if (errorRate() > thresholds.maxErrorRate()) {
+                violations.add(String.format("%s: error rate %.2f%% > %.2f%%", scenario, errorRate() * 100, thresholds.maxErrorRate() * 100));
+            }
+            if (throughput() < rate * thresholds.minThroughputRatio()) {
+                violations.add(String.format("%s: throughput %.1f/s < %.1f/s", scenario, throughput(), rate * thresholds.minThroughputRatio()));
+            }
+            return violations;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-16s rate=%-7.1f req=%-7d err=%-5d ok/s=%-8.1f p50=%-8.1fms p95=%-8.1fms p99=%-8.1fms max=%-8.1fms %s",
+                scenario, rate, requests, errors, throughput(),
+                p50Micros / 1000.0, p95Micros / 1000.0, p99Micros / 1000.0, maxMicros / 1000.0, statuses);
+        }
+    }
+
+    /**
+     * @param requests builds the request for the n-th arrival
+     * @param success  which status codes count as success; anything else is an error
+     */
+    static Report run(String scenario, HttpClient client, LongFunction<HttpRequest> requests, IntPredicate success,
+                      double ratePerSecond, Duration warmup, Duration duration, Duration drainTimeout)
+            throws InterruptedException {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        int warmupArrivals = (int) (warmup.toNanos() / interval);
+        int arrivals = warmupArrivals + (int) (duration.toNanos() / interval);
+        long[] latencies = new long[arrivals];
+        int[] codes = new int[arrivals];
+        Arrays.fill(latencies, TIMED_OUT);
+        Arrays.fill(codes, FAILED);
+
+        long start = System.nanoTime();
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (int i = 0; i < arrivals; i++) {
+                long scheduled = start + i * interval;
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                int arrival = i;
+                workers.submit(() -> {
+                    int status;
+                    try {
+                        status = client.send(requests.apply(arrival), HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = FAILED;
+                    }
+                    codes[arrival] = status;
+                    latencies[arrival] = (System.nanoTime() - scheduled) / 1000;
+                });
+            }
+        } finally {
+            workers.shutdown();
+            if (!workers.awaitTermination(drainTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        }
+
+        long errors = 0;
+        long[] measured = new long[arrivals - warmupArrivals];
+        for (int i = warmupArrivals; i < arrivals; i++) {
+            boolean completed = latencies[i] != TIMED_OUT;
+            if (!completed || !success.test(codes[i])) {
+                errors++;
+            }
+            measured[i - warmupArrivals] = completed ? latencies[i] : drainTimeout.toNanos() / 1000;
+        }
+        Arrays.sort(measured);
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        for (int code : codes) {
+            statusCounts.merge(code, 1L, Long::sum);
+        }
+        return new Report(scenario, ratePerSecond, measured.length, errors, duration.toNanos() / 1e9,
+            ConcurrentLoadDriver.percentile(measured, 0.50), ConcurrentLoadDriver.percentile(measured, 0.95),
+            ConcurrentLoadDriver.percentile(measured, 0.99), measured.length == 0 ? 0 : measured[measured.length - 1],
+            statusCounts);
+    }
+}
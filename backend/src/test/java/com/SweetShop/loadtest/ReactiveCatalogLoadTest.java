@@ -0,0 +1,113 @@
+package com.sweetshop.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Servlet/JPA vs reactive catalog reads: throughput per core and the heap and thread
+ * footprint each open connection adds while the catalog is being listed.
+ *
+ * mvn -Pload-test test -Dtest=ReactiveCatalogLoadTest -Dload.concurrency=1000,10000
+ */
+@Tag("load")
+class ReactiveCatalogLoadTest {
+
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmupSeconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.durationSeconds", 20));
+    private static final int CATALOG_SIZE = Integer.getInteger("load.catalogSize", 100);
+
+    record Footprint(ConcurrentLoadDriver.Result result, double heapKbPerConnection, double threadsPerConnection) {
+
+        @Override
+        public String toString() {
+            int cores = Runtime.getRuntime().availableProcessors();
+            return String.format("%s rps/core=%-9.1f heap/conn=%-7.1fKB threads/conn=%.3f",
+                result, result.throughput() / cores, heapKbPerConnection, threadsPerConnection);
+        }
+    }
+
+    @Test
+    void reactiveStackServesCatalogWithSmallerPerConnectionFootprint() throws Exception {
+        String database = "jdbc:h2:mem:reactive-load;DB_CLOSE_DELAY=-1;MODE=PostgreSQL";
+        List<Footprint> results = new ArrayList<>();
+
+        try (LoadTestApplication servlet = LoadTestApplication.builder()
+                .property("spring.datasource.url", database)
+                .property("spring.datasource.hikari.maximum-pool-size", 50)
+                .start()) {
+            String token = servlet.registerUser("catalog");
+            for (int i = 0; i < CATALOG_SIZE; i++) {
+                servlet.createSweet(token, "Sweet " + i, "Category " + (i % 7), "3.25", 100);
+            }
+
+            try (LoadTestApplication reactive = LoadTestApplication.builder()
+                    .profiles("reactive")
+                    .property("spring.datasource.url", database)
+                    .property("spring.jpa.hibernate.ddl-auto", "none")
+                    .start()) {
+                for (int concurrency : concurrencyLevels()) {
+                    Footprint blocking = measure("servlet", servlet, token, concurrency);
+                    Footprint nonBlocking = measure("reactive", reactive, token, concurrency);
+                    results.add(blocking);
+                    results.add(nonBlocking);
+
+                    assertTrue(nonBlocking.result().requests() > 0, "reactive stack served no requests");
+                    assertTrue(nonBlocking.threadsPerConnection() <= blocking.threadsPerConnection(),
+                        "reactive stack should not need more threads per connection: " + blocking + " vs " + nonBlocking);
+                }
+            }
+        }
+        System.out.println("--- GET /api/sweets (" + CATALOG_SIZE + " sweets), "
+            + Runtime.getRuntime().availableProcessors() + " cores ---");
+        results.forEach(System.out::println);
+    }
+
+    private Footprint measure(String label, LoadTestApplication app, String token, int concurrency) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.gc();
+        long idleHeap = memory.getHeapMemoryUsage().getUsed();
+        int idleThreads = threads.getThreadCount();
+
+        LongAccumulator peakHeap = new LongAccumulator(Math::max, idleHeap);
+        LongAccumulator peakThreads = new LongAccumulator(Math::max, idleThreads);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> {
+            peakHeap.accumulate(memory.getHeapMemoryUsage().getUsed());
+            peakThreads.accumulate(threads.getThreadCount());
+        }, 0, 100, TimeUnit.MILLISECONDS);
+
+        HttpRequest request = app.request("/api/sweets", token).GET().build();
+        ConcurrentLoadDriver.Result result;
+        try {
+            result = ConcurrentLoadDriver.run(label, app.client(), () -> request, concurrency, WARMUP, DURATION);
+        } finally {
+            sampler.shutdownNow();
+        }
+        double heapKb = Math.max(0, peakHeap.get() - idleHeap) / 1024.0 / concurrency;
+        double threadsPerConnection = Math.max(0, peakThreads.get() - idleThreads) / (double) concurrency;
+        return new Footprint(result, heapKb, threadsPerConnection);
+    }
+
+    private static int[] concurrencyLevels() {
+        return Arrays.stream(System.getProperty("load.concurrency", "1000,10000").split(","))
+            .map(String::trim)
+            .mapToInt(Integer::parseInt)
+            .toArray();
+    }
+}
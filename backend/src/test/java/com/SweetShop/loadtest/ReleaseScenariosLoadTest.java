@@ -0,0 +1,175 @@
+package com.sweetshop.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sweetshop.datagen.ZipfSampler;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Production-shaped traffic against the real HTTP API on an embedded database, driven
+ * at fixed arrival rates. Each scenario prints its report and fails when it breaches
+ * its thresholds.
+ *
+ * mvn -Pload-test test -Dtest=ReleaseScenariosLoadTest [-Dload.rateScale=4 -Dload.durationSeconds=60]
+ *
+ * Default rates are sized for a single-core CI runner; scale them up on release hardware.
+ */
+@Tag("load")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReleaseScenariosLoadTest {
+
+    private static final double RATE_SCALE = Double.parseDouble(System.getProperty("load.rateScale", "1"));
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmupSeconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.durationSeconds", 20));
+    private static final Duration DRAIN = Duration.ofSeconds(30);
+    private static final Duration MAX_P99 = Duration.ofMillis(Long.getLong("load.maxP99Ms", 500));
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("load.maxErrorRate", "0.01"));
+
+    private static final String[] WORDS = {"Chocolate", "Caramel", "Cherry", "Coconut", "Lemon", "Mint", "Toffee", "Vanilla"};
+    private static final String[] CATEGORIES = {"Chocolates", "Candies", "Cakes", "Cookies", "Pastries"};
+    private static final int USERS = 20;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private LoadTestApplication app;
+    private final List<String> usernames = new ArrayList<>();
+    private final List<String> tokens = new ArrayList<>();
+    private List<Long> catalog;
+
+    @BeforeAll
+    void start() throws Exception {
+        app = LoadTestApplication.builder()
+            .virtualThreads(true)
+            .property("logging.level.com.sweetshop", "WARN")
+            .property("logging.level.org.springframework.security", "WARN")
+            .property("spring.jpa.show-sql", false)
+            .start();
+        for (int i = 0; i < USERS; i++) {
+            String username = "shopper-" + i;
+            usernames.add(username);
+            tokens.add(app.register(username));
+        }
+        List<Sweet> sweets = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            sweets.add(new Sweet(null, WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i,
+                CATEGORIES[i % CATEGORIES.length], BigDecimal.valueOf(99 + i * 7L % 2000, 2), 1000, null));
+        }
+        catalog = app.context().getBean(SweetRepository.class).saveAll(sweets).stream().map(Sweet::getId).toList();
+    }
+
+    @AfterAll
+    void stop() {
+        app.close();
+    }
+
+    /** Catalog page loads and product detail views, 1 list per 4 details; detail views follow Zipfian popularity. */
+    @Test
+    void browse() throws Exception {
+        SplittableRandom random = new SplittableRandom(1);
+        ZipfSampler popularity = new ZipfSampler(catalog.size(), 1.0);
+        OpenModelLoadDriver.Report report = OpenModelLoadDriver.run("browse", app.client(), n -> {
+            String token = tokens.get((int) (n % USERS));
+            String path = n % 5 == 0 ? "/api/sweets" : "/api/sweets/" + catalog.get(popularity.sample(random));
+            return app.request(path, token).GET().build();
+        }, status -> status == 200, rate(20), WARMUP, DURATION, DRAIN);
+
+        assertWithin(report, new OpenModelLoadDriver.Thresholds(MAX_P99, MAX_ERROR_RATE, 0.95));
+    }
+
+    /** Every keystroke of a typed query issues a search, so short prefixes dominate. */
+    @Test
+    void searchAsYouType() throws Exception {
+        OpenModelLoadDriver.Report report = OpenModelLoadDriver.run("search-as-you-type", app.client(), n -> {
+            String word = WORDS[(int) (n / 6 % WORDS.length)];
+            String prefix = word.substring(0, Math.min(word.length(), 1 + (int) (n % 6)));
+            return app.request("/api/sweets/search?name=" + URLEncoder.encode(prefix, StandardCharsets.UTF_8),
+                tokens.get((int) (n % USERS))).GET().build();
+        }, status -> status == 200, rate(10), WARMUP, DURATION, DRAIN);
+
+        assertWithin(report, new OpenModelLoadDriver.Thresholds(MAX_P99, MAX_ERROR_RATE, 0.95));
+    }
+
+    /**
+     * Everyone buys the same SKU at once. Demand exceeds stock, so late buyers must get
+     * 400 "Insufficient quantity"; units sold must equal the stock drop and the sales
+     * ledger, and never exceed the stock.
+     */
+    @Test
+    void flashSale() throws Exception {
+        int stock = (int) (rate(20) * DURATION.toSeconds() / 2);
+        String admin = app.registerAdmin("flash-admin");
+        long sku = app.createSweet(admin, "Flash Sale Fudge", "Fudge", "1.00", stock);
+        String body = MAPPER.writeValueAsString(Map.of("quantity", 1));
+
+        OpenModelLoadDriver.Report report = OpenModelLoadDriver.run("flash-sale", app.client(),
+            n -> app.request("/api/sweets/" + sku + "/purchase", tokens.get((int) (n % USERS)))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(),
+            status -> status == 200 || status == 400, rate(20), Duration.ZERO, DURATION, DRAIN);
+
+        int remaining = app.get("/api/sweets/" + sku, admin).path("data").path("quantity").asInt();
+        long sold = report.count(200);
+        System.out.println("flash-sale: stock=" + stock + " sold=" + sold + " remaining=" + remaining);
+        assertTrue(sold <= stock, "oversold: " + sold + " units sold from a stock of " + stock);
+        assertEquals(stock - sold, remaining, "lost update: stock drop does not match units sold");
+        assertTrue(remaining >= 0, "negative stock: " + remaining);
+        assertEquals(sold, ledgerUnits(sku, sold), "sales ledger does not match units sold");
+        assertWithin(report, new OpenModelLoadDriver.Thresholds(MAX_P99, MAX_ERROR_RATE, 0.95));
+    }
+
+    /** Everyone logs in at once, e.g. after a token-invalidating deploy; BCrypt dominates. */
+    @Test
+    void loginStorm() throws Exception {
+        OpenModelLoadDriver.Report report = OpenModelLoadDriver.run("login-storm", app.client(), n -> {
+            String credentials = "{\"username\":\"" + usernames.get((int) (n % USERS)) + "\",\"password\":\"password123\"}";
+            return app.request("/api/auth/login", null)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(credentials))
+                .build();
+        }, status -> status == 200, rate(2), WARMUP, DURATION, DRAIN);
+
+        assertWithin(report, new OpenModelLoadDriver.Thresholds(MAX_P99.multipliedBy(2), MAX_ERROR_RATE, 0.95));
+    }
+
+    /** Units the sales ledger holds for {@code sku}, waiting up to 10s for the writer to catch up. */
+    private long ledgerUnits(long sku, long expected) throws InterruptedException {
+        JdbcTemplate jdbcTemplate = app.context().getBean(JdbcTemplate.class);
+        long deadline = System.currentTimeMillis() + 10_000;
+        long units;
+        while ((units = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(quantity), 0) FROM sales WHERE sweet_id = ?", Long.class, sku)) < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        return units;
+    }
+
+    private static double rate(double base) {
+        return base * RATE_SCALE;
+    }
+
+    private static void assertWithin(OpenModelLoadDriver.Report report, OpenModelLoadDriver.Thresholds thresholds) {
+        System.out.println(report);
+        List<String> violations = report.violations(thresholds);
+        assertTrue(violations.isEmpty(), String.join("; ", violations));
+    }
+}
@@ -0,0 +1,161 @@
+package com.sweetshop.loadtest;
+
+import com.sweetshop.SweetShopApplication;
+import com.sweetshop.security.JwtUtil;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The first minute of traffic after a restart, without and with the startup warm-up.
+ * Each run starts the application in a fresh JVM, since JIT state carries over between
+ * contexts in one JVM. Runs share a file database seeded once with synthetic sweets and
+ * users. Traffic starts the moment {@code /actuator/health/readiness} reports UP, as a
+ * load balancer would send it: logins, sweet lookups, catalog and search reads, purchases
+ * and history charts.
+ *
+ * mvn -Pload-test test -Dtest=StartupWarmupLoadTest [-Dload.rate=60 -Dload.durationSeconds=60]
+ */
+@Tag("load")
+class StartupWarmupLoadTest {
+
+    private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "40"));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.durationSeconds", 60));
+    private static final Duration READY_TIMEOUT = Duration.ofSeconds(120);
+    private static final int SWEETS = 1000;
+    private static final int USERS = 100;
+    private static final String SECRET = "test-secret-key-that-is-at-least-256-bits-long-for-hmac-sha";
+
+    @TempDir
+    private Path dir;
+
+    private record Run(OpenModelLoadDriver.Report report, long readyMillis) {
+    }
+
+    @Test
+    void warmUpLowersFirstMinuteP99() throws Exception {
+        String url = "jdbc:h2:file:" + dir.resolve("warmup") + ";MODE=PostgreSQL";
+        Process seed = start(url, "seed", List.of("--spring.main.web-application-type=none",
+            "--sweetshop.datagen.enabled=true", "--sweetshop.datagen.sweets=" + SWEETS,
+            "--sweetshop.datagen.users=" + USERS));
+        assertTrue(seed.waitFor(5, TimeUnit.MINUTES) && seed.exitValue() == 0, "seeding failed, see " + dir);
+
+        Run cold = firstMinute(url, false);
+        Run warm = firstMinute(url, true);
+        System.out.printf("--- first %ds after readiness at %.0f req/s, %d sweets ---%n", DURATION.toSeconds(), RATE, SWEETS);
+        System.out.printf("without warm-up: ready after %5d ms  %s%n", cold.readyMillis(), cold.report());
+        System.out.printf("with warm-up:    ready after %5d ms  %s%n", warm.readyMillis(), warm.report());
+
+        // admission control sheds writes (503) while the cold JVM is slow
+        assertTrue(warm.report().errors() <= cold.report().errors(), "more errors with warm-up: " + warm.report());
+        assertTrue(warm.report().p99Micros() < cold.report().p99Micros(),
+            "first-minute p99 should drop: " + cold.report().p99Micros() / 1000.0 + "ms without, "
+                + warm.report().p99Micros() / 1000.0 + "ms with warm-up");
+    }
+
+    private Run firstMinute(String url, boolean warmup) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        String name = warmup ? "warm" : "cold";
+        long started = System.nanoTime();
+        Process app = start(url, name, List.of("--server.port=" + port, "--sweetshop.warmup.enabled=" + warmup));
+        try {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            String base = "http://localhost:" + port;
+            awaitReady(client, base + "/actuator/health/readiness", app, name);
+            long readyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+            JwtUtil jwtUtil = new JwtUtil();
+            ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+            ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+            List<String> tokens = new ArrayList<>();
+            for (int i = 1; i <= USERS; i++) {
+                tokens.add(jwtUtil.generateToken("user" + i));
+            }
+            LongFunction<HttpRequest> requests = n -> request(base, tokens, n);
+            OpenModelLoadDriver.Report report = OpenModelLoadDriver.run(name, client, requests, status -> status < 500,
+                RATE, Duration.ZERO, DURATION, Duration.ofSeconds(30));
+            return new Run(report, readyMillis);
+        } finally {
+            app.destroy();
+            if (!app.waitFor(30, TimeUnit.SECONDS)) {
+                app.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static HttpRequest request(String base, List<String> tokens, long n) {
+        long sweet = 1 + n * 7919 % SWEETS;
+        String token = tokens.get((int) (n % USERS));
+        HttpRequest.Builder request = switch ((int) (n % 20)) {
+            case 0 -> HttpRequest.newBuilder(URI.create(base + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                    "{\"username\": \"user" + (1 + n % USERS) + "\", \"password\": \"password123\"}"));
+            case 1, 2 -> get(base + "/api/sweets", token);
+            case 3, 4, 5 -> get(base + "/api/sweets/search?minPrice=1&maxPrice=" + (2 + n % 5), token);
+            case 6, 7 -> HttpRequest.newBuilder(URI.create(base + "/api/sweets/" + sweet + "/purchase"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"quantity\": 1}"));
+            case 8 -> get(base + "/api/sweets/" + sweet + "/history", token);
+            default -> get(base + "/api/sweets/" + sweet, token);
+        };
+        return request.timeout(Duration.ofSeconds(30)).build();
+    }
+
+    private static HttpRequest.Builder get(String url, String token) {
+        return HttpRequest.newBuilder(URI.create(url)).header("Authorization", "Bearer " + token).GET();
+    }
+
+    private Process start(String url, String name, List<String> args) throws IOException {
+        List<String> command = new ArrayList<>(List.of(
+            ProcessHandle.current().info().command().orElse("java"), "-Xmx512m",
+            "-cp", System.getProperty("java.class.path"), SweetShopApplication.class.getName(),
+            "--spring.datasource.url=" + url,
+            "--spring.jpa.hibernate.ddl-auto=update",
+            "--management.endpoint.health.probes.enabled=true",
+            "--logging.level.com.sweetshop=WARN"));
+        command.addAll(args);
+        return new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(dir.resolve(name + ".log").toFile())
+            .start();
+    }
+
+    private void awaitReady(HttpClient client, String readiness, Process app, String name) throws Exception {
+        long deadline = System.nanoTime() + READY_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            assertTrue(app.isAlive(), name + " exited, see " + dir.resolve(name + ".log"));
+            try {
+                HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(readiness)).build(),
+                    HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            Thread.sleep(20);
+        }
+        fail(name + " not ready within " + READY_TIMEOUT.toSeconds() + "s");
+    }
+}
@@ -0,0 +1,65 @@
+package com.sweetshop.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Platform vs virtual request threads at high connection counts, with every JDBC
+ * statement delayed to mimic a remote database.
+ *
+ * mvn -Pload-test test -Dtest=VirtualThreadLoadTest -Dload.concurrency=1000,10000
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final Duration DB_LATENCY = Duration.ofMillis(Long.getLong("load.dbLatencyMs", 20));
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmupSeconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.durationSeconds", 20));
+
+    @Test
+    void virtualThreadsSustainThroughputBeyondThePlatformPool() throws Exception {
+        List<ConcurrentLoadDriver.Result> results = new ArrayList<>();
+        for (int concurrency : concurrencyLevels()) {
+            ConcurrentLoadDriver.Result platform = run(false, concurrency);
+            ConcurrentLoadDriver.Result virtual = run(true, concurrency);
+            results.add(platform);
+            results.add(virtual);
+
+            assertTrue(virtual.errorRate() <= Math.max(0.01, platform.errorRate()),
+                "virtual threads should not fail more often than the platform pool: " + virtual);
+            assertTrue(virtual.throughput() >= platform.throughput() * 0.9,
+                "virtual threads should at least match the platform pool: " + platform + " vs " + virtual);
+        }
+        System.out.println("--- GET /api/sweets/{id}, " + DB_LATENCY.toMillis() + "ms per statement ---");
+        results.forEach(System.out::println);
+    }
+
+    private ConcurrentLoadDriver.Result run(boolean virtualThreads, int concurrency) throws Exception {
+        try (LoadTestApplication app = LoadTestApplication.builder()
+                .virtualThreads(virtualThreads)
+                .statementLatency(DB_LATENCY)
+                .property("spring.datasource.hikari.maximum-pool-size", Math.min(concurrency, 1000))
+                .start()) {
+            String token = app.registerUser("load");
+            long id = app.createSweet(token, "Load Fudge", "Fudge", "2.50", 1_000_000);
+            HttpRequest request = app.request("/api/sweets/" + id, token).GET().build();
+            return ConcurrentLoadDriver.run(virtualThreads ? "virtual" : "platform", app.client(),
+                () -> request, concurrency, WARMUP, DURATION);
+        }
+    }
+
+    private static int[] concurrencyLevels() {
+        return Arrays.stream(System.getProperty("load.concurrency", "1000,10000").split(","))
+            .map(String::trim)
+            .mapToInt(Integer::parseInt)
+            .toArray();
+    }
+}
@@ -0,0 +1,51 @@
+package com.sweetshop.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.anonymous;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class PrometheusEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser
+    void testScrapeExposesRequestPurchaseAndErrorMetrics() throws Exception {
+        mockMvc.perform(post("/api/sweets/999/purchase")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 1}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\": \"x\", \"password\": \"1\"}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/prometheus").with(anonymous()))
+                .andExpect(status().isForbidden());
+
+        mockMvc.perform(get("/actuator/prometheus").with(user("scraper").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("sweetshop_purchases_total{application=\"sweet-shop-api\",outcome=\"not_found\",} 1.0")))
+                .andExpect(content().string(containsString("sweetshop_errors_total{application=\"sweet-shop-api\",branch=\"validation\",} 1.0")))
+                .andExpect(content().string(containsString("http_server_requests_seconds{application=\"sweet-shop-api\",error=\"none\",exception=\"none\",method=\"POST\",outcome=\"CLIENT_ERROR\",status=\"400\",uri=\"/api/auth/register\",quantile=\"0.99\"")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds")));
+    }
+}
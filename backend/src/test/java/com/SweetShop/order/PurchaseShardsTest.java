@@ -0,0 +1,120 @@
+package com.sweetshop.order;
+
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:orders_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "sweetshop.purchase.mode=async",
+    "sweetshop.purchase.shards=2"
+})
+@AutoConfigureMockMvc
+class PurchaseShardsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PurchaseShards purchaseShards;
+
+    @SpyBean
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testQueuedPurchasesAreDecidedInOrderAndPolled() throws Exception {
+        Sweet sweet = sweetRepository.save(new Sweet(null, "Queued Barfi", "Barfi", new BigDecimal("2.00"), 7, null));
+        double ok = purchases("ok");
+        double insufficient = purchases("insufficient_stock");
+
+        List<String> orderIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String location = mockMvc.perform(post("/api/sweets/{id}/purchase", sweet.getId())
+                    .with(user("buyer").roles("USER"))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"quantity\": 1}"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.data.orderId").exists())
+                .andReturn().getResponse().getHeader("Location");
+            orderIds.add(location.substring(location.lastIndexOf('/') + 1));
+        }
+
+        for (int i = 0; i < orderIds.size(); i++) {
+            PurchaseOrder order = purchaseShards.find(orderIds.get(i)).done().get(5, TimeUnit.SECONDS);
+            assertEquals(i < 7 ? PurchaseOrder.Status.COMPLETED : PurchaseOrder.Status.REJECTED, order.getStatus());
+        }
+        assertEquals(0, sweetRepository.findById(sweet.getId()).orElseThrow().getQuantity());
+
+        // decided orders, and lookups without waitMs, are answered directly
+        mockMvc.perform(get("/api/orders/{id}", orderIds.get(6)).param("waitMs", "1000")
+                .with(user("buyer").roles("USER")))
+            .andExpect(request().asyncNotStarted())
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.status").value("COMPLETED"))
+            .andExpect(jsonPath("$.data.remaining").value(0));
+
+        mockMvc.perform(get("/api/orders/{id}", orderIds.get(0))
+                .with(user("someone-else").roles("USER")))
+            .andExpect(status().isNotFound());
+
+        assertEquals(7.0, purchases("ok") - ok);
+        assertEquals(3.0, purchases("insufficient_stock") - insufficient);
+    }
+
+    @Test
+    void testOneFailingSweetOnlyFailsItsOwnOrders() throws Exception {
+        // two sweets on the same shard, so their orders share batches
+        Sweet locked = sweetRepository.save(new Sweet(null, "Locked Peda", "Peda", new BigDecimal("2.00"), 10, null));
+        Sweet open = sweetRepository.save(new Sweet(null, "Open Peda", "Peda", new BigDecimal("2.00"), 10, null));
+        if ((locked.getId() - open.getId()) % 2 != 0) {
+            open = sweetRepository.save(new Sweet(null, "Open Peda", "Peda", new BigDecimal("2.00"), 10, null));
+        }
+        doThrow(new PessimisticLockingFailureException("Lock wait timeout"))
+            .when(sweetRepository).findByIdForUpdate(locked.getId());
+
+        List<PurchaseOrder> lockedOrders = new ArrayList<>();
+        List<PurchaseOrder> openOrders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            lockedOrders.add(purchaseShards.submit(locked.getId(), 1));
+            openOrders.add(purchaseShards.submit(open.getId(), 1));
+        }
+
+        for (PurchaseOrder order : openOrders) {
+            assertEquals(PurchaseOrder.Status.COMPLETED, order.done().get(5, TimeUnit.SECONDS).getStatus());
+        }
+        for (PurchaseOrder order : lockedOrders) {
+            assertEquals(PurchaseOrder.Status.REJECTED, order.done().get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals("Lock wait timeout", order.getMessage());
+        }
+        assertEquals(5, sweetRepository.findById(open.getId()).orElseThrow().getQuantity());
+        assertEquals(10, sweetRepository.findById(locked.getId()).orElseThrow().getQuantity());
+    }
+
+    private double purchases(String outcome) {
+        Counter counter = meterRegistry.find("sweetshop.purchases").tag("outcome", outcome).counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
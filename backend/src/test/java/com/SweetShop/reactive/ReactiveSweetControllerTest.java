@@ -0,0 +1,121 @@
+package com.sweetshop.reactive;
+
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.security.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:reactive_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL"
+    })
+class ReactiveSweetControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private ReactiveSweetRepository reactiveSweetRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private String token;
+    private Sweet cake;
+
+    @BeforeEach
+    void setUp() {
+        sweetRepository.deleteAll();
+        cake = sweetRepository.save(new Sweet(null, "Chocolate Cake", "Cakes", new BigDecimal("15.99"), 10, "Rich"));
+        sweetRepository.save(new Sweet(null, "Lemon Tart", "Tarts", new BigDecimal("6.50"), 4, "Zesty"));
+        reactiveSweetRepository.refresh().block();
+        token = jwtUtil.generateToken(User.withUsername("reader").password("x").roles("USER").build());
+    }
+
+    @Test
+    void testRequiresToken() {
+        webTestClient.get().uri("/api/sweets")
+            .exchange()
+            .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void testGetAllSweetsAsJson() {
+        webTestClient.get().uri("/api/sweets")
+            .header("Authorization", "Bearer " + token)
+            .accept(MediaType.ALL)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.success").isEqualTo(true)
+            .jsonPath("$.data.length()").isEqualTo(2);
+    }
+
+    @Test
+    void testGetSweetById() {
+        webTestClient.get().uri("/api/sweets/{id}", cake.getId())
+            .header("Authorization", "Bearer " + token)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.data.name").isEqualTo("Chocolate Cake");
+
+        webTestClient.get().uri("/api/sweets/{id}", -1)
+            .header("Authorization", "Bearer " + token)
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testSearchStreamsNdjson() {
+        Flux<Sweet> stream = webTestClient.get().uri("/api/sweets/search?category=tarts")
+            .header("Authorization", "Bearer " + token)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(Sweet.class)
+            .getResponseBody();
+
+        StepVerifier.create(stream.map(Sweet::getName).collectList())
+            .expectNext(List.of("Lemon Tart"))
+            .verifyComplete();
+    }
+
+    @Test
+    void testCatalogOverTheSnapshotCapIsReadFromTheDatabase() {
+        ReflectionTestUtils.setField(reactiveSweetRepository, "maxSnapshotSweets", 1);
+        try {
+            reactiveSweetRepository.refresh().block();
+            Sweet added = sweetRepository.save(new Sweet(null, "Mango Tart", "Tarts", new BigDecimal("7.00"), 3, null));
+
+            StepVerifier.create(reactiveSweetRepository.findAll().map(Sweet::getName).collectList())
+                .expectNext(List.of("Chocolate Cake", "Lemon Tart", "Mango Tart"))
+                .verifyComplete();
+            StepVerifier.create(reactiveSweetRepository.findById(added.getId()).map(Sweet::getName))
+                .expectNext("Mango Tart")
+                .verifyComplete();
+            StepVerifier.create(reactiveSweetRepository.searchSweets(null, "tarts", null, null).count())
+                .expectNext(2L)
+                .verifyComplete();
+        } finally {
+            ReflectionTestUtils.setField(reactiveSweetRepository, "maxSnapshotSweets", 100_000);
+        }
+    }
+}
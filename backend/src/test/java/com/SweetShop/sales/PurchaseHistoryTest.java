@@ -0,0 +1,101 @@
+package com.sweetshop.sales;
+
+import com.sweetshop.dto.PurchaseHistoryItem;
+import com.sweetshop.dto.PurchaseHistoryPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:history_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL")
+@AutoConfigureMockMvc
+class PurchaseHistoryTest {
+
+    @Autowired
+    private PurchaseHistory purchaseHistory;
+
+    @Autowired
+    private SalesLedger salesLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void testPagesByKeysetAndRefreshesCachedRecentPurchases() throws Exception {
+        Instant start = Instant.parse("2026-01-01T10:00:00Z");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            // five purchases share each timestamp, so the id breaks ties
+            rows.add(sale("alice", i, start.plusSeconds(i / 5)));
+        }
+        for (int i = 0; i < 10; i++) {
+            rows.add(sale("bob", i, start.plusSeconds(i)));
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO sales (sale_id, sweet_id, category, username, quantity, unit_price, sold_at) " +
+            "VALUES (?, ?, 'History', ?, ?, 1.50, ?)", rows);
+        List<Long> expected = jdbcTemplate.queryForList(
+            "SELECT id FROM sales WHERE username = 'alice' ORDER BY sold_at DESC, id DESC", Long.class);
+
+        List<Long> paged = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PurchaseHistoryPage page = purchaseHistory.page("alice", cursor, 100);
+            page.getPurchases().forEach(item -> paged.add(item.getId()));
+            cursor = page.getNext();
+            pages++;
+        } while (cursor != null);
+        assertEquals(3, pages);
+        assertEquals(expected, paged);
+
+        PurchaseHistoryPage first = purchaseHistory.page("alice", null, 20);
+        assertSame(first.getPurchases().get(0), purchaseHistory.page("alice", null, 20).getPurchases().get(0));
+        assertNotNull(first.getNext());
+
+        salesLedger.onPurchase(new PurchaseCompletedEvent(UUID.randomUUID().toString(), 77, "History", "alice", 3,
+            new BigDecimal("2.00"), start.plusSeconds(3600)));
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        PurchaseHistoryItem newest;
+        do {
+            Thread.sleep(20);
+            newest = purchaseHistory.page("alice", null, 20).getPurchases().get(0);
+        } while (newest.getSweetId() != 77 && System.nanoTime() < deadline);
+        assertEquals(77, newest.getSweetId());
+        assertEquals(3, newest.getQuantity());
+
+        mockMvc.perform(get("/api/users/me/purchases").with(user("bob").roles("USER")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.purchases", hasSize(10)))
+            .andExpect(jsonPath("$.data.next").doesNotExist());
+        mockMvc.perform(get("/api/users/alice/purchases").with(user("bob").roles("USER")))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/users/alice/purchases").param("limit", "5").with(user("admin").roles("ADMIN")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.purchases", hasSize(5)))
+            .andExpect(jsonPath("$.data.next").isString());
+        mockMvc.perform(get("/api/users/me/purchases").param("cursor", "not-a-cursor").with(user("bob").roles("USER")))
+            .andExpect(status().isBadRequest());
+    }
+
+    private static Object[] sale(String username, int i, Instant soldAt) {
+        return new Object[]{UUID.randomUUID().toString(), 1 + i % 7, username, 1 + i % 3, Timestamp.from(soldAt)};
+    }
+}
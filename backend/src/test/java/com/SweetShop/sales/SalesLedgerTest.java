@@ -0,0 +1,159 @@
+package com.sweetshop.sales;
+
+import com.jayway.jsonpath.JsonPath;
+import com.sweetshop.dto.PurchaseRequest;
+import com.sweetshop.model.Sale;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SaleRepository;
+import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.service.SweetService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class SalesLedgerTest {
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private SaleRepository saleRepository;
+
+    @Autowired
+    private SalesLedger salesLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(username = "buyer")
+    void testCommittedPurchasesAreWrittenToTheLedger() throws Exception {
+        Sweet sweet = sweetRepository.save(new Sweet(null, "Ledger Fudge", "Fudge", new BigDecimal("3.25"), 7, null));
+        Instant from = Instant.now().minus(1, ChronoUnit.MINUTES);
+
+        for (int i = 0; i < 3; i++) {
+            sweetService.purchaseSweet(sweet.getId(), new PurchaseRequest(2));
+        }
+        assertThrows(RuntimeException.class, () -> sweetService.purchaseSweet(sweet.getId(), new PurchaseRequest(2)));
+
+        Instant to = Instant.now().plus(1, ChronoUnit.MINUTES);
+        List<Sale> sales = awaitSales(sweet.getId(), from, to, 3);
+        assertEquals(3, sales.size());
+        sales.forEach(sale -> {
+            assertEquals("buyer", sale.getUsername());
+            assertEquals(2, sale.getQuantity());
+            assertEquals(0, new BigDecimal("3.25").compareTo(sale.getUnitPrice()));
+        });
+
+        mockMvc.perform(get("/api/sales/sweet/{id}", sweet.getId())
+                .param("from", from.toString()).param("to", to.toString())
+                .with(user("admin").roles("ADMIN")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.sales.length()").value(3))
+            .andExpect(jsonPath("$.data.sales[0].username").value("buyer"))
+            .andExpect(jsonPath("$.data.next").doesNotExist());
+
+        String body = mockMvc.perform(get("/api/sales/sweet/{id}", sweet.getId())
+                .param("from", from.toString()).param("to", to.toString()).param("size", "2")
+                .with(user("admin").roles("ADMIN")))
+            .andExpect(jsonPath("$.data.sales.length()").value(2))
+            .andReturn().getResponse().getContentAsString();
+        String next = JsonPath.read(body, "$.data.next");
+        mockMvc.perform(get("/api/sales/sweet/{id}", sweet.getId())
+                .param("from", from.toString()).param("to", to.toString()).param("size", "2").param("cursor", next)
+                .with(user("admin").roles("ADMIN")))
+            .andExpect(jsonPath("$.data.sales.length()").value(1))
+            .andExpect(jsonPath("$.data.sales[0].id").value(sales.get(2).getId()))
+            .andExpect(jsonPath("$.data.next").doesNotExist());
+
+        mockMvc.perform(get("/api/sales")
+                .param("from", from.toString()).param("to", to.toString())
+                .with(user("buyer").roles("USER")))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testRowsBreakingAConstraintAreSetAside() throws Exception {
+        Instant now = Instant.now();
+        String poison = UUID.randomUUID().toString();
+        String good = UUID.randomUUID().toString();
+        // category is NOT NULL in sales
+        salesLedger.onPurchase(new PurchaseCompletedEvent(poison, 424242L, null, "buyer", 1, BigDecimal.ONE, now));
+        salesLedger.onPurchase(new PurchaseCompletedEvent(good, 424242L, "Fudge", "buyer", 1, BigDecimal.ONE, now));
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (deadLetters(poison) == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, deadLetters(poison));
+        assertEquals(1, awaitSales(424242L, now.minusSeconds(1), now.plusSeconds(1), 1).size());
+        assertEquals(good, saleRepository.findSweetRange(
+            424242L, now.minusSeconds(1), now.plusSeconds(1), PageRequest.of(0, 10)).get(0).getSaleId());
+    }
+
+    @Test
+    void testSalesLeftPendingByACrashAreWrittenOnStart() throws Exception {
+        Sweet sweet = sweetRepository.save(new Sweet(null, "Pending Peda", "Peda", new BigDecimal("1.50"), 10, null));
+        Instant now = Instant.now();
+        sweetService.purchaseSweet(sweet.getId(), new PurchaseRequest(1));
+        awaitSales(sweet.getId(), now.minusSeconds(1), now.plusSeconds(60), 1);
+        assertEquals(0, pending(sweet.getId()), "a written sale leaves no pending row");
+
+        // what a crash leaves behind: committed with the stock update, never written
+        String lost = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO sales_pending (sale_id, sweet_id, category, username, quantity, unit_price, sold_at) "
+            + "VALUES (?, ?, 'Peda', 'buyer', 2, 1.50, ?)", lost, sweet.getId(), Timestamp.from(now));
+        salesLedger.stop();
+        salesLedger.start();
+
+        List<Sale> sales = awaitSales(sweet.getId(), now.minusSeconds(1), now.plusSeconds(60), 2);
+        assertTrue(sales.stream().anyMatch(sale -> sale.getSaleId().equals(lost)));
+        assertEquals(0, pending(sweet.getId()));
+    }
+
+    private int pending(Long sweetId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sales_pending WHERE sweet_id = ?", Integer.class, sweetId);
+    }
+
+    private int deadLetters(String saleId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sales_dead_letters WHERE sale_id = ?", Integer.class, saleId);
+    }
+
+    private List<Sale> awaitSales(Long sweetId, Instant from, Instant to, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        List<Sale> sales;
+        do {
+            Thread.sleep(20);
+            sales = saleRepository.findSweetRange(
+                sweetId, from, to, PageRequest.of(0, 100));
+        } while (sales.size() < expected && System.currentTimeMillis() < deadline);
+        Thread.sleep(100);
+        return saleRepository.findSweetRange(
+            sweetId, from, to, PageRequest.of(0, 100));
+    }
+}
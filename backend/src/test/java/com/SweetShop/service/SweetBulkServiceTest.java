@@ -0,0 +1,117 @@
+package com.sweetshop.service;
+
+import com.sweetshop.cache.CatalogResponseCache;
+import com.sweetshop.datagen.SyntheticDataGenerator;
+import com.sweetshop.dto.BulkSweetRequest;
+import com.sweetshop.dto.BulkSweetResult;
+import com.sweetshop.dto.DataGenerationRequest;
+import com.sweetshop.dto.SweetChange;
+import com.sweetshop.dto.SweetChangesResponse;
+import com.sweetshop.sync.ChangeSequence;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:bulk_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "spring.jpa.show-sql=false"
+})
+@AutoConfigureMockMvc
+class SweetBulkServiceTest {
+
+    @Autowired
+    private SweetBulkService sweetBulkService;
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private SyntheticDataGenerator generator;
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private CatalogResponseCache catalogResponseCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void testBulkChangesAreSetBasedAndReachTheChangeFeed() throws Exception {
+        generator.generate(new DataGenerationRequest(100_000, 0, 11));
+        String category = jdbcTemplate.queryForObject(
+            "SELECT category FROM sweets GROUP BY category ORDER BY COUNT(*) DESC LIMIT 1", String.class);
+        long inCategory = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sweets WHERE category = ?", Long.class, category);
+        Map<String, Object> sample = jdbcTemplate.queryForMap(
+            "SELECT id, price FROM sweets WHERE category = ? ORDER BY id LIMIT 1", category);
+        catalogResponseCache.catalog(CatalogResponseCache.Format.JSON, false);
+        long since = changeSequence.watermark();
+
+        BulkSweetRequest raise = new BulkSweetRequest();
+        raise.setCategory(category.toUpperCase());
+        raise.setPricePercent(new BigDecimal("10"));
+        BulkSweetResult result = sweetBulkService.update(raise);
+        assertEquals(inCategory, result.getAffected());
+        assertEquals(0, catalogResponseCache.bytes());
+
+        BigDecimal expected = ((BigDecimal) sample.get("PRICE")).multiply(new BigDecimal("1.1")).setScale(2, RoundingMode.HALF_UP);
+        assertEquals(0, expected.compareTo(jdbcTemplate.queryForObject(
+            "SELECT price FROM sweets WHERE id = ?", BigDecimal.class, sample.get("ID"))));
+
+        // every updated row has its own sequence, so the feed pages through all of them
+        long fed = 0;
+        SweetChangesResponse page;
+        do {
+            page = sweetService.getChangesSince(since, 5000);
+            fed += page.getChanges().size();
+            since = page.getNext();
+        } while (page.isHasMore());
+        assertEquals(inCategory, fed);
+
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM sweets ORDER BY id LIMIT 3", Long.class);
+        BulkSweetRequest delete = new BulkSweetRequest();
+        delete.setIds(List.of(ids.get(0), ids.get(2), ids.get(2), -1L));
+        assertEquals(2, sweetBulkService.delete(delete).getAffected());
+        List<SweetChange> changes = sweetService.getChangesSince(since, 10).getChanges();
+        assertEquals(2, changes.size());
+        assertTrue(changes.stream().allMatch(SweetChange::isDeleted));
+
+        BulkSweetRequest restock = new BulkSweetRequest();
+        restock.setIds(List.of(ids.get(1)));
+        restock.setSetQuantity(0);
+        assertEquals(1, sweetBulkService.update(restock).getAffected());
+        restock.setSetQuantity(null);
+        restock.setAddQuantity(-1);
+        assertEquals(0, sweetBulkService.update(restock).getAffected());
+
+        mockMvc.perform(post("/api/admin/sweets/bulk-update")
+                .with(user("buyer").roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"category\": \"" + category + "\", \"priceDelta\": 1}"))
+            .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/admin/sweets/bulk-update")
+                .with(user("admin").roles("ADMIN"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"category\": \"" + category + "\", \"priceDelta\": 1, \"addQuantity\": 5}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.success").value(false));
+    }
+}
@@ -1,13 +1,17 @@
 package com.sweetshop.service;
 
+import com.sweetshop.metrics.SweetShopMetrics;
 import com.sweetshop.model.Sweet;
 import com.sweetshop.repository.SweetRepository;
+import com.sweetshop.sales.PurchaseCompletedEvent;
+import com.sweetshop.stream.SweetChangedEvent;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -24,6 +28,12 @@ class SweetServiceTest {
     @Mock
     private SweetRepository sweetRepository;
 
+    @Mock
+    private SweetShopMetrics metrics;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private SweetService sweetService;
 
@@ -128,7 +138,7 @@ class SweetServiceTest {
     @Test
     void testPurchaseSweet_Success() {
         // Given
-        when(sweetRepository.findById(1L)).thenReturn(Optional.of(testSweet));
+        when(sweetRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testSweet));
         when(sweetRepository.save(any(Sweet.class))).thenReturn(testSweet);
 
         // When
@@ -137,14 +147,17 @@ class SweetServiceTest {
         // Then
         assertTrue(result);
         assertEquals(8, testSweet.getQuantity()); // 10 - 2 = 8
-        verify(sweetRepository).findById(1L);
+        verify(sweetRepository).findByIdForUpdate(1L);
         verify(sweetRepository).save(testSweet);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof PurchaseCompletedEvent purchase
+            && purchase.sweetId() == 1L && purchase.quantity() == 2 && purchase.unitPrice().equals(new BigDecimal("15.99"))));
+        verify(eventPublisher).publishEvent(new SweetChangedEvent(1L, 8, new BigDecimal("15.99"), null, false, true));
     }
 
     @Test
     void testPurchaseSweet_InsufficientQuantity() {
         // Given
-        when(sweetRepository.findById(1L)).thenReturn(Optional.of(testSweet));
+        when(sweetRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testSweet));
 
         // When
         boolean result = sweetService.purchaseSweet(1L, 15); // More than available
@@ -152,14 +165,16 @@ class SweetServiceTest {
         // Then
         assertFalse(result);
         assertEquals(10, testSweet.getQuantity()); // Quantity unchanged
-        verify(sweetRepository).findById(1L);
+        verify(sweetRepository).findByIdForUpdate(1L);
         verify(sweetRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+        verify(metrics).recordPurchase(SweetShopMetrics.PurchaseOutcome.INSUFFICIENT_STOCK);
     }
 
     @Test
     void testRestockSweet() {
         // Given
-        when(sweetRepository.findById(1L)).thenReturn(Optional.of(testSweet));
+        when(sweetRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(testSweet));
         when(sweetRepository.save(any(Sweet.class))).thenReturn(testSweet);
 
         // When
@@ -168,7 +183,7 @@ class SweetServiceTest {
         // Then
         assertTrue(result);
         assertEquals(15, testSweet.getQuantity()); // 10 + 5 = 15
-        verify(sweetRepository).findById(1L);
+        verify(sweetRepository).findByIdForUpdate(1L);
         verify(sweetRepository).save(testSweet);
     }
 }
\ No newline at end of file
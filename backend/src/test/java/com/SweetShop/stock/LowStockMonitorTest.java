@@ -0,0 +1,95 @@
+package com.sweetshop.stock;
+
+import com.sweetshop.dto.LowStockAlert;
+import com.sweetshop.dto.LowStockFeed;
+import com.sweetshop.dto.PurchaseRequest;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.service.SweetService;
+import com.sweetshop.stream.SweetChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class LowStockMonitorTest {
+
+    @Autowired
+    private LowStockMonitor monitor;
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(username = "manager")
+    void testAlertsOnlyOnCrossingsWithHysteresis() throws Exception {
+        long since = monitor.alertsSince(0).getNext();
+        Sweet sweet = new Sweet(null, "Alert Brittle", "Brittles", new BigDecimal("1.75"), 12, null);
+        sweet.setReorderLevel(10);
+        Long id = sweetService.createSweet(sweet).getId();
+
+        sweetService.purchaseSweet(id, new PurchaseRequest(3));  // 9: low
+        sweetService.purchaseSweet(id, new PurchaseRequest(1));  // 8: still low
+        sweetService.restockSweet(id, new PurchaseRequest(3));   // 11: above level, inside hysteresis band
+        sweetService.purchaseSweet(id, new PurchaseRequest(2));  // 9
+        sweetService.restockSweet(id, new PurchaseRequest(3));   // 12: recovered
+        sweetService.purchaseSweet(id, new PurchaseRequest(2));  // 10: not below level
+        sweetService.purchaseSweet(id, new PurchaseRequest(1));  // 9: low again
+
+        LowStockFeed feed = monitor.alertsSince(since);
+        List<LowStockAlert> alerts = feed.getAlerts().stream().filter(alert -> alert.getSweetId().equals(id)).toList();
+        assertEquals(List.of(LowStockAlert.Type.LOW, LowStockAlert.Type.RECOVERED, LowStockAlert.Type.LOW),
+            alerts.stream().map(LowStockAlert::getType).toList());
+        assertEquals(List.of(9, 12, 9), alerts.stream().map(LowStockAlert::getQuantity).toList());
+        assertTrue(feed.getLowSweetIds().contains(id));
+
+        sweetService.deleteSweet(id);
+        assertFalse(monitor.alertsSince(since).getLowSweetIds().contains(id));
+
+        mockMvc.perform(get("/api/admin/alerts/low-stock").param("since", String.valueOf(since))
+                .with(user("admin").roles("ADMIN")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.alerts[0].type").value("LOW"));
+        mockMvc.perform(get("/api/admin/alerts/low-stock").param("since", "-5")
+                .with(user("admin").roles("ADMIN")))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("since must not be negative"));
+        assertFalse(monitor.alertsSince(-5).getAlerts().isEmpty());
+        mockMvc.perform(get("/api/admin/alerts/low-stock").with(user("manager").roles("USER")))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testDropsChangesOlderThanTheLastApplied() {
+        long since = monitor.alertsSince(0).getNext();
+        long id = 1_000_001;
+        BigDecimal price = new BigDecimal("1.00");
+
+        // a restock (seq 12) commits after a purchase (seq 11) but its event is delivered first
+        monitor.onSweetChanged(new SweetChangedEvent(id, 20, price, 10, false, true, 12L));
+        monitor.onSweetChanged(new SweetChangedEvent(id, 5, price, 10, false, true, 11L));
+        assertFalse(monitor.alertsSince(since).getLowSweetIds().contains(id));
+
+        monitor.onSweetChanged(new SweetChangedEvent(id, 4, price, 10, false, true, 13L));
+        assertTrue(monitor.alertsSince(since).getLowSweetIds().contains(id));
+
+        monitor.onSweetChanged(new SweetChangedEvent(id, null, null, null, true));
+        monitor.onSweetChanged(new SweetChangedEvent(id, 3, price, 10, false, true, 14L));
+        assertFalse(monitor.alertsSince(since).getLowSweetIds().contains(id));
+        assertEquals(1, monitor.alertsSince(since).getAlerts().stream().filter(alert -> alert.getSweetId() == id).count());
+    }
+}
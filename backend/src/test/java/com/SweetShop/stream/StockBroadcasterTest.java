@@ -0,0 +1,93 @@
+package com.sweetshop.stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:stream_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+    "sweetshop.stream.flush-interval-ms=3600000",
+    "sweetshop.stream.replay-size=4"
+})
+@AutoConfigureMockMvc
+class StockBroadcasterTest {
+
+    @Autowired
+    private StockBroadcaster broadcaster;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void testCoalescesChangesAndResumesFromLastEventId() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/api/sweets/stream").with(user("viewer").roles("USER")))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        broadcaster.onSweetChanged(new SweetChangedEvent(901, 10, new BigDecimal("2.00"), null, false));
+        broadcaster.onSweetChanged(new SweetChangedEvent(902, 5, new BigDecimal("1.00"), null, false));
+        broadcaster.onSweetChanged(new SweetChangedEvent(901, 9, new BigDecimal("2.00"), null, false));
+        broadcaster.onSweetChanged(new SweetChangedEvent(901, 8, new BigDecimal("2.50"), null, false));
+        broadcaster.flush();
+
+        String body = awaitContent(stream.getResponse(), "\"id\":902");
+        assertEquals(2, count(body, "event:stock"));
+        assertTrue(body.contains("data:{\"id\":901,\"quantity\":8,\"price\":2.50}"), body);
+        assertFalse(body.contains("\"quantity\":10"), body);
+        long first = firstEventId(body);
+
+        MvcResult resumed = mockMvc.perform(get("/api/sweets/stream").header("Last-Event-ID", first)
+                .with(user("viewer").roles("USER")))
+            .andReturn();
+        String missed = awaitContent(resumed.getResponse(), "\"id\":902");
+        assertEquals(1, count(missed, "event:stock"));
+        assertFalse(missed.contains("\"id\":901"), missed);
+
+        for (long id = 903; id < 908; id++) {
+            broadcaster.onSweetChanged(SweetChangedEvent.deleted(id));
+        }
+        broadcaster.flush();
+        assertTrue(awaitContent(stream.getResponse(), "\"id\":907").contains("event:deleted"));
+
+        MvcResult tooOld = mockMvc.perform(get("/api/sweets/stream").header("Last-Event-ID", first)
+                .with(user("viewer").roles("USER")))
+            .andReturn();
+        assertTrue(awaitContent(tooOld.getResponse(), "event:reset").contains("event:reset"));
+
+        mockMvc.perform(get("/api/sweets/stream"))
+            .andExpect(status().isForbidden());
+    }
+
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5_000;
+        String body = response.getContentAsString();
+        while (!body.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            body = response.getContentAsString();
+        }
+        return body;
+    }
+
+    private static int count(String body, String token) {
+        return body.split(Pattern.quote(token), -1).length - 1;
+    }
+
+    private static long firstEventId(String body) {
+        Matcher matcher = Pattern.compile("id:(\\d+)\\n").matcher(body);
+        assertTrue(matcher.find(), body);
+        return Long.parseLong(matcher.group(1));
+    }
+}
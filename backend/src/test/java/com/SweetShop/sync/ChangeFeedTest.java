@@ -0,0 +1,77 @@
+package com.sweetshop.sync;
+
+import com.sweetshop.dto.PurchaseRequest;
+import com.sweetshop.dto.SweetChange;
+import com.sweetshop.dto.SweetChangesResponse;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.service.SweetService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ChangeFeedTest {
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private ChangeSequence changeSequence;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(username = "terminal")
+    void testReturnsOnlyChangesSinceLastSync() throws Exception {
+        long start = changeSequence.watermark();
+        Sweet kept = sweetService.createSweet(new Sweet(null, "Feed Toffee", "Toffees", new BigDecimal("1.20"), 10, null));
+        Sweet removed = sweetService.createSweet(new Sweet(null, "Feed Halva", "Halva", new BigDecimal("3.00"), 4, null));
+        Sweet untouched = sweetService.createSweet(new Sweet(null, "Feed Mochi", "Mochi", new BigDecimal("2.10"), 6, null));
+        long synced = changeSequence.watermark();
+
+        sweetService.purchaseSweet(kept.getId(), new PurchaseRequest(3));
+        sweetService.restockSweet(kept.getId(), new PurchaseRequest(1));
+        sweetService.deleteSweet(removed.getId());
+
+        SweetChangesResponse delta = sweetService.getChangesSince(synced, 100);
+        assertFalse(delta.isHasMore());
+        assertEquals(List.of(kept.getId(), removed.getId()), delta.getChanges().stream().map(SweetChange::getId).toList());
+        assertEquals(8, delta.getChanges().get(0).getSweet().getQuantity());
+        assertTrue(delta.getChanges().get(1).isDeleted());
+        assertNull(delta.getChanges().get(1).getSweet());
+        assertEquals(changeSequence.watermark(), delta.getNext());
+
+        SweetChangesResponse firstPage = sweetService.getChangesSince(start, 1);
+        assertTrue(firstPage.isHasMore());
+        assertEquals(untouched.getId(), firstPage.getChanges().get(0).getId());
+        SweetChangesResponse rest = sweetService.getChangesSince(firstPage.getNext(), 10);
+        assertEquals(2, rest.getChanges().size());
+
+        // a change numbered before an uncommitted one stays hidden until that one completes
+        long pendingSeq = changeSequence.reserve(1);
+        sweetService.restockSweet(kept.getId(), new PurchaseRequest(1));
+        assertTrue(sweetService.getChangesSince(delta.getNext(), 100).getChanges().isEmpty());
+        changeSequence.release(pendingSeq);
+        assertEquals(9, sweetService.getChangesSince(delta.getNext(), 100).getChanges().get(0).getSweet().getQuantity());
+
+        mockMvc.perform(get("/api/sweets/changes").param("since", String.valueOf(synced))
+                .with(user("terminal").roles("USER")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data.changes.length()").value(2))
+            .andExpect(jsonPath("$.data.changes[0].deleted").value(true))
+            .andExpect(jsonPath("$.data.changes[1].sweet.quantity").value(9));
+    }
+}
@@ -0,0 +1,129 @@
+package com.sweetshop.timeseries;
+
+import com.sweetshop.dto.PurchaseRequest;
+import com.sweetshop.dto.SweetRequest;
+import com.sweetshop.model.Sweet;
+import com.sweetshop.service.SweetService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:timeseries_test;DB_CLOSE_DELAY=-1;MODE=PostgreSQL")
+@AutoConfigureMockMvc
+class SweetTimeSeriesTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 3_600_000L;
+    private static final long DAY = 24 * HOUR;
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void testDownsampledTiersMatchTheRawSamples() {
+        SweetSeries series = new SweetSeries(64, 16, new long[]{HOUR, DAY, 30 * DAY});
+        long start = 1_767_225_600_000L; // 2026-01-01T00:00Z
+        Random random = new Random(42);
+        List<long[]> samples = new ArrayList<>();
+        long time = start;
+        int quantity = 500;
+        long price = 250;
+        while (time < start + 20 * DAY) {
+            time += 1 + random.nextInt((int) (10 * MINUTE));
+            quantity = Math.max(0, quantity + random.nextInt(21) - 15);
+            if (quantity < 50) {
+                quantity += 400;
+            }
+            if (random.nextInt(50) == 0) {
+                price += random.nextInt(41) - 20;
+            }
+            if (series.record(time, quantity, price)) {
+                samples.add(new long[]{time, quantity, price});
+            }
+        }
+
+        int[] records = series.records();
+        assertTrue(records[SweetSeries.Tier.RAW.ordinal()] <= 64 * 16);
+        assertTrue(records[SweetSeries.Tier.HOUR.ordinal()] > 0, "old samples were folded into hours");
+        assertTrue(series.bytes() < 64L * 16 * 3 * 40, "bytes " + series.bytes());
+
+        // every hour is answered exactly, whichever tier it ended up in
+        List<SweetSeries.Point> hours = series.query(start, start + 20 * DAY, HOUR);
+        int next = 0;
+        for (SweetSeries.Point point : hours) {
+            while (samples.get(next)[0] < point.start()) {
+                next++;
+            }
+            long[] expected = {Long.MAX_VALUE, Long.MIN_VALUE, 0, Long.MAX_VALUE, Long.MIN_VALUE, 0};
+            for (; next < samples.size() && samples.get(next)[0] < point.start() + HOUR; next++) {
+                long[] sample = samples.get(next);
+                expected[0] = Math.min(expected[0], sample[1]);
+                expected[1] = Math.max(expected[1], sample[1]);
+                expected[2] = sample[1];
+                expected[3] = Math.min(expected[3], sample[2]);
+                expected[4] = Math.max(expected[4], sample[2]);
+                expected[5] = sample[2];
+            }
+            assertArrayEquals(expected, new long[]{point.quantityMin(), point.quantityMax(), point.quantityLast(),
+                point.priceMin(), point.priceMax(), point.priceLast()}, "hour at " + point.start());
+        }
+        assertEquals(samples.stream().filter(s -> s[0] < start + 20 * DAY).map(s -> s[0] / HOUR).distinct().count(), hours.size());
+
+        // a burst stays within the chunk limits, spilling into the coarser tiers
+        for (int i = 0; i < 100_000; i++) {
+            series.record(time + i, i % 2, price);
+        }
+        records = series.records();
+        for (int tier : records) {
+            assertTrue(tier <= 64 * 16, "records per tier " + tier);
+        }
+        long burstMinute = time / MINUTE * MINUTE;
+        List<SweetSeries.Point> burst = series.query(burstMinute, burstMinute + 3 * MINUTE, MINUTE);
+        assertFalse(burst.isEmpty());
+        burst.forEach(point -> assertEquals(0, point.quantityMin()));
+        assertEquals(1, burst.get(burst.size() - 1).quantityLast());
+    }
+
+    @Test
+    void testServesHistoryOfServiceWrites() throws Exception {
+        Sweet sweet = sweetService.createSweet(new SweetRequest("History Barfi", "History", new BigDecimal("4.00"), 10, null, null));
+        sweetService.purchaseSweet(sweet.getId(), new PurchaseRequest(3));
+        sweetService.restockSweet(sweet.getId(), new PurchaseRequest(1));
+        sweetService.updateSweet(sweet.getId(), new SweetRequest("History Barfi", "History", new BigDecimal("4.50"), 8, null, null));
+
+        Instant to = Instant.now().plusSeconds(60);
+        mockMvc.perform(get("/api/sweets/" + sweet.getId() + "/history")
+                .param("from", to.minus(Duration.ofDays(1)).toString()).param("to", to.toString())
+                .param("step", "1d")
+                .with(user("buyer").roles("USER")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.data", hasSize(1)))
+            .andExpect(jsonPath("$.data[0].quantityMin").value(7))
+            .andExpect(jsonPath("$.data[0].quantityMax").value(10))
+            .andExpect(jsonPath("$.data[0].quantityLast").value(8))
+            .andExpect(jsonPath("$.data[0].priceMin").value(4.0))
+            .andExpect(jsonPath("$.data[0].priceLast").value(4.5));
+
+        mockMvc.perform(get("/api/sweets/" + sweet.getId() + "/history").param("step", "1s")
+                .with(user("buyer").roles("USER")))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,61 @@
+package com.sweetshop.web;
+
+import com.sweetshop.model.Sweet;
+import com.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AdmissionControlFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testOnlyAdminsGetTheHighPriorityQueue() throws Exception {
+        Sweet sweet = sweetRepository.save(new Sweet(null, "Priority Fudge", "Fudge", new BigDecimal("3.00"), 5, null));
+        double high = admitted("high");
+        double normal = admitted("normal");
+
+        mockMvc.perform(post("/api/sweets/{id}/restock", sweet.getId())
+                .with(user("shopper").roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 1}"))
+            .andExpect(status().isForbidden());
+        assertEquals(high, admitted("high"));
+        assertEquals(normal + 1, admitted("normal"));
+
+        mockMvc.perform(post("/api/sweets/{id}/restock", sweet.getId())
+                .with(user("admin").roles("ADMIN"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 1}"))
+            .andExpect(status().isOk());
+        assertEquals(high + 1, admitted("high"));
+    }
+
+    private double admitted(String priority) {
+        Counter counter = meterRegistry.find("sweetshop.admission.requests")
+            .tags("priority", priority, "outcome", "admitted").counter();
+        return counter != null ? counter.count() : 0;
+    }
+}
@@ -0,0 +1,101 @@
+package com.sweetshop.web;
+
+import com.sweetshop.web.ConcurrencyLimiter.Admission;
+import com.sweetshop.web.ConcurrencyLimiter.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void testFreedSlotsGoToTheHighestPriorityFirst() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1, TARGET, 0.5, 10);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        assertEquals(Admission.ADMITTED, limiter.acquire(Priority.NORMAL, deadline));
+
+        List<Priority> admitted = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> low = waitFor(limiter, Priority.LOW, deadline, admitted);
+        awaitQueued(limiter, Priority.LOW);
+        CompletableFuture<Void> high = waitFor(limiter, Priority.HIGH, deadline, admitted);
+        awaitQueued(limiter, Priority.HIGH);
+
+        limiter.release(1_000);
+        high.get(5, TimeUnit.SECONDS);
+        limiter.release(1_000);
+        low.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(Priority.HIGH, Priority.LOW), admitted);
+    }
+
+    @Test
+    void testLimitGrowsWhileFastAndBacksOffWhenSlow() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 2, 100, TARGET, 0.5, 10);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (int i = 0; i < 200; i++) {
+            for (int j = 0; j < limiter.limit(); j++) {
+                limiter.acquire(Priority.NORMAL, deadline);
+            }
+            for (int j = limiter.inFlight(); j > 0; j--) {
+                limiter.release(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+        int grown = limiter.limit();
+        assertTrue(grown > 20, "limit should grow under fast responses: " + grown);
+
+        limiter.acquire(Priority.NORMAL, deadline);
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(grown / 2, limiter.limit(), 1);
+    }
+
+    @Test
+    void testRequestsThatCannotMeetTheirDeadlineAreShed() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1, TARGET, 0.5, 1);
+        long far = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        limiter.acquire(Priority.LOW, far);
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(Admission.ADMITTED, limiter.acquire(Priority.LOW, far));
+
+        // average service time is 50 ms, so a 20 ms budget can never be met
+        assertEquals(Admission.DEADLINE, limiter.acquire(Priority.HIGH, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(20)));
+        // waits, then gives up once it could no longer finish in time
+        long started = System.nanoTime();
+        assertEquals(Admission.DEADLINE, limiter.acquire(Priority.HIGH, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(150)));
+        assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(150));
+
+        CompletableFuture<Void> queued = waitFor(limiter, Priority.LOW, far, new CopyOnWriteArrayList<>());
+        awaitQueued(limiter, Priority.LOW);
+        assertEquals(Admission.QUEUE_FULL, limiter.acquire(Priority.LOW, far));
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(50));
+        queued.get(5, TimeUnit.SECONDS);
+    }
+
+    private static CompletableFuture<Void> waitFor(ConcurrencyLimiter limiter, Priority priority, long deadline,
+                                                   List<Priority> admitted) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Thread.ofVirtual().start(() -> {
+            try {
+                assertEquals(Admission.ADMITTED, limiter.acquire(priority, deadline));
+                admitted.add(priority);
+                done.complete(null);
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+            }
+        });
+        return done;
+    }
+
+    private static void awaitQueued(ConcurrencyLimiter limiter, Priority priority) throws InterruptedException {
+        long until = System.currentTimeMillis() + 5_000;
+        while (limiter.queued(priority) == 0 && System.currentTimeMillis() < until) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, limiter.queued(priority));
+    }
+}